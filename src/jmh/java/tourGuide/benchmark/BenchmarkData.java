@@ -0,0 +1,59 @@
+package tourGuide.benchmark;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.model.User;
+
+/**
+ * Seeded data sets shared by the benchmarks, so that every run works on the same inputs.
+ */
+public final class BenchmarkData {
+	public static final long SEED = 42;
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Generates an attraction catalog spread over the continental United States.
+	 *
+	 * @param count The number of attractions.
+	 * @return The attractions.
+	 */
+	public static List<Attraction> attractions(int count) {
+		SplittableRandom random = new SplittableRandom(SEED);
+		List<Attraction> attractions = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			attractions.add(new Attraction("Attraction " + i, "City " + i, "ST",
+					random.nextDouble(25, 49), random.nextDouble(-124, -67)));
+		}
+		return attractions;
+	}
+
+	/**
+	 * Creates a user whose visited locations are close to some of the attractions.
+	 *
+	 * @param index       The index of the user, used to derive its id and locations.
+	 * @param attractions The attraction catalog.
+	 * @param locations   The number of visited locations to add.
+	 * @return The user.
+	 */
+	public static User user(int index, List<Attraction> attractions, int locations) {
+		SplittableRandom random = new SplittableRandom(SEED + index);
+		UUID userId = new UUID(SEED, index);
+		User user = new User(userId, "internalUser" + index, "000", "internalUser" + index + "@tourGuide.com");
+		for (int i = 0; i < locations; i++) {
+			Attraction attraction = attractions.get(random.nextInt(attractions.size()));
+			Location location = new Location(attraction.latitude + random.nextDouble(-0.5, 0.5),
+					attraction.longitude + random.nextDouble(-0.5, 0.5));
+			user.addToVisitedLocations(new VisitedLocation(userId, location, new Date(i * 300_000L)));
+		}
+		return user;
+	}
+}
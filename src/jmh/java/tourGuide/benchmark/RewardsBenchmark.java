@@ -0,0 +1,95 @@
+package tourGuide.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.geo.DistanceMode;
+import tourGuide.model.User;
+import tourGuide.service.RewardsService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RewardsBenchmark {
+	private static final int USERS_PER_ITERATION = 1000;
+
+	@Param({"26", "1000"})
+	public int attractionCount;
+
+	@Param({"HAVERSINE", "EQUIRECTANGULAR"})
+	public DistanceMode distanceMode;
+
+	private List<Attraction> attractions;
+	private RewardsService rewardsService;
+	private Location location;
+	private VisitedLocation visitedLocation;
+	private Attraction attraction;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		attractions = BenchmarkData.attractions(attractionCount);
+		rewardsService = new RewardsService(new StandInGpsUtil(attractions), new StandInRewardCentral());
+		rewardsService.setDistanceMode(distanceMode);
+		attraction = attractions.get(0);
+		User sample = BenchmarkData.user(0, attractions, 1);
+		visitedLocation = sample.getLastVisitedLocation();
+		location = visitedLocation.location;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		rewardsService.awaitCalculateRewardsEnding();
+	}
+
+	@Benchmark
+	public double getDistance() {
+		return rewardsService.getDistance(attraction, location);
+	}
+
+	@Benchmark
+	public boolean nearAttraction() {
+		return rewardsService.nearAttraction(visitedLocation, attraction);
+	}
+
+	/**
+	 * Rewards each user of the pool once per iteration, since a user already rewarded would only hit the
+	 * duplicate check.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(batchSize = USERS_PER_ITERATION)
+	@Measurement(batchSize = USERS_PER_ITERATION)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public int calculateRewards(UserPool pool) {
+		User user = pool.next();
+		rewardsService.calculateRewards(user).join();
+		return user.getUserRewards().size();
+	}
+
+	/**
+	 * Users not rewarded yet, built again before each iteration so that building them stays out of the
+	 * measured time.
+	 */
+	@State(Scope.Thread)
+	public static class UserPool {
+		private final User[] users = new User[USERS_PER_ITERATION];
+		private int next;
+
+		@Setup(Level.Iteration)
+		public void fill(RewardsBenchmark benchmark) {
+			for (int i = 0; i < users.length; i++) {
+				users[i] = BenchmarkData.user(i + 1, benchmark.attractions, 10);
+			}
+			next = 0;
+		}
+
+		User next() {
+			return users[next++ % users.length];
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package tourGuide.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.jsoniter.output.JsonStream;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.controller.BinaryWireFormat;
+import tourGuide.helper.InternalTestHelper;
+import tourGuide.model.NearbyAttraction;
+import tourGuide.model.User;
+import tourGuide.model.UserReward;
+import tourGuide.service.RewardsService;
+import tourGuide.service.TourGuideService;
+
+/**
+ * Serializes the payloads returned by TourGuideController the same way the controller does, in JSON
+ * and, for the locations, in the binary wire format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+	@Param({"1000"})
+	public int userCount;
+
+	private TourGuideService tourGuideService;
+	private RewardsService rewardsService;
+	private List<NearbyAttraction> nearbyAttractions;
+	private List<UserReward> userRewards;
+	private Map<String, Location> allCurrentLocations;
+	private NavigableMap<UUID, VisitedLocation> latestLocations;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		List<Attraction> attractions = BenchmarkData.attractions(26);
+		StandInGpsUtil gpsUtil = new StandInGpsUtil(attractions);
+		rewardsService = new RewardsService(gpsUtil, new StandInRewardCentral());
+		rewardsService.setProximityBuffer(Integer.MAX_VALUE);
+		InternalTestHelper.setInternalUserNumber(0);
+		tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		tourGuideService.tracker.stopTracking();
+
+		for (int i = 0; i < userCount; i++) {
+			tourGuideService.addUser(BenchmarkData.user(i, attractions, 3));
+		}
+		User user = tourGuideService.getAllUsers().get(0);
+		rewardsService.calculateRewards(user).join();
+
+		nearbyAttractions = tourGuideService.getNearByAttractions(user, user.getLastVisitedLocation());
+		userRewards = tourGuideService.getUserRewards(user);
+		allCurrentLocations = tourGuideService.getAllCurrentLocations();
+		latestLocations = tourGuideService.getLatestLocationIndex().after(null);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		tourGuideService.awaitTrackUserEnding();
+		rewardsService.awaitCalculateRewardsEnding();
+	}
+
+	@Benchmark
+	public String serializeNearbyAttractions() {
+		return JsonStream.serialize(nearbyAttractions);
+	}
+
+	@Benchmark
+	public String serializeRewards() {
+		return JsonStream.serialize(userRewards);
+	}
+
+	@Benchmark
+	public String serializeAllCurrentLocations() {
+		return JsonStream.serialize(allCurrentLocations);
+	}
+
+	@Benchmark
+	public int writeAllCurrentLocationsBinary() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(latestLocations.size() * BinaryWireFormat.LOCATION_RECORD_BYTES + 4);
+		BinaryWireFormat.writeLocations(latestLocations.entrySet(), out);
+		return out.size();
+	}
+}
@@ -0,0 +1,16 @@
+package tourGuide.benchmark;
+
+import java.util.UUID;
+
+import rewardCentral.RewardCentral;
+
+/**
+ * Zero-latency RewardCentral whose points only depend on the attraction and user ids.
+ */
+public class StandInRewardCentral extends RewardCentral {
+
+	@Override
+	public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+		return Math.floorMod(attractionId.hashCode() * 31 + userId.hashCode(), 1000) + 1;
+	}
+}
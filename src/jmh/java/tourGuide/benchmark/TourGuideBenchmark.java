@@ -0,0 +1,51 @@
+package tourGuide.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.helper.InternalTestHelper;
+import tourGuide.model.NearbyAttraction;
+import tourGuide.model.User;
+import tourGuide.service.RewardsService;
+import tourGuide.service.TourGuideService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TourGuideBenchmark {
+
+	@Param({"26", "1000"})
+	public int attractionCount;
+
+	private TourGuideService tourGuideService;
+	private RewardsService rewardsService;
+	private User user;
+	private VisitedLocation visitedLocation;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		List<Attraction> attractions = BenchmarkData.attractions(attractionCount);
+		StandInGpsUtil gpsUtil = new StandInGpsUtil(attractions);
+		InternalTestHelper.setInternalUserNumber(0);
+		rewardsService = new RewardsService(gpsUtil, new StandInRewardCentral());
+		tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		tourGuideService.tracker.stopTracking();
+		user = BenchmarkData.user(1, attractions, 1);
+		visitedLocation = user.getLastVisitedLocation();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		tourGuideService.awaitTrackUserEnding();
+		rewardsService.awaitCalculateRewardsEnding();
+	}
+
+	@Benchmark
+	public List<NearbyAttraction> getNearByAttractions() {
+		return tourGuideService.getNearByAttractions(user, visitedLocation);
+	}
+}
@@ -0,0 +1,74 @@
+package tourGuide.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.model.User;
+import tourGuide.model.UserReward;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserBenchmark {
+	private static final int USERS_PER_ITERATION = 10_000;
+
+	private List<UserReward> rewards;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		List<Attraction> attractions = BenchmarkData.attractions(26);
+		VisitedLocation visitedLocation = BenchmarkData.user(0, attractions, 1).getLastVisitedLocation();
+		rewards = new ArrayList<>();
+		for (Attraction attraction : attractions) {
+			rewards.add(new UserReward(visitedLocation, attraction, 100));
+		}
+	}
+
+	/**
+	 * Adds every attraction of the catalog twice to a user without rewards, the second pass only hitting the
+	 * duplicate check.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(batchSize = USERS_PER_ITERATION)
+	@Measurement(batchSize = USERS_PER_ITERATION)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public User addUserReward(UserPool pool) {
+		User user = pool.next();
+		for (UserReward reward : rewards) {
+			user.addUserReward(reward);
+		}
+		for (UserReward reward : rewards) {
+			user.addUserReward(reward);
+		}
+		return user;
+	}
+
+	/**
+	 * Users without rewards, built again before each iteration so that building them stays out of the
+	 * measured time.
+	 */
+	@State(Scope.Thread)
+	public static class UserPool {
+		private final User[] users = new User[USERS_PER_ITERATION];
+		private int next;
+
+		@Setup(Level.Iteration)
+		public void fill() {
+			for (int i = 0; i < users.length; i++) {
+				users[i] = new User(new UUID(BenchmarkData.SEED, i), "jon" + i, "000", "jon" + i + "@tourGuide.com");
+			}
+			next = 0;
+		}
+
+		User next() {
+			return users[next++ % users.length];
+		}
+	}
+}
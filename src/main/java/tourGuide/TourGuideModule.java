@@ -1,28 +1,373 @@
 package tourGuide;
 
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.info.InfoContributor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import gpsUtil.GpsUtil;
 import rewardCentral.RewardCentral;
+import tourGuide.cluster.ClusterForwarder;
+import tourGuide.cluster.ConsistentHashRing;
+import tourGuide.cluster.Partitioner;
+import tourGuide.cluster.StaticMembership;
+import tourGuide.concurrent.ExecutionConfig;
+import tourGuide.concurrent.ExecutionMode;
+import tourGuide.concurrent.RejectionPolicy;
+import tourGuide.geo.DistanceMode;
+import tourGuide.helper.InternalTestHelper;
+import tourGuide.ranking.RankingConfig;
+import tourGuide.model.LocationArchive;
+import tourGuide.model.LocationHistory;
+import tourGuide.model.LocationHistoryConfig;
+import tourGuide.repository.FileUserRepository;
+import tourGuide.repository.ILocationJournal;
+import tourGuide.repository.IUserRepository;
+import tourGuide.repository.InMemoryUserRepository;
+import tourGuide.repository.MappedLocationJournal;
+import tourGuide.service.CachingRewardPointsGateway;
+import tourGuide.service.GeofenceService;
+import tourGuide.service.IGeofenceService;
+import tourGuide.service.IRewardPointsGateway;
+import tourGuide.service.ITourGuideService;
+import tourGuide.service.ITripDealService;
+import tourGuide.service.RewardPointsCache;
+import tourGuide.service.RewardPointsGateway;
 import tourGuide.service.RewardsService;
+import tourGuide.service.TripDealService;
+import tourGuide.simulation.LatencyProfile;
+import tourGuide.simulation.SimulatedGpsUtil;
+import tourGuide.simulation.SimulatedRewardCentral;
+import tourGuide.simulation.SimulatedTripPricer;
+import tourGuide.tracker.TrackerConfig;
+import tripPricer.TripPricer;
 
 @Configuration
 public class TourGuideModule {
-	
+
+	@Value("${tourguide.rewards.max-concurrent-requests:" + RewardPointsGateway.DEFAULT_MAX_CONCURRENT_REQUESTS + "}")
+	private int maxConcurrentRewardRequests;
+
+	@Value("${tourguide.rewards.incremental:true}")
+	private boolean incrementalRewards;
+
+	@Value("${tourguide.geo.distance-mode:HAVERSINE}")
+	private DistanceMode distanceMode;
+
+	@Value("${tourguide.nearby-attractions.limit:5}")
+	private int nearbyAttractionsLimit;
+
+	@Value("${tourguide.nearby-attractions.distance-weight:1}")
+	private double nearbyAttractionsDistanceWeight;
+
+	@Value("${tourguide.nearby-attractions.distance-scale-miles:100}")
+	private double nearbyAttractionsDistanceScaleMiles;
+
+	@Value("${tourguide.nearby-attractions.reward-weight:0}")
+	private double nearbyAttractionsRewardWeight;
+
+	@Value("${tourguide.geofence.enabled:false}")
+	private boolean geofenceEnabled;
+
+	@Value("${tourguide.geofence.radius-miles:10}")
+	private double geofenceRadiusMiles;
+
+	@Value("${tourguide.geofence.dwell-minutes:15}")
+	private long geofenceDwellMinutes;
+
+	@Value("${tourguide.geofence.queue-capacity:100000}")
+	private int geofenceQueueCapacity;
+
+	@Value("${tourguide.rewards.cache.max-size:" + RewardPointsCache.DEFAULT_MAXIMUM_SIZE + "}")
+	private int rewardPointsCacheMaxSize;
+
+	@Value("${tourguide.rewards.cache.ttl-minutes:" + RewardPointsCache.DEFAULT_TTL_MINUTES + "}")
+	private long rewardPointsCacheTtlMinutes;
+
+	@Value("${tourguide.trip-deals.cache.max-size:" + TripDealService.DEFAULT_MAXIMUM_SIZE + "}")
+	private int tripDealsCacheMaxSize;
+
+	@Value("${tourguide.trip-deals.cache.ttl-seconds:" + TripDealService.DEFAULT_TTL_SECONDS + "}")
+	private long tripDealsCacheTtlSeconds;
+
+	@Value("${tourguide.location-history.capacity:" + LocationHistory.DEFAULT_CAPACITY + "}")
+	private int locationHistoryCapacity;
+
+	@Autowired(required = false)
+	private LocationArchive locationArchive;
+
+	@Value("${tourguide.execution.mode:PLATFORM}")
+	private ExecutionMode executionMode;
+
+	@Value("${tourguide.execution.tracking-threads:200}")
+	private int trackingThreads;
+
+	@Value("${tourguide.execution.rewards-threads:400}")
+	private int rewardsThreads;
+
+	@Value("${tourguide.execution.gps-util-max-concurrent-calls:200}")
+	private int gpsUtilMaxConcurrentCalls;
+
+	@Value("${tourguide.execution.tracking-queue-capacity:10000}")
+	private int trackingQueueCapacity;
+
+	@Value("${tourguide.execution.rewards-queue-capacity:10000}")
+	private int rewardsQueueCapacity;
+
+	@Value("${tourguide.execution.tracking-rejection-policy:COALESCE}")
+	private RejectionPolicy trackingRejectionPolicy;
+
+	@Value("${tourguide.execution.rewards-rejection-policy:COALESCE}")
+	private RejectionPolicy rewardsRejectionPolicy;
+
+	@Value("${tourguide.execution.shutdown-grace-seconds:30}")
+	private long shutdownGraceSeconds;
+
+	@Value("${tourguide.execution.background-user-seeding:false}")
+	private boolean backgroundUserSeeding;
+
+	@Value("${tourguide.tracker.polling-interval-seconds:300}")
+	private long trackingPollingInterval;
+
+	@Value("${tourguide.tracker.shard-count:60}")
+	private int trackerShardCount;
+
+	@Value("${tourguide.tracker.max-in-flight:200}")
+	private int trackerMaxInFlight;
+
+	@Value("${tourguide.cluster.local-node:}")
+	private String clusterLocalNode;
+
+	@Value("${tourguide.cluster.nodes:}")
+	private String clusterNodes;
+
+	@Value("${tourguide.cluster.virtual-nodes:" + ConsistentHashRing.DEFAULT_VIRTUAL_NODES + "}")
+	private int clusterVirtualNodes;
+
+	@Value("${tourguide.cluster.forwarding-threads:50}")
+	private int clusterForwardingThreads;
+
+	@Value("${tourguide.cluster.forwarding-timeout-millis:" + ClusterForwarder.DEFAULT_TIMEOUT_MILLIS + "}")
+	private int clusterForwardingTimeoutMillis;
+
+	@Value("${tourguide.simulation.enabled:false}")
+	private boolean simulationEnabled;
+
+	@Value("${tourguide.simulation.seed:42}")
+	private long simulationSeed;
+
+	@Value("${tourguide.simulation.gps-util.latency:base=30,jitter=69}")
+	private String gpsUtilLatency;
+
+	@Value("${tourguide.simulation.reward-central.latency:base=1,jitter=998}")
+	private String rewardCentralLatency;
+
+	@Value("${tourguide.simulation.trip-pricer.latency:base=1,jitter=48}")
+	private String tripPricerLatency;
+
+	@Value("${tourguide.user-store.directory:}")
+	private String userStoreDirectory;
+
+	@Value("${tourguide.user-store.flush-interval-millis:" + FileUserRepository.DEFAULT_FLUSH_INTERVAL_MILLIS + "}")
+	private long userStoreFlushInterval;
+
+	@Value("${tourguide.location-journal.directory:}")
+	private String locationJournalDirectory;
+
+	@Value("${tourguide.location-journal.segment-records:" + MappedLocationJournal.DEFAULT_SEGMENT_RECORDS + "}")
+	private int locationJournalSegmentRecords;
+
+	@Value("${tourguide.location-journal.max-segments:" + MappedLocationJournal.DEFAULT_MAX_SEGMENTS + "}")
+	private int locationJournalMaxSegments;
+
+	@PostConstruct
+	public void configureSimulation() {
+		if (simulationEnabled) {
+			InternalTestHelper.setUserIdSeed(simulationSeed);
+		}
+	}
+
 	@Bean
 	public GpsUtil getGpsUtil() {
+		if (simulationEnabled) {
+			return new SimulatedGpsUtil(simulationSeed, LatencyProfile.parse(gpsUtilLatency));
+		}
 		return new GpsUtil();
 	}
 	
 	@Bean
 	public RewardsService getRewardsService() {
-		return new RewardsService(getGpsUtil(), getRewardCentral());
+		RewardsService rewardsService = new RewardsService(getGpsUtil(), getRewardPointsGateway(), getExecutionConfig());
+		rewardsService.setIncrementalMode(incrementalRewards);
+		rewardsService.setDistanceMode(distanceMode);
+		return rewardsService;
 	}
 	
+	@Bean
+	public ExecutionConfig getExecutionConfig() {
+		ExecutionConfig executionConfig = new ExecutionConfig();
+		executionConfig.setMode(executionMode);
+		executionConfig.setTrackingThreads(trackingThreads);
+		executionConfig.setRewardsThreads(rewardsThreads);
+		executionConfig.setGpsUtilMaxConcurrentCalls(gpsUtilMaxConcurrentCalls);
+		executionConfig.setTrackingQueueCapacity(trackingQueueCapacity);
+		executionConfig.setRewardsQueueCapacity(rewardsQueueCapacity);
+		executionConfig.setTrackingRejectionPolicy(trackingRejectionPolicy);
+		executionConfig.setRewardsRejectionPolicy(rewardsRejectionPolicy);
+		executionConfig.setShutdownGraceSeconds(shutdownGraceSeconds);
+		executionConfig.setBackgroundUserSeeding(backgroundUserSeeding);
+		return executionConfig;
+	}
+
+	@Bean
+	public RankingConfig getRankingConfig() {
+		RankingConfig rankingConfig = new RankingConfig();
+		rankingConfig.setLimit(nearbyAttractionsLimit);
+		rankingConfig.setDistanceWeight(nearbyAttractionsDistanceWeight);
+		rankingConfig.setDistanceScaleMiles(nearbyAttractionsDistanceScaleMiles);
+		rankingConfig.setRewardWeight(nearbyAttractionsRewardWeight);
+		return rankingConfig;
+	}
+
+	@Bean
+	public TrackerConfig getTrackerConfig() {
+		TrackerConfig trackerConfig = new TrackerConfig();
+		trackerConfig.setTrackingPollingInterval(trackingPollingInterval);
+		trackerConfig.setShardCount(trackerShardCount);
+		trackerConfig.setMaxInFlight(trackerMaxInFlight);
+		return trackerConfig;
+	}
+
+	@Bean
+	public LocationHistoryConfig getLocationHistoryConfig() {
+		if (locationHistoryCapacity <= 0) {
+			throw new IllegalArgumentException("tourguide.location-history.capacity must be positive: " + locationHistoryCapacity);
+		}
+		LocationHistoryConfig locationHistoryConfig = new LocationHistoryConfig();
+		locationHistoryConfig.setCapacity(locationHistoryCapacity);
+		if (locationArchive != null) {
+			locationHistoryConfig.setArchive(locationArchive);
+		}
+		return locationHistoryConfig;
+	}
+
+	@Bean
+	public IUserRepository getUserRepository() {
+		if (userStoreDirectory.isEmpty()) {
+			return new InMemoryUserRepository(getLocationHistoryConfig());
+		}
+		// same attraction ids as the rewards calculated by RewardsService
+		return new FileUserRepository(Paths.get(userStoreDirectory),
+				getRewardsService().getAttractionIndex().getAttractions(), userStoreFlushInterval,
+				locationJournalDirectory.isEmpty(), getLocationHistoryConfig());
+	}
+
+	@Bean
+	public ILocationJournal getLocationJournal() {
+		if (locationJournalDirectory.isEmpty()) {
+			return ILocationJournal.DISABLED;
+		}
+		return new MappedLocationJournal(Paths.get(locationJournalDirectory),
+				locationJournalSegmentRecords, locationJournalMaxSegments);
+	}
+
 	@Bean
 	public RewardCentral getRewardCentral() {
+		if (simulationEnabled) {
+			return new SimulatedRewardCentral(simulationSeed, LatencyProfile.parse(rewardCentralLatency),
+					getGpsUtil().getAttractions());
+		}
 		return new RewardCentral();
 	}
+
+	@Bean
+	public TripPricer getTripPricer() {
+		if (simulationEnabled) {
+			return new SimulatedTripPricer(simulationSeed, LatencyProfile.parse(tripPricerLatency));
+		}
+		return new TripPricer();
+	}
+
+	@Bean
+	public IGeofenceService getGeofenceService() {
+		if (!geofenceEnabled) {
+			return IGeofenceService.DISABLED;
+		}
+		return new GeofenceService(getRewardsService(), geofenceRadiusMiles,
+				TimeUnit.MINUTES.toMillis(geofenceDwellMinutes), geofenceQueueCapacity);
+	}
+
+	@Bean
+	public Partitioner getPartitioner() {
+		if (clusterLocalNode.isEmpty()) {
+			return Partitioner.singleNode();
+		}
+		List<String> nodes = Arrays.stream(clusterNodes.split(","))
+				.map(String::trim)
+				.filter(node -> !node.isEmpty())
+				.collect(Collectors.toList());
+		return new Partitioner(new StaticMembership(clusterLocalNode, nodes), clusterVirtualNodes);
+	}
+
+	@Bean
+	public ClusterForwarder getClusterForwarder() {
+		return new ClusterForwarder(getPartitioner().getLocalNode(), executionMode, clusterForwardingThreads,
+				clusterForwardingTimeoutMillis);
+	}
+
+	@Bean
+	public ITripDealService getTripDealService() {
+		return new TripDealService(getTripPricer(), tripDealsCacheMaxSize, tripDealsCacheTtlSeconds, TimeUnit.SECONDS);
+	}
+
+	@Bean
+	public IRewardPointsGateway getRewardPointsGateway() {
+		return new CachingRewardPointsGateway(
+				new RewardPointsGateway(getRewardCentral(), maxConcurrentRewardRequests, executionMode),
+				getRewardPointsCache());
+	}
+
+	@Bean
+	public RewardPointsCache getRewardPointsCache() {
+		return new RewardPointsCache(rewardPointsCacheMaxSize, rewardPointsCacheTtlMinutes, TimeUnit.MINUTES);
+	}
+
+	@Bean
+	public InfoContributor getRewardPointsCacheInfoContributor() {
+		return builder -> builder.withDetail("rewardPointsCache", getRewardPointsCache().getStats());
+	}
+
+	@Bean
+	public InfoContributor getTripDealsCacheInfoContributor() {
+		return builder -> builder.withDetail("tripDealsCache", getTripDealService().getStats());
+	}
+
+	// out of service until the users are loaded, part of the readiness probe
+	@Bean(name = "usersHealthIndicator")
+	public HealthIndicator getUsersHealthIndicator(ITourGuideService tourGuideService) {
+		return () -> {
+			CompletableFuture<Void> ready = tourGuideService.whenReady();
+			if (!ready.isDone()) return Health.outOfService().build();
+			try {
+				ready.join();
+				return Health.up().build();
+			} catch (CompletionException e) {
+				return Health.down().withException(e.getCause()).build();
+			}
+		};
+	}
 	
 }
@@ -0,0 +1,116 @@
+package tourGuide.cluster;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import tourGuide.concurrent.ExecutionMode;
+import tourGuide.concurrent.ServiceExecutors;
+import tourGuide.metrics.TourGuideMetrics;
+
+/**
+ * Forwards the requests about a user to the node owning it. The forwarded request carries the
+ * {@link #FORWARDED_HEADER} header, so the receiving node answers it itself even when its view of the
+ * cluster differs, and a request is never forwarded twice.
+ */
+public class ClusterForwarder {
+	public static final String FORWARDED_HEADER = "X-TourGuide-Forwarded-By";
+	public static final int DEFAULT_TIMEOUT_MILLIS = 5000;
+	private static final String POOL_NAME = "forwarding";
+
+	private final String localNode;
+	private final int timeoutMillis;
+	private final ExecutorService executor;
+
+	/**
+	 * Constructs a ClusterForwarder.
+	 *
+	 * @param localNode     The id of this node, sent in the forwarded header.
+	 * @param mode          The kind of threads waiting on the other nodes.
+	 * @param threads       The number of requests forwarded at the same time in PLATFORM mode.
+	 * @param timeoutMillis The connect and read timeout of a forwarded request, in milliseconds.
+	 */
+	public ClusterForwarder(String localNode, ExecutionMode mode, int threads, int timeoutMillis) {
+		this.localNode = localNode;
+		this.timeoutMillis = timeoutMillis;
+		this.executor = ServiceExecutors.newExecutor(mode, threads, POOL_NAME);
+	}
+
+	/**
+	 * Sends a GET request about a user to another node.
+	 *
+	 * @param node     The id of the node, its base URL.
+	 * @param path     The path of the endpoint, such as /getRewards.
+	 * @param userName The username of the user.
+	 * @return A CompletableFuture of the body answered by the node, failing with an UncheckedIOException
+	 * when the node cannot be reached or does not answer 200.
+	 */
+	public CompletableFuture<String> forward(String node, String path, String userName) {
+		return forward(node, "GET", path, userName, null);
+	}
+
+	/**
+	 * Sends a request about a user to another node.
+	 *
+	 * @param node     The id of the node, its base URL.
+	 * @param method   The HTTP method, such as PUT.
+	 * @param path     The path of the endpoint, such as /userPreferences.
+	 * @param userName The username of the user.
+	 * @param jsonBody The JSON body of the request, or null for none.
+	 * @return A CompletableFuture of the body answered by the node, failing with an UncheckedIOException
+	 * when the node cannot be reached or does not answer 200.
+	 */
+	public CompletableFuture<String> forward(String node, String method, String path, String userName, String jsonBody) {
+		return CompletableFuture.supplyAsync(() -> send(node, method, path, userName, jsonBody), executor);
+	}
+
+	/**
+	 * Stops the threads waiting on the other nodes.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+		TourGuideMetrics.unmonitor(POOL_NAME);
+	}
+
+	private String send(String node, String method, String path, String userName, String jsonBody) {
+		try {
+			URL url = new URL(node + path + "?userName=" + URLEncoder.encode(userName, "UTF-8"));
+			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+			connection.setConnectTimeout(timeoutMillis);
+			connection.setReadTimeout(timeoutMillis);
+			connection.setRequestMethod(method);
+			connection.setRequestProperty(FORWARDED_HEADER, localNode);
+			if (jsonBody != null) {
+				connection.setDoOutput(true);
+				connection.setRequestProperty("Content-Type", "application/json");
+				try (OutputStream out = connection.getOutputStream()) {
+					out.write(jsonBody.getBytes(StandardCharsets.UTF_8));
+				}
+			}
+			int status = connection.getResponseCode();
+			if (status != HttpURLConnection.HTTP_OK) {
+				connection.disconnect();
+				throw new IOException(node + path + " answered " + status);
+			}
+			// reading the body to the end lets the connection be kept alive for the next request
+			try (InputStream in = connection.getInputStream()) {
+				ByteArrayOutputStream body = new ByteArrayOutputStream();
+				byte[] buffer = new byte[8192];
+				for (int read; (read = in.read(buffer)) != -1; ) {
+					body.write(buffer, 0, read);
+				}
+				return new String(body.toByteArray(), StandardCharsets.UTF_8);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
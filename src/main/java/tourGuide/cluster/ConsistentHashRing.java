@@ -0,0 +1,101 @@
+package tourGuide.cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Assigns keys to nodes by consistent hashing. Each node is placed at several points of the ring, its virtual
+ * nodes, and a key belongs to the first point at or after its hash, so that a node joining or leaving only
+ * moves about 1/n of the keys and the keys stay evenly spread. The ring is immutable, a membership change
+ * builds a new one.
+ */
+public final class ConsistentHashRing {
+	public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+	private final Set<String> nodes;
+	// the positions of the virtual nodes, sorted, and the node at each position
+	private final long[] points;
+	private final String[] owners;
+
+	/**
+	 * Constructs a ConsistentHashRing.
+	 *
+	 * @param nodes        The ids of the nodes, at least one.
+	 * @param virtualNodes The number of points of each node on the ring.
+	 */
+	public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+		if (nodes.isEmpty()) throw new IllegalArgumentException("A ring needs at least one node");
+		if (virtualNodes <= 0) throw new IllegalArgumentException("virtualNodes must be positive: " + virtualNodes);
+		this.nodes = Collections.unmodifiableSet(new TreeSet<>(nodes));
+
+		List<Point> ring = new ArrayList<>(this.nodes.size() * virtualNodes);
+		for (String node : this.nodes) {
+			for (int i = 0; i < virtualNodes; i++) {
+				ring.add(new Point(hash(node + "#" + i), node));
+			}
+		}
+		// ties are broken by node id, so every node builds the same ring
+		ring.sort((a, b) -> a.position != b.position ? Long.compare(a.position, b.position) : a.node.compareTo(b.node));
+		this.points = new long[ring.size()];
+		this.owners = new String[ring.size()];
+		for (int i = 0; i < ring.size(); i++) {
+			points[i] = ring.get(i).position;
+			owners[i] = ring.get(i).node;
+		}
+	}
+
+	/**
+	 * Finds the node a key belongs to.
+	 *
+	 * @param key The key, such as a username.
+	 * @return The id of the node owning the key.
+	 */
+	public String ownerOf(String key) {
+		int index = Arrays.binarySearch(points, hash(key));
+		if (index < 0) index = -index - 1;
+		// past the last point, the ring wraps around to the first one
+		return owners[index == points.length ? 0 : index];
+	}
+
+	/**
+	 * Retrieves the nodes of the ring.
+	 *
+	 * @return The ids of the nodes, sorted.
+	 */
+	public Set<String> getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Hashes a string to a position on the ring, the same on every JVM: 64-bit FNV-1a over the chars,
+	 * followed by the MurmurHash3 finalizer so that close strings land far apart.
+	 */
+	static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	private static final class Point {
+		private final long position;
+		private final String node;
+
+		private Point(long position, String node) {
+			this.position = position;
+			this.node = node;
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package tourGuide.cluster;
+
+import java.util.Set;
+
+/**
+ * The nodes sharing the tracked users, as seen by one of them.
+ */
+public interface IMembership {
+
+    /**
+     * Retrieves the id of this node.
+     *
+     * @return The id of this node, its base URL such as http://localhost:8080.
+     */
+    String getLocalNode();
+
+    /**
+     * Retrieves the nodes currently in the cluster.
+     *
+     * @return The ids of the nodes, this one included.
+     */
+    Set<String> getNodes();
+
+    /**
+     * Registers a listener called after each change of the nodes.
+     *
+     * @param listener The listener, called on the thread that changed the membership.
+     */
+    void addListener(Runnable listener);
+}
@@ -0,0 +1,97 @@
+package tourGuide.cluster;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A membership shared by several instances running in the same JVM, standing in for a discovery service
+ * in tests and local runs. Nodes join and leave through the {@link Group}, and every member is told.
+ */
+public class InMemoryMembership implements IMembership {
+	private final Group group;
+	private final String localNode;
+	private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+	private InMemoryMembership(Group group, String localNode) {
+		this.group = group;
+		this.localNode = localNode;
+	}
+
+	@Override
+	public String getLocalNode() {
+		return localNode;
+	}
+
+	@Override
+	public Set<String> getNodes() {
+		return group.getNodes();
+	}
+
+	@Override
+	public void addListener(Runnable listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes this node from the group.
+	 */
+	public void leave() {
+		group.leave(this);
+	}
+
+	/**
+	 * The nodes of an in-memory cluster.
+	 */
+	public static class Group {
+		private final List<InMemoryMembership> members = new CopyOnWriteArrayList<>();
+		private volatile Set<String> nodes = Collections.emptySet();
+
+		/**
+		 * Adds a node to the group.
+		 *
+		 * @param node The id of the node.
+		 * @return The membership seen by the node.
+		 */
+		public InMemoryMembership join(String node) {
+			InMemoryMembership membership = new InMemoryMembership(this, node);
+			synchronized (this) {
+				members.add(membership);
+				update();
+			}
+			notifyMembers();
+			return membership;
+		}
+
+		/**
+		 * Retrieves the nodes of the group.
+		 *
+		 * @return The ids of the nodes, in joining order.
+		 */
+		public Set<String> getNodes() {
+			return nodes;
+		}
+
+		private void leave(InMemoryMembership membership) {
+			synchronized (this) {
+				if (!members.remove(membership)) return;
+				update();
+			}
+			notifyMembers();
+		}
+
+		private void update() {
+			Set<String> current = new LinkedHashSet<>();
+			members.forEach(member -> current.add(member.localNode));
+			nodes = Collections.unmodifiableSet(current);
+		}
+
+		private void notifyMembers() {
+			for (InMemoryMembership member : members) {
+				member.listeners.forEach(Runnable::run);
+			}
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package tourGuide.cluster;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Splits the users between the nodes of the cluster by consistent hashing of their usernames, the key
+ * every node and every request knows. The ring is rebuilt when the membership changes, and the listeners
+ * are told so that each node starts tracking the users it gained and stops tracking the ones it lost.
+ */
+public class Partitioner {
+	public static final String LOCAL_NODE = "local";
+
+	private final Logger logger = LoggerFactory.getLogger(Partitioner.class);
+	private final IMembership membership;
+	private final int virtualNodes;
+	private final List<Runnable> rebalanceListeners = new CopyOnWriteArrayList<>();
+	private volatile ConsistentHashRing ring;
+
+	/**
+	 * Constructs a Partitioner.
+	 *
+	 * @param membership   The nodes of the cluster.
+	 * @param virtualNodes The number of points of each node on the ring.
+	 */
+	public Partitioner(IMembership membership, int virtualNodes) {
+		this.membership = membership;
+		this.virtualNodes = virtualNodes;
+		this.ring = buildRing();
+		membership.addListener(this::rebalance);
+	}
+
+	/**
+	 * Creates a Partitioner for a node running alone, which owns every user.
+	 *
+	 * @return The Partitioner of a single node.
+	 */
+	public static Partitioner singleNode() {
+		return new Partitioner(new StaticMembership(LOCAL_NODE, Collections.emptySet()), 1);
+	}
+
+	/**
+	 * Tells whether this node owns a user.
+	 *
+	 * @param userName The username of the user.
+	 * @return true if the user is tracked and served by this node.
+	 */
+	public boolean isLocal(String userName) {
+		return ownerOf(userName).equals(membership.getLocalNode());
+	}
+
+	/**
+	 * Finds the node owning a user.
+	 *
+	 * @param userName The username of the user.
+	 * @return The id of the node owning the user.
+	 */
+	public String ownerOf(String userName) {
+		ConsistentHashRing current = ring;
+		return current.getNodes().size() == 1 ? current.getNodes().iterator().next() : current.ownerOf(userName);
+	}
+
+	/**
+	 * Retrieves the id of this node.
+	 *
+	 * @return The id of this node.
+	 */
+	public String getLocalNode() {
+		return membership.getLocalNode();
+	}
+
+	/**
+	 * Retrieves the nodes the users are currently split between.
+	 *
+	 * @return The ids of the nodes, sorted.
+	 */
+	public Set<String> getNodes() {
+		return ring.getNodes();
+	}
+
+	/**
+	 * Registers a listener called after the users have been split again between the nodes.
+	 *
+	 * @param listener The listener, called on the thread that changed the membership.
+	 */
+	public void addRebalanceListener(Runnable listener) {
+		rebalanceListeners.add(listener);
+	}
+
+	private void rebalance() {
+		ring = buildRing();
+		logger.info("Users split between " + ring.getNodes().size() + " nodes: " + ring.getNodes());
+		for (Runnable listener : rebalanceListeners) {
+			try {
+				listener.run();
+			} catch (RuntimeException e) {
+				logger.warn("Rebalance listener failed: " + e.getMessage());
+			}
+		}
+	}
+
+	private ConsistentHashRing buildRing() {
+		Set<String> nodes = membership.getNodes();
+		// a node left alone, or not joined yet, keeps its users
+		if (nodes.isEmpty()) nodes = Collections.singleton(membership.getLocalNode());
+		return new ConsistentHashRing(nodes, virtualNodes);
+	}
+}
@@ -0,0 +1,42 @@
+package tourGuide.cluster;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A membership whose nodes are fixed by the configuration and never change.
+ */
+public class StaticMembership implements IMembership {
+	private final String localNode;
+	private final Set<String> nodes;
+
+	/**
+	 * Constructs a StaticMembership.
+	 *
+	 * @param localNode The id of this node, added to the nodes when missing.
+	 * @param nodes     The ids of the nodes of the cluster.
+	 */
+	public StaticMembership(String localNode, Collection<String> nodes) {
+		Set<String> allNodes = new LinkedHashSet<>(nodes);
+		allNodes.add(localNode);
+		this.localNode = localNode;
+		this.nodes = Collections.unmodifiableSet(allNodes);
+	}
+
+	@Override
+	public String getLocalNode() {
+		return localNode;
+	}
+
+	@Override
+	public Set<String> getNodes() {
+		return nodes;
+	}
+
+	@Override
+	public void addListener(Runnable listener) {
+		// nothing ever changes
+	}
+}
@@ -0,0 +1,23 @@
+package tourGuide.concurrent;
+
+import lombok.Data;
+
+@Data
+public class ExecutionConfig {
+	private ExecutionMode mode = ExecutionMode.PLATFORM;
+	// pool sizes, only used in PLATFORM mode
+	private int trackingThreads = 200;
+	private int rewardsThreads = 400;
+	// bounded work queues of the pools, and what happens to the tasks of a user already queued or to a full queue
+	private int trackingQueueCapacity = 10_000;
+	private int rewardsQueueCapacity = 10_000;
+	private RejectionPolicy trackingRejectionPolicy = RejectionPolicy.COALESCE;
+	private RejectionPolicy rewardsRejectionPolicy = RejectionPolicy.COALESCE;
+	// time given to the submitted tasks to finish when the application stops
+	private long shutdownGraceSeconds = 30;
+	// create the internal users on a background thread instead of in the TourGuideService constructor
+	private boolean backgroundUserSeeding = false;
+	// maximum number of GpsUtil calls running at the same time, in every mode
+	private int gpsUtilMaxConcurrentCalls = 200;
+
+}
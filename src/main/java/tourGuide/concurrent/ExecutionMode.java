@@ -0,0 +1,15 @@
+package tourGuide.concurrent;
+
+/**
+ * Kind of threads running the blocking calls to the upstream services.
+ */
+public enum ExecutionMode {
+	/**
+	 * Fixed pools of platform threads, sized by configuration.
+	 */
+	PLATFORM,
+	/**
+	 * One virtual thread per task, available from JDK 21. Falls back to PLATFORM on older JDKs.
+	 */
+	VIRTUAL
+}
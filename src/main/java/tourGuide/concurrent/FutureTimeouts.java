@@ -0,0 +1,71 @@
+package tourGuide.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the time spent waiting on a CompletableFuture, as completeOnTimeout does from Java 9.
+ * A single daemon thread fires the timeouts and hands the fallbacks over to a pool of daemon threads, so neither
+ * the fallbacks nor the dependents they complete ever hold up the other timeouts.
+ */
+public final class FutureTimeouts {
+	private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "future-timeouts");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// only runs the futures that timed out, idle threads go away after a minute
+	private static final ExecutorService fallbacks = Executors.newCachedThreadPool(new ThreadFactory() {
+		private final AtomicInteger threadNumber = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "future-fallbacks-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private FutureTimeouts() {
+	}
+
+	/**
+	 * Creates a future completed by the given one, or by the fallback if the given one is not done in time.
+	 * The given future keeps running after the timeout, so its result still reaches its other dependents.
+	 *
+	 * @param future        The future to wait for.
+	 * @param timeoutMillis The time to wait before falling back.
+	 * @param fallback      The value to complete with on timeout.
+	 * @param <T>           The type of the result.
+	 * @return A new future completed with the result of the given one or with the fallback.
+	 */
+	public static <T> CompletableFuture<T> withFallback(CompletableFuture<T> future, long timeoutMillis, Supplier<T> fallback) {
+		if (future.isDone()) return future;
+
+		CompletableFuture<T> result = new CompletableFuture<>();
+		ScheduledFuture<?> timeout = timer.schedule(() -> fallbacks.execute(() -> {
+			// the dependents of result run here, off the timer thread
+			try {
+				result.complete(fallback.get());
+			} catch (RuntimeException e) {
+				result.completeExceptionally(e);
+			}
+		}), timeoutMillis, TimeUnit.MILLISECONDS);
+		future.whenComplete((value, throwable) -> {
+			timeout.cancel(false);
+			if (throwable != null) {
+				result.completeExceptionally(throwable);
+			} else {
+				result.complete(value);
+			}
+		});
+		return result;
+	}
+}
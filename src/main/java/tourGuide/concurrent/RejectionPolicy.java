@@ -0,0 +1,24 @@
+package tourGuide.concurrent;
+
+/**
+ * What a {@link UserTaskExecutor} does with a task when the user already has one waiting in the queue,
+ * or when the queue is full.
+ */
+public enum RejectionPolicy {
+	/**
+	 * Every task is queued, and a task finding the queue full runs in the submitting thread,
+	 * which slows the submitter down to the pace of the pool.
+	 */
+	CALLER_RUNS,
+	/**
+	 * A new task of a user replaces the task of that user waiting in the queue, whose callers get the result
+	 * of the new one. A task finding the queue full evicts the oldest waiting task, which fails with a
+	 * RejectedExecutionException.
+	 */
+	DROP_OLDEST,
+	/**
+	 * A new task of a user already waiting in the queue is not queued, its callers share the result of the
+	 * waiting task. A task finding the queue full runs in the submitting thread.
+	 */
+	COALESCE
+}
@@ -0,0 +1,107 @@
+package tourGuide.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tourGuide.metrics.TourGuideMetrics;
+
+/**
+ * Creates the executors of the services according to the configured {@link ExecutionMode}.
+ * Virtual threads are looked up reflectively so that the code still builds and runs on Java 8.
+ */
+public final class ServiceExecutors {
+	private static final Logger logger = LoggerFactory.getLogger(ServiceExecutors.class);
+	private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadFactoryMethod();
+
+	private ServiceExecutors() {
+	}
+
+	/**
+	 * Checks whether the running JDK supports virtual threads.
+	 *
+	 * @return True if virtual threads are available.
+	 */
+	public static boolean isVirtualThreadsAvailable() {
+		return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+	}
+
+	/**
+	 * Creates an executor for blocking tasks.
+	 *
+	 * @param mode            The kind of threads to use.
+	 * @param platformThreads The size of the pool in PLATFORM mode.
+	 * @param name            The prefix of the thread names in PLATFORM mode.
+	 * @return A fixed pool of platform threads, whose queue and threads are published as metrics,
+	 * or an executor starting a virtual thread per task.
+	 */
+	public static ExecutorService newExecutor(ExecutionMode mode, int platformThreads, String name) {
+		if (mode == ExecutionMode.VIRTUAL) {
+			if (isVirtualThreadsAvailable()) {
+				try {
+					return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+				} catch (ReflectiveOperationException e) {
+					logger.warn("Could not create a virtual thread executor for " + name, e);
+				}
+			} else {
+				logger.warn("Virtual threads need JDK 21 or later, " + name + " falls back to " + platformThreads + " platform threads");
+			}
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(platformThreads, namedThreadFactory(name));
+		TourGuideMetrics.monitor(executor, name);
+		return executor;
+	}
+
+	/**
+	 * Creates an executor for blocking tasks whose queue is bounded in PLATFORM mode.
+	 * Virtual threads are started as tasks are submitted, so in VIRTUAL mode nothing is queued.
+	 *
+	 * @param mode            The kind of threads to use.
+	 * @param platformThreads The size of the pool in PLATFORM mode.
+	 * @param queueCapacity   The number of tasks waiting for a thread in PLATFORM mode.
+	 * @param handler         The handler of the tasks submitted while the queue is full or the pool shut down.
+	 * @param name            The prefix of the thread names in PLATFORM mode.
+	 * @return A fixed pool of platform threads with a bounded queue, or an executor starting a virtual thread per task.
+	 */
+	public static ExecutorService newBoundedExecutor(ExecutionMode mode, int platformThreads, int queueCapacity,
+													 RejectedExecutionHandler handler, String name) {
+		if (queueCapacity <= 0) {
+			throw new IllegalArgumentException("queueCapacity of " + name + " must be positive: " + queueCapacity);
+		}
+		if (mode == ExecutionMode.VIRTUAL) {
+			if (isVirtualThreadsAvailable()) return newExecutor(mode, platformThreads, name);
+			logger.warn("Virtual threads need JDK 21 or later, " + name + " falls back to " + platformThreads + " platform threads");
+		}
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(platformThreads, platformThreads, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(queueCapacity), namedThreadFactory(name), handler);
+		TourGuideMetrics.monitor(executor, name);
+		return executor;
+	}
+
+	private static ThreadFactory namedThreadFactory(String name) {
+		AtomicInteger threadNumber = new AtomicInteger();
+		ThreadFactory defaultThreadFactory = Executors.defaultThreadFactory();
+		return runnable -> {
+			Thread thread = defaultThreadFactory.newThread(runnable);
+			thread.setName(name + "-" + threadNumber.incrementAndGet());
+			return thread;
+		};
+	}
+
+	private static Method findVirtualThreadFactoryMethod() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+}
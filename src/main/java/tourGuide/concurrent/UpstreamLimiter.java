@@ -0,0 +1,80 @@
+package tourGuide.concurrent;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import tourGuide.metrics.TourGuideMetrics;
+
+/**
+ * Caps the number of calls running at the same time toward one upstream service.
+ * With virtual threads the executors are unbounded, so this is what protects the upstream.
+ * The time spent waiting for a permit and in the call are recorded apart, tagged with the upstream name.
+ */
+public class UpstreamLimiter {
+	private final String name;
+	private final Semaphore permits;
+	private final Timer callTimer;
+	private final Timer waitTimer;
+	private final Gauge queuedGauge;
+
+	/**
+	 * Constructs an UpstreamLimiter.
+	 *
+	 * @param name               The name of the upstream, for diagnostics.
+	 * @param maxConcurrentCalls The maximum number of calls running at the same time.
+	 */
+	public UpstreamLimiter(String name, int maxConcurrentCalls) {
+		if (maxConcurrentCalls <= 0) {
+			throw new IllegalArgumentException("maxConcurrentCalls of " + name + " must be positive: " + maxConcurrentCalls);
+		}
+		this.name = name;
+		this.permits = new Semaphore(maxConcurrentCalls);
+		this.callTimer = TourGuideMetrics.timer(TourGuideMetrics.UPSTREAM_CALLS, TourGuideMetrics.UPSTREAM_RANGE,
+				TourGuideMetrics.UPSTREAM_TAG, name);
+		this.waitTimer = TourGuideMetrics.timer(TourGuideMetrics.UPSTREAM_WAIT, TourGuideMetrics.UPSTREAM_RANGE,
+				TourGuideMetrics.UPSTREAM_TAG, name);
+		this.queuedGauge = TourGuideMetrics.gauge(TourGuideMetrics.UPSTREAM_QUEUED, permits, Semaphore::getQueueLength,
+				TourGuideMetrics.UPSTREAM_TAG, name);
+	}
+
+	/**
+	 * Runs the call once a permit is available.
+	 *
+	 * @param call The blocking call to the upstream.
+	 * @param <T>  The type of the result.
+	 * @return The result of the call.
+	 */
+	public <T> T call(Supplier<T> call) {
+		long waitStart = System.nanoTime();
+		permits.acquireUninterruptibly();
+		waitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+		try {
+			return callTimer.record(call);
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * Retrieves the number of calls currently waiting for a permit.
+	 *
+	 * @return The length of the queue toward the upstream.
+	 */
+	public int getQueueLength() {
+		return permits.getQueueLength();
+	}
+
+	/**
+	 * Stops publishing the queue length of the limiter, once its owner is shut down.
+	 */
+	public void shutdown() {
+		TourGuideMetrics.remove(queuedGauge);
+	}
+
+	public String getName() {
+		return name;
+	}
+}
@@ -0,0 +1,218 @@
+package tourGuide.concurrent;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import tourGuide.metrics.TourGuideMetrics;
+
+/**
+ * Runs tasks on behalf of users on a pool with a bounded queue, so a slow upstream makes the submitters wait
+ * or shed work instead of growing an unbounded backlog. The {@link RejectionPolicy} decides what happens to
+ * a task of a user who already has one waiting in the queue, and to a task finding the queue full.
+ * Each rejection outcome is counted, tagged with the pool name.
+ *
+ * @param <T> The type of the results of the tasks.
+ */
+public class UserTaskExecutor<T> {
+	private final ExecutorService executor;
+	private final String name;
+	private final RejectionPolicy policy;
+	// tasks waiting in the queue, at most one per user, unused by CALLER_RUNS
+	private final ConcurrentMap<UUID, UserTask> queuedTasks = new ConcurrentHashMap<>();
+	// tasks submitted and not completed yet, waiters for zero are notified on idleLock
+	private final AtomicInteger pendingTasks = new AtomicInteger();
+	private final Object idleLock = new Object();
+	private final Counter coalesced;
+	private final Counter superseded;
+	private final Counter dropped;
+	private final Counter callerRuns;
+
+	/**
+	 * Constructs a UserTaskExecutor.
+	 *
+	 * @param mode            The kind of threads to use.
+	 * @param platformThreads The size of the pool in PLATFORM mode.
+	 * @param queueCapacity   The number of tasks waiting for a thread in PLATFORM mode.
+	 * @param policy          What to do with the tasks of users already queued and with a full queue.
+	 * @param name            The name of the pool.
+	 */
+	public UserTaskExecutor(ExecutionMode mode, int platformThreads, int queueCapacity, RejectionPolicy policy, String name) {
+		this.policy = policy;
+		this.name = name;
+		this.executor = ServiceExecutors.newBoundedExecutor(mode, platformThreads, queueCapacity, this::rejected, name);
+		this.coalesced = rejectionCounter(name, "coalesced");
+		this.superseded = rejectionCounter(name, "superseded");
+		this.dropped = rejectionCounter(name, "dropped");
+		this.callerRuns = rejectionCounter(name, "caller-runs");
+	}
+
+	/**
+	 * Submits a task of a user.
+	 *
+	 * @param userId The id of the user the task runs for.
+	 * @param work   The work of the task.
+	 * @return A CompletableFuture that will complete with the result of the task, or of the task of the same user
+	 * it was coalesced with or superseded by.
+	 * @throws RejectedExecutionException If the executor is shut down.
+	 */
+	public CompletableFuture<T> submit(UUID userId, Supplier<T> work) {
+		UserTask task = new UserTask(userId, work);
+		if (policy == RejectionPolicy.COALESCE) {
+			UserTask queued = queuedTasks.putIfAbsent(userId, task);
+			if (queued != null) {
+				coalesced.increment();
+				return queued.future;
+			}
+		} else if (policy == RejectionPolicy.DROP_OLDEST) {
+			UserTask previous = queuedTasks.put(userId, task);
+			// the superseded task stays in the queue until a thread skips it
+			if (previous != null && previous.claim()) {
+				superseded.increment();
+				task.future.whenComplete((result, throwable) -> complete(previous.future, result, throwable));
+			}
+		}
+
+		pendingTasks.incrementAndGet();
+		task.future.whenComplete((result, throwable) -> taskEnded());
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			queuedTasks.remove(userId, task);
+			task.claim();
+			task.future.completeExceptionally(e);
+			throw e;
+		}
+		return task.future;
+	}
+
+	/**
+	 * Waits until every task submitted so far is completed, the executor keeping on running.
+	 * Tasks submitted while waiting are waited for too.
+	 *
+	 * @param timeout The maximum time to wait.
+	 * @param unit    The unit of the timeout.
+	 * @return True if no task is pending anymore, false if the timeout elapsed first.
+	 * @throws InterruptedException If the current thread is interrupted while waiting.
+	 */
+	public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (idleLock) {
+			while (pendingTasks.get() > 0) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) return false;
+				TimeUnit.NANOSECONDS.timedWait(idleLock, remaining);
+			}
+		}
+		return true;
+	}
+
+	public int getPendingTasks() {
+		return pendingTasks.get();
+	}
+
+	/**
+	 * Stops accepting tasks, lets the running and queued ones finish within the grace period,
+	 * then interrupts the running ones and fails the queued ones with a RejectedExecutionException.
+	 *
+	 * @param gracePeriod The time given to the tasks to finish.
+	 * @param unit        The unit of the grace period.
+	 */
+	public void shutdown(long gracePeriod, TimeUnit unit) {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(gracePeriod, unit)) {
+				failQueuedTasks(executor.shutdownNow());
+			}
+		} catch (InterruptedException e) {
+			failQueuedTasks(executor.shutdownNow());
+			Thread.currentThread().interrupt();
+		}
+		TourGuideMetrics.unmonitor(name);
+	}
+
+	private void rejected(Runnable runnable, ThreadPoolExecutor pool) {
+		if (pool.isShutdown()) {
+			throw new RejectedExecutionException("The executor is shut down");
+		}
+		if (policy == RejectionPolicy.DROP_OLDEST) {
+			Runnable oldest = pool.getQueue().poll();
+			if (oldest instanceof UserTaskExecutor.UserTask && ((UserTask) oldest).claim()) {
+				UserTask oldestTask = (UserTask) oldest;
+				queuedTasks.remove(oldestTask.userId, oldestTask);
+				dropped.increment();
+				oldestTask.future.completeExceptionally(new RejectedExecutionException("Dropped from the full queue"));
+			}
+			pool.execute(runnable);
+		} else {
+			callerRuns.increment();
+			runnable.run();
+		}
+	}
+
+	private void failQueuedTasks(List<Runnable> queued) {
+		queued.forEach(runnable -> {
+			if (runnable instanceof UserTaskExecutor.UserTask && ((UserTask) runnable).claim()) {
+				((UserTask) runnable).future.completeExceptionally(new RejectedExecutionException("The executor was shut down"));
+			}
+		});
+	}
+
+	private void taskEnded() {
+		if (pendingTasks.decrementAndGet() == 0) {
+			synchronized (idleLock) {
+				idleLock.notifyAll();
+			}
+		}
+	}
+
+	private static Counter rejectionCounter(String name, String outcome) {
+		return TourGuideMetrics.counter(TourGuideMetrics.EXECUTOR_REJECTIONS, "name", name, "outcome", outcome);
+	}
+
+	private static <R> void complete(CompletableFuture<R> future, R result, Throwable throwable) {
+		if (throwable != null) {
+			future.completeExceptionally(throwable);
+		} else {
+			future.complete(result);
+		}
+	}
+
+	private final class UserTask implements Runnable {
+		private final UUID userId;
+		private final Supplier<T> work;
+		private final CompletableFuture<T> future = new CompletableFuture<>();
+		// set once the task is started or dropped, whichever comes first
+		private final AtomicBoolean claimed = new AtomicBoolean();
+
+		private UserTask(UUID userId, Supplier<T> work) {
+			this.userId = userId;
+			this.work = work;
+		}
+
+		private boolean claim() {
+			return claimed.compareAndSet(false, true);
+		}
+
+		@Override
+		public void run() {
+			if (!claim()) return;
+			queuedTasks.remove(userId, this);
+			try {
+				future.complete(work.get());
+			} catch (Throwable throwable) {
+				future.completeExceptionally(throwable);
+			}
+		}
+	}
+}
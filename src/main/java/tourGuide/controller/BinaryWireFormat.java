@@ -0,0 +1,173 @@
+package tourGuide.controller;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.model.UserReward;
+
+/**
+ * Compact binary form of the bulk responses, offered to the clients sending its media type in the Accept header.
+ * Values are written big-endian straight to the response stream, without going through JSON text: UUIDs take
+ * 16 bytes and coordinates 8 bytes instead of 36 and up to 20 characters.
+ * <p>
+ * Locations: the {@link #LOCATIONS_MAGIC} int, then until the end of the stream one record of
+ * {@link #LOCATION_RECORD_BYTES} bytes per user: user id (2 longs), latitude, longitude (doubles) and time
+ * visited (long, epoch milliseconds, or {@link #NO_TIME} when the location has no time).
+ * <p>
+ * Rewards: the {@link #REWARDS_MAGIC} int, then for each user its username (modified UTF-8, as written by
+ * {@link DataOutputStream#writeUTF}) and its number of rewards, -1 for an unknown user and -2 when its rewards
+ * could not be looked up, followed by each reward: attraction id (2 longs), attraction name (modified UTF-8),
+ * latitude, longitude (NaN when the visited location has none) and time of the visited location (as for the
+ * locations), reward points (int).
+ */
+public final class BinaryWireFormat {
+	public static final String MEDIA_TYPE_VALUE = "application/x-tourguide-binary";
+	// "TGL" and "TGR" followed by the version of the layout
+	public static final int LOCATIONS_MAGIC = 0x54474C01;
+	public static final int REWARDS_MAGIC = 0x54475201;
+	public static final int LOCATION_RECORD_BYTES = 40;
+	public static final int UNKNOWN_USER = -1;
+	public static final int LOOKUP_FAILED = -2;
+	// marker for the VisitedLocation times that were null
+	public static final long NO_TIME = Long.MIN_VALUE;
+	private static final int BUFFER_SIZE = 8192;
+
+	private BinaryWireFormat() {
+	}
+
+	/**
+	 * Tells whether a client accepts the binary form.
+	 *
+	 * @param accept The Accept header of the request, possibly null.
+	 * @return true if the header lists the binary media type with a quality above 0.
+	 */
+	public static boolean isAccepted(String accept) {
+		if (accept == null) return false;
+		for (String range : accept.split(",")) {
+			String[] parameters = range.split(";");
+			if (!parameters[0].trim().equalsIgnoreCase(MEDIA_TYPE_VALUE)) continue;
+			for (int i = 1; i < parameters.length; i++) {
+				if (parameters[i].trim().matches("q=0(\\.0*)?")) return false;
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Writes the locations of the users.
+	 *
+	 * @param locations The latest visited locations by user id.
+	 * @param out       The output stream of the response, flushed but not closed.
+	 * @throws IOException If the response can't be written.
+	 */
+	public static void writeLocations(Iterable<Map.Entry<UUID, VisitedLocation>> locations, OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+		data.writeInt(LOCATIONS_MAGIC);
+		for (Map.Entry<UUID, VisitedLocation> entry : locations) {
+			VisitedLocation visitedLocation = entry.getValue();
+			data.writeLong(entry.getKey().getMostSignificantBits());
+			data.writeLong(entry.getKey().getLeastSignificantBits());
+			data.writeDouble(visitedLocation.location.latitude);
+			data.writeDouble(visitedLocation.location.longitude);
+			data.writeLong(toTime(visitedLocation.timeVisited));
+		}
+		data.flush();
+	}
+
+	/**
+	 * Reads the locations written by {@link #writeLocations}.
+	 *
+	 * @param in The input stream of the response, read to the end.
+	 * @return The visited locations, in the order they were written.
+	 * @throws IOException If the stream can't be read or is not in the locations layout.
+	 */
+	public static List<VisitedLocation> readLocations(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+		if (data.readInt() != LOCATIONS_MAGIC) throw new IOException("Not a binary locations stream");
+		List<VisitedLocation> visitedLocations = new ArrayList<>();
+		while (true) {
+			long mostSignificantBits;
+			try {
+				mostSignificantBits = data.readLong();
+			} catch (EOFException e) {
+				return visitedLocations;
+			}
+			UUID userId = new UUID(mostSignificantBits, data.readLong());
+			Location location = new Location(data.readDouble(), data.readDouble());
+			long time = data.readLong();
+			visitedLocations.add(new VisitedLocation(userId, location, time == NO_TIME ? null : new Date(time)));
+		}
+	}
+
+	/**
+	 * Starts a rewards response.
+	 *
+	 * @param out The output stream of the response.
+	 * @return The stream to pass to {@link #writeRewards}, to flush after each chunk of users.
+	 * @throws IOException If the response can't be written.
+	 */
+	public static DataOutputStream startRewards(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+		data.writeInt(REWARDS_MAGIC);
+		return data;
+	}
+
+	/**
+	 * Writes that the rewards of a user could not be looked up.
+	 *
+	 * @param data     The stream returned by {@link #startRewards}.
+	 * @param userName The username of the user.
+	 * @throws IOException If the response can't be written.
+	 */
+	public static void writeLookupFailed(DataOutputStream data, String userName) throws IOException {
+		data.writeUTF(userName);
+		data.writeInt(LOOKUP_FAILED);
+	}
+
+	/**
+	 * Writes the rewards of a user.
+	 *
+	 * @param data     The stream returned by {@link #startRewards}.
+	 * @param userName The username of the user.
+	 * @param rewards  The rewards of the user, or null for an unknown user.
+	 * @throws IOException If the response can't be written.
+	 */
+	public static void writeRewards(DataOutputStream data, String userName, List<UserReward> rewards) throws IOException {
+		data.writeUTF(userName);
+		if (rewards == null) {
+			data.writeInt(UNKNOWN_USER);
+			return;
+		}
+		// the count must match the rewards written even if the user gets a new reward meanwhile
+		List<UserReward> snapshot = new ArrayList<>(rewards);
+		data.writeInt(snapshot.size());
+		for (UserReward reward : snapshot) {
+			data.writeLong(reward.attraction.attractionId.getMostSignificantBits());
+			data.writeLong(reward.attraction.attractionId.getLeastSignificantBits());
+			data.writeUTF(reward.attraction.attractionName);
+			Location location = reward.visitedLocation.location;
+			data.writeDouble(location == null ? Double.NaN : location.latitude);
+			data.writeDouble(location == null ? Double.NaN : location.longitude);
+			data.writeLong(toTime(reward.visitedLocation.timeVisited));
+			data.writeInt(reward.getRewardPoints());
+		}
+	}
+
+	private static long toTime(Date timeVisited) {
+		return timeVisited == null ? NO_TIME : timeVisited.getTime();
+	}
+}
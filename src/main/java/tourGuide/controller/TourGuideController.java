@@ -1,21 +1,51 @@
 package tourGuide.controller;
 
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
 
-import gpsUtil.location.Location;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.jsoniter.output.JsonStream;
 
 import gpsUtil.location.VisitedLocation;
+import tourGuide.cluster.ClusterForwarder;
+import tourGuide.cluster.Partitioner;
+import tourGuide.concurrent.FutureTimeouts;
 import tourGuide.dto.UserPreferencesDTO;
+import tourGuide.service.LatestLocationIndex;
 import tourGuide.service.TourGuideService;
+import tourGuide.model.NearbyAttraction;
 import tourGuide.model.User;
+import tourGuide.model.UserReward;
 import tripPricer.Provider;
 
 /**
@@ -24,11 +54,42 @@ import tripPricer.Provider;
 @RestController
 public class TourGuideController {
 
+    private static final String NEXT_PAGE_HEADER = "X-Next-After";
+    private static final int LOCATIONS_CHUNK_SIZE = 8192;
+    private static final String LOCATION_NOT_AVAILABLE = "location not available yet";
+    private static final String NEARBY_ATTRACTIONS_NOT_AVAILABLE = "nearby attractions not available yet";
+    private static final String LOOKUP_FAILED = "lookup failed";
+    private static final MediaType BINARY = MediaType.valueOf(BinaryWireFormat.MEDIA_TYPE_VALUE);
     private final Logger logger = LoggerFactory.getLogger(TourGuideController.class);
 
 	@Autowired
 	TourGuideService tourGuideService;
 
+    @Autowired
+    Partitioner partitioner;
+
+    @Autowired
+    ClusterForwarder clusterForwarder;
+
+    @Value("${tourguide.controller.location-timeout-millis:2000}")
+    long locationTimeoutMillis;
+
+    @Value("${tourguide.controller.nearby-attractions-timeout-millis:5000}")
+    long nearbyAttractionsTimeoutMillis;
+
+    @Value("${tourguide.controller.batch-parallelism:100}")
+    int batchParallelism;
+
+    /**
+     * Rejects a batch parallelism that would never move through the usernames of a batch.
+     */
+    @PostConstruct
+    public void checkBatchParallelism() {
+        if (batchParallelism <= 0) {
+            throw new IllegalArgumentException("tourguide.controller.batch-parallelism must be positive: " + batchParallelism);
+        }
+    }
+
     /**
      * Handles the request for the homepage.
      *
@@ -42,102 +103,458 @@ public class TourGuideController {
 
     /**
      * Handles the request to get the visited location for a user.
+     * A user already located is answered with its last visited location. Otherwise the request thread is released
+     * while GpsUtil locates the user, and "location not available yet" is answered after the location timeout.
+     * A user owned by another node is answered by that node.
      *
-     * @param userName The username of the user.
-     * @return The JSON of the visited location.
-     * @throws ExecutionException   If an execution exception occurs.
-     * @throws InterruptedException If the operation is interrupted.
+     * @param userName    The username of the user.
+     * @param forwardedBy The node that forwarded the request, if any.
+     * @return A CompletableFuture of the JSON of the visited location.
      */
     @RequestMapping("/getLocation") 
-    public String getLocation(@RequestParam String userName) throws ExecutionException, InterruptedException {
+    public CompletableFuture<String> getLocation(@RequestParam String userName,
+            @RequestHeader(value = ClusterForwarder.FORWARDED_HEADER, required = false) String forwardedBy) {
         logger.info("request visited location from " + userName);
-        VisitedLocation visitedLocation = tourGuideService.getUserLocation(getUser(userName));
-		return JsonStream.serialize(visitedLocation.location);
+        if (isOwnedElsewhere(userName, forwardedBy)) {
+            return forward("/getLocation", userName, () -> getLocation(userName, partitioner.getLocalNode()));
+        }
+        User user = getUser(userName);
+
+        //check is the user exist
+        if (user == null) return CompletableFuture.completedFuture(JsonStream.serialize("no user found"));
+
+        return getLocationWithTimeout(user)
+                .thenApply(visitedLocation -> visitedLocation == null ?
+                        JsonStream.serialize(LOCATION_NOT_AVAILABLE) :
+                        JsonStream.serialize(visitedLocation.location));
     }
 
     /**
      * Handles the request to get nearby attractions for a user.
+     * The request thread is released while the user is located and the reward points are looked up. Locating
+     * a user never located before gives up after the location timeout, and the whole request after the
+     * nearby attractions timeout. A user owned by another node is answered by that node.
      *
-     * @param userName The username of the user.
-     * @return The JSON of the nearby attractions.
-     * @throws ExecutionException   If an execution exception occurs.
-     * @throws InterruptedException If the operation is interrupted.
+     * @param userName    The username of the user.
+     * @param forwardedBy The node that forwarded the request, if any.
+     * @return A CompletableFuture of the JSON of the nearby attractions.
      */
     @RequestMapping("/getNearbyAttractions")
-    public String getNearbyAttractions(@RequestParam String userName) throws ExecutionException, InterruptedException {
+    public CompletableFuture<String> getNearbyAttractions(@RequestParam String userName,
+            @RequestHeader(value = ClusterForwarder.FORWARDED_HEADER, required = false) String forwardedBy) {
         logger.info("request nearby attraction from " + userName);
+        if (isOwnedElsewhere(userName, forwardedBy)) {
+            return forward("/getNearbyAttractions", userName, () -> getNearbyAttractions(userName, partitioner.getLocalNode()));
+        }
         User user = tourGuideService.getUser(userName);
 
         //check is the user exist
-        if (user == null) return JsonStream.serialize("no user found");
+        if (user == null) return CompletableFuture.completedFuture(JsonStream.serialize("no user found"));
 
-        VisitedLocation visitedLocation = tourGuideService.getUserLocation(getUser(userName));
-        return JsonStream.serialize(tourGuideService.getNearByAttractions(user, visitedLocation));
+        CompletableFuture<List<NearbyAttraction>> nearbyAttractions = getLocationWithTimeout(user)
+                .thenCompose(visitedLocation -> visitedLocation == null ?
+                        CompletableFuture.completedFuture(null) :
+                        tourGuideService.getNearByAttractionsAsync(user, visitedLocation));
+        return FutureTimeouts.withFallback(nearbyAttractions, nearbyAttractionsTimeoutMillis, () -> null)
+                .thenApply(attractions -> attractions == null ?
+                        JsonStream.serialize(NEARBY_ATTRACTIONS_NOT_AVAILABLE) :
+                        JsonStream.serialize(attractions));
     }
 
     /**
      * Handles the request to get user rewards.
+     * A user owned by another node is answered by that node.
      *
-     * @param userName The username of the user.
-     * @return The JSON of the user rewards.
+     * @param userName    The username of the user.
+     * @param forwardedBy The node that forwarded the request, if any.
+     * @return A CompletableFuture of the JSON of the user rewards.
      */
     @RequestMapping("/getRewards") 
-    public String getRewards(@RequestParam String userName) {
+    public CompletableFuture<String> getRewards(@RequestParam String userName,
+            @RequestHeader(value = ClusterForwarder.FORWARDED_HEADER, required = false) String forwardedBy) {
         logger.info("request rewards from " + userName);
+        if (isOwnedElsewhere(userName, forwardedBy)) {
+            return forward("/getRewards", userName, () -> getRewards(userName, partitioner.getLocalNode()));
+        }
         User user = tourGuideService.getUser(userName);
 
         //check is the user exist
-        if (user == null) return JsonStream.serialize("no user found");
+        if (user == null) return CompletableFuture.completedFuture(JsonStream.serialize("no user found"));
 
-    	return JsonStream.serialize(tourGuideService.getUserRewards(user));
+    	return CompletableFuture.completedFuture(JsonStream.serialize(tourGuideService.getUserRewards(user)));
     }
 
     /**
-     * Handles the request to get all current locations of users.
+     * Handles the request to get the current locations of the users, as a JSON object keyed by user id.
+     * The locations come from the latest location index and are streamed to the response in chunks, users never
+     * located yet are left out. With a limit, users are returned page by page in user id order, and the
+     * X-Next-After header holds the cursor of the next page. The ETag and Last-Modified headers let clients skip
+     * an unchanged response with If-None-Match or If-Modified-Since. Clients accepting
+     * {@value BinaryWireFormat#MEDIA_TYPE_VALUE} get the locations in {@link BinaryWireFormat} instead.
      *
-     * @return The JSON of all current user locations.
+     * @param after   The last user id of the previous page, none for the first page.
+     * @param limit   The maximum number of users returned, none for every user.
+     * @param accept  The Accept header of the request.
+     * @param request The request, checked against the ETag and Last-Modified of the index.
+     * @return The streamed JSON of the current user locations, or null when the client copy is up to date.
      */
     @RequestMapping("/getAllCurrentLocations")
-    public String getAllCurrentLocations() {
+    public ResponseEntity<StreamingResponseBody> getAllCurrentLocations(@RequestParam(required = false) UUID after,
+                                                                        @RequestParam(required = false) Integer limit,
+                                                                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                                        WebRequest request) {
         logger.info("request all current locations");
-        Map<String, Location> allUsersLocation = tourGuideService.getAllCurrentLocations();
-        return JsonStream.serialize(allUsersLocation);
+        LatestLocationIndex latestLocations = tourGuideService.getLatestLocationIndex();
+        boolean binary = BinaryWireFormat.isAccepted(accept);
+        // each form and page has its own ETag, the locations being the same
+        String eTag = latestLocations.getETag()
+                + (after == null ? "" : "-" + after)
+                + (limit == null ? "" : "-" + limit)
+                + (binary ? "-bin" : "");
+        // If-Modified-Since only has second precision, rounding up keeps a change later in the second from being missed
+        long lastModified = (latestLocations.getLastModified() + 999) / 1000 * 1000;
+        if (request.checkNotModified(eTag, lastModified)) return null;
+
+        NavigableMap<UUID, VisitedLocation> locations = latestLocations.after(after);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(binary ? BINARY : MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (limit == null) {
+            return response.body(out -> writeLocations(locations.entrySet(), out, binary));
+        }
+
+        List<Map.Entry<UUID, VisitedLocation>> page = locations.entrySet().stream()
+                .limit(Math.max(1, limit))
+                .collect(Collectors.toList());
+        if (!page.isEmpty() && locations.higherKey(page.get(page.size() - 1).getKey()) != null) {
+            response.header(NEXT_PAGE_HEADER, page.get(page.size() - 1).getKey().toString());
+        }
+        return response.body(out -> writeLocations(page, out, binary));
+    }
+
+    /**
+     * Handles the request to get the visited locations of several users, as a JSON object keyed by username.
+     * Users are located batch-parallelism at a time, each chunk being written to the response once located,
+     * with the same location timeout as /getLocation.
+     *
+     * @param userNames The usernames of the users.
+     * @return The streamed JSON of the visited locations.
+     */
+    @PostMapping("/users/locations")
+    public ResponseEntity<StreamingResponseBody> getUsersLocations(@RequestBody List<String> userNames) {
+        logger.info("request visited locations of " + userNames.size() + " users");
+        return streamBatch(userNames, users -> users.stream()
+                .map(user -> getLocationWithTimeout(user).thenApply(visitedLocation -> visitedLocation == null ?
+                        JsonStream.serialize(LOCATION_NOT_AVAILABLE) :
+                        JsonStream.serialize(visitedLocation.location)))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Handles the request to get the rewards of several users, as a JSON object keyed by username.
+     * Clients accepting {@value BinaryWireFormat#MEDIA_TYPE_VALUE} get the rewards in {@link BinaryWireFormat} instead.
+     *
+     * @param userNames The usernames of the users.
+     * @param accept    The Accept header of the request.
+     * @return The streamed JSON of the user rewards.
+     */
+    @PostMapping("/users/rewards")
+    public ResponseEntity<StreamingResponseBody> getUsersRewards(@RequestBody List<String> userNames,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        logger.info("request rewards of " + userNames.size() + " users");
+        if (BinaryWireFormat.isAccepted(accept)) return streamBinaryRewards(userNames);
+        return streamBatch(userNames, users -> users.stream()
+                .map(user -> supply(() -> JsonStream.serialize(tourGuideService.getUserRewards(user))))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Handles the request to get the nearby attractions of several users, as a JSON object keyed by username.
+     * Users are handled batch-parallelism at a time: the chunk is located, then the reward points of all its
+     * users are looked up in a single batch, so a reward already looked up is shared by the chunk.
+     *
+     * @param userNames The usernames of the users.
+     * @return The streamed JSON of the nearby attractions.
+     */
+    @PostMapping("/users/nearbyAttractions")
+    public ResponseEntity<StreamingResponseBody> getUsersNearbyAttractions(@RequestBody List<String> userNames) {
+        logger.info("request nearby attractions of " + userNames.size() + " users");
+        return streamBatch(userNames, users -> {
+            List<CompletableFuture<VisitedLocation>> visitedLocations = users.stream()
+                    .map(this::getLocationWithTimeout)
+                    .collect(Collectors.toList());
+            // a user that could not be located is left out of the batch, the others are still answered
+            CompletableFuture<Map<UUID, List<NearbyAttraction>>> nearbyAttractions = allOf(visitedLocations.stream()
+                    .map(visitedLocation -> visitedLocation.exceptionally(throwable -> null))
+                    .collect(Collectors.toList()))
+                    .thenCompose(located -> tourGuideService.getNearByAttractionsAsync(users, located.stream()
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toList())));
+            CompletableFuture<Map<UUID, List<NearbyAttraction>>> nearbyAttractionsOrNone =
+                    FutureTimeouts.withFallback(nearbyAttractions, nearbyAttractionsTimeoutMillis, Collections::emptyMap);
+            List<CompletableFuture<String>> values = new ArrayList<>(users.size());
+            for (int i = 0; i < users.size(); i++) {
+                UUID userId = users.get(i).getUserId();
+                values.add(visitedLocations.get(i).thenCombine(nearbyAttractionsOrNone, (visitedLocation, nearbyAttractionsByUser) -> {
+                    List<NearbyAttraction> attractions = nearbyAttractionsByUser.get(userId);
+                    return attractions == null ?
+                            JsonStream.serialize(NEARBY_ATTRACTIONS_NOT_AVAILABLE) :
+                            JsonStream.serialize(attractions);
+                }));
+            }
+            return values;
+        });
     }
 
     /**
      * Handles the request to get trip deals for a user.
+     * A user owned by another node is answered by that node.
      *
-     * @param userName The username of the user.
-     * @return The JSON of the trip deals.
+     * @param userName    The username of the user.
+     * @param forwardedBy The node that forwarded the request, if any.
+     * @return A CompletableFuture of the JSON of the trip deals.
      */
     @RequestMapping("/getTripDeals")
-    public String getTripDeals(@RequestParam String userName) {
+    public CompletableFuture<String> getTripDeals(@RequestParam String userName,
+            @RequestHeader(value = ClusterForwarder.FORWARDED_HEADER, required = false) String forwardedBy) {
         logger.info("request trip deals from " + userName);
+        if (isOwnedElsewhere(userName, forwardedBy)) {
+            return forward("/getTripDeals", userName, () -> getTripDeals(userName, partitioner.getLocalNode()));
+        }
         User user = tourGuideService.getUser(userName);
 
         //check is the user exist
-        if (user == null) return JsonStream.serialize("no user found");
+        if (user == null) return CompletableFuture.completedFuture(JsonStream.serialize("no user found"));
 
     	List<Provider> providers = tourGuideService.getTripDeals(user);
-    	return JsonStream.serialize(providers);
+    	return CompletableFuture.completedFuture(JsonStream.serialize(providers));
     }
 
     /**
      * Handles the request to update user preferences.
+     * For a user owned by another node, the copy of this node is updated and the update is sent to the owner,
+     * which quotes the trip deals of the user.
      *
-     * @param userName          The username of the user.
+     * @param userName           The username of the user.
      * @param userPreferencesDTO The updated user preferences.
-     * @return The updated user preferences.
+     * @param forwardedBy        The node that forwarded the request, if any.
+     * @return A CompletableFuture of the updated user preferences.
      */
     @PutMapping("/userPreferences")
-    public String updateUserPreferences(@RequestParam String userName, @RequestBody UserPreferencesDTO userPreferencesDTO) {
+    public CompletableFuture<String> updateUserPreferences(@RequestParam String userName, @RequestBody UserPreferencesDTO userPreferencesDTO,
+            @RequestHeader(value = ClusterForwarder.FORWARDED_HEADER, required = false) String forwardedBy) {
         logger.info("update user preferences from " + userName);
         User user = tourGuideService.getUser(userName);
 
         //check is the user exist
-        if (user == null) return JsonStream.serialize("no user found");
+        if (user == null) return CompletableFuture.completedFuture(JsonStream.serialize("no user found"));
+
+        String updated = JsonStream.serialize(tourGuideService.updateUserPreferences(user, userPreferencesDTO));
+        if (!isOwnedElsewhere(userName, forwardedBy)) return CompletableFuture.completedFuture(updated);
+        String owner = partitioner.ownerOf(userName);
+        return clusterForwarder.forward(owner, "PUT", "/userPreferences", userName, JsonStream.serialize(userPreferencesDTO))
+                .thenApply(json -> checkOwnerKnowsUser("/userPreferences", userName, owner, json))
+                .exceptionally(throwable -> {
+                    logger.warn("Could not forward /userPreferences of " + userName + " to " + owner + ": " + throwable.getMessage());
+                    return updated;
+                });
+    }
+
+    /**
+     * Writes the locations as a JSON object keyed by user id, or in binary, flushing the response every chunk.
+     *
+     * @param locations The latest visited locations by user id.
+     * @param out       The output stream of the response.
+     * @param binary    Whether to write the locations in {@link BinaryWireFormat}.
+     * @throws IOException If the response can't be written.
+     */
+    private static void writeLocations(Iterable<Map.Entry<UUID, VisitedLocation>> locations, OutputStream out,
+                                       boolean binary) throws IOException {
+        if (binary) {
+            BinaryWireFormat.writeLocations(locations, out);
+            return;
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), LOCATIONS_CHUNK_SIZE);
+        writer.write('{');
+        boolean first = true;
+        for (Map.Entry<UUID, VisitedLocation> entry : locations) {
+            if (!first) writer.write(',');
+            first = false;
+            writer.write('"');
+            writer.write(entry.getKey().toString());
+            writer.write("\":");
+            writer.write(JsonStream.serialize(entry.getValue().location));
+        }
+        writer.write('}');
+        writer.flush();
+    }
+
+    /**
+     * Streams a JSON object keyed by username, looking the users up batch-parallelism at a time and flushing
+     * the response after each chunk. Duplicate usernames are answered once, unknown ones with "no user found"
+     * and the ones whose lookup failed with "lookup failed", so the object stays whole.
+     *
+     * @param userNames The usernames of the users.
+     * @param lookup    Looks a chunk of users up, returning a future of the JSON value of each user in order.
+     * @return The streamed JSON object.
+     */
+    private ResponseEntity<StreamingResponseBody> streamBatch(List<String> userNames,
+                                                              Function<List<User>, List<CompletableFuture<String>>> lookup) {
+        List<String> distinctUserNames = new ArrayList<>(new LinkedHashSet<>(userNames));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), LOCATIONS_CHUNK_SIZE);
+            writer.write('{');
+            boolean first = true;
+            for (int start = 0; start < distinctUserNames.size(); start += batchParallelism) {
+                List<String> chunk = distinctUserNames.subList(start, Math.min(start + batchParallelism, distinctUserNames.size()));
+                List<User> users = chunk.stream()
+                        .map(tourGuideService::getUser)
+                        .collect(Collectors.toList());
+                Iterator<CompletableFuture<String>> values = lookup.apply(users.stream()
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList())).iterator();
+                for (int i = 0; i < chunk.size(); i++) {
+                    if (!first) writer.write(',');
+                    first = false;
+                    writer.write(JsonStream.serialize(chunk.get(i)));
+                    writer.write(':');
+                    writer.write(users.get(i) == null ? JsonStream.serialize("no user found") : valueOrError(chunk.get(i), values.next()));
+                }
+                writer.flush();
+            }
+            writer.write('}');
+            writer.flush();
+        });
+    }
+
+    /**
+     * Waits for the JSON value of a user in a batch.
+     *
+     * @param userName The username of the user.
+     * @param value    The future of the JSON value.
+     * @return The JSON value, or "lookup failed" if the future failed.
+     */
+    private String valueOrError(String userName, CompletableFuture<String> value) {
+        return value.handle((json, throwable) -> {
+            if (throwable == null) return json;
+            logger.warn("Batch lookup of " + userName + " failed: " + throwable.getMessage());
+            return JsonStream.serialize(LOOKUP_FAILED);
+        }).join();
+    }
+
+    /**
+     * Runs a lookup right away, turning its exception into a failed future.
+     *
+     * @param lookup The lookup.
+     * @return A future completed with the result of the lookup, or failed with its exception.
+     */
+    private static <T> CompletableFuture<T> supply(Supplier<T> lookup) {
+        try {
+            return CompletableFuture.completedFuture(lookup.get());
+        } catch (RuntimeException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * Streams the rewards of the users in {@link BinaryWireFormat}, flushing the response after each chunk of
+     * batch-parallelism users. The rewards are read from memory, so the users are looked up one by one on the
+     * request thread, as the JSON form does. Duplicate usernames are answered once, and a failed lookup
+     * is written as such so the stream stays readable.
+     *
+     * @param userNames The usernames of the users.
+     * @return The streamed rewards.
+     */
+    private ResponseEntity<StreamingResponseBody> streamBinaryRewards(List<String> userNames) {
+        List<String> distinctUserNames = new ArrayList<>(new LinkedHashSet<>(userNames));
+        return ResponseEntity.ok().contentType(BINARY).body(out -> {
+            DataOutputStream data = BinaryWireFormat.startRewards(out);
+            for (int start = 0; start < distinctUserNames.size(); start += batchParallelism) {
+                for (String userName : distinctUserNames.subList(start, Math.min(start + batchParallelism, distinctUserNames.size()))) {
+                    User user = tourGuideService.getUser(userName);
+                    List<UserReward> rewards;
+                    try {
+                        rewards = user == null ? null : tourGuideService.getUserRewards(user);
+                    } catch (RuntimeException e) {
+                        logger.warn("Batch lookup of " + userName + " failed: " + e.getMessage());
+                        BinaryWireFormat.writeLookupFailed(data, userName);
+                        continue;
+                    }
+                    BinaryWireFormat.writeRewards(data, userName, rewards);
+                }
+                data.flush();
+            }
+            data.flush();
+        });
+    }
+
+    /**
+     * Locates a user without waiting for GpsUtil past the location timeout. GpsUtil is only called for a user
+     * never located before, the others are answered right away with their last visited location, so there is
+     * no older location to fall back to on timeout.
+     *
+     * @param user The user.
+     * @return A CompletableFuture of the visited location, or null if GpsUtil did not answer in time.
+     */
+    private CompletableFuture<VisitedLocation> getLocationWithTimeout(User user) {
+        return FutureTimeouts.withFallback(tourGuideService.getUserLocationAsync(user), locationTimeoutMillis, () -> null);
+    }
+
+    /**
+     * Tells whether a request about a user must be sent to another node. A request already forwarded is
+     * answered here, even if this node sees another owner.
+     *
+     * @param userName    The username of the user.
+     * @param forwardedBy The node that forwarded the request, null if it comes from a client.
+     * @return true if another node owns the user and the request was not forwarded yet.
+     */
+    private boolean isOwnedElsewhere(String userName, String forwardedBy) {
+        return forwardedBy == null && !partitioner.isLocal(userName);
+    }
+
+    /**
+     * Sends a request to the node owning the user. When that node cannot be reached, the request is answered
+     * here instead: every node holds all the users, only their latest locations may be older.
+     *
+     * @param path     The path of the endpoint, such as /getRewards.
+     * @param userName The username of the user.
+     * @param local    Answers the request on this node.
+     * @return A CompletableFuture of the JSON answered by the owner, or by this node if the owner failed.
+     */
+    private CompletableFuture<String> forward(String path, String userName, Supplier<CompletableFuture<String>> local) {
+        String owner = partitioner.ownerOf(userName);
+        return clusterForwarder.forward(owner, path, userName)
+                .handle((json, throwable) -> {
+                    if (throwable == null) return CompletableFuture.completedFuture(checkOwnerKnowsUser(path, userName, owner, json));
+                    logger.warn("Could not forward " + path + " of " + userName + " to " + owner + ": " + throwable.getMessage());
+                    return local.get();
+                })
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * Logs when the owner of a user answers that it does not know the user while this node does, which means the
+     * users of the nodes have diverged. The answer of the owner is still returned as is.
+     *
+     * @param path     The path of the forwarded endpoint.
+     * @param userName The username of the user.
+     * @param owner    The node owning the user.
+     * @param json     The JSON answered by the owner.
+     * @return The JSON answered by the owner.
+     */
+    private String checkOwnerKnowsUser(String path, String userName, String owner, String json) {
+        if (JsonStream.serialize("no user found").equals(json) && tourGuideService.getUser(userName) != null) {
+            logger.warn("Owner " + owner + " answered " + path + " with no user found for " + userName
+                    + ", which this node has: the users of the nodes have diverged");
+        }
+        return json;
+    }
 
-        return JsonStream.serialize(tourGuideService.updateUserPreferences(user, userPreferencesDTO));
+    private static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> futures.stream().map(CompletableFuture::join).collect(Collectors.toList()));
     }
 
     /**
@@ -0,0 +1,268 @@
+package tourGuide.geo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.ObjDoubleConsumer;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+
+/**
+ * Immutable spatial index over the attraction catalog.
+ * Attractions are bucketed once into fixed-size latitude/longitude grid cells, so radius and
+ * k-nearest queries only compute distances for the attractions in the cells around the query point
+ * instead of scanning the whole catalog. The {@link GeoPoint} of each attraction is computed once too.
+ */
+public class AttractionIndex {
+	private static final double DEFAULT_CELL_DEGREES = 1.0;
+
+	private final double cellDegrees;
+	private final int rows;
+	private final int columns;
+	private final DistanceEngine distanceEngine;
+	private final List<Attraction> attractions;
+	private final Entry[] entries;
+	private final Map<UUID, GeoPoint> points;
+	private final Map<Integer, Entry[]> cells;
+
+	/**
+	 * Builds an index with the default cell size.
+	 *
+	 * @param attractions The attraction catalog to index.
+	 */
+	public AttractionIndex(List<Attraction> attractions) {
+		this(attractions, DEFAULT_CELL_DEGREES);
+	}
+
+	/**
+	 * Builds an index with the given cell size.
+	 *
+	 * @param attractions The attraction catalog to index.
+	 * @param cellDegrees The width and height of a grid cell, in degrees.
+	 */
+	public AttractionIndex(List<Attraction> attractions, double cellDegrees) {
+		this(attractions, cellDegrees, new DistanceEngine(DistanceMode.HAVERSINE));
+	}
+
+	/**
+	 * Builds an index with the default cell size, measuring distances with the given engine.
+	 *
+	 * @param attractions    The attraction catalog to index.
+	 * @param distanceEngine The engine computing the distances.
+	 */
+	public AttractionIndex(List<Attraction> attractions, DistanceEngine distanceEngine) {
+		this(attractions, DEFAULT_CELL_DEGREES, distanceEngine);
+	}
+
+	/**
+	 * Builds an index with the given cell size, measuring distances with the given engine.
+	 *
+	 * @param attractions    The attraction catalog to index.
+	 * @param cellDegrees    The width and height of a grid cell, in degrees.
+	 * @param distanceEngine The engine computing the distances.
+	 */
+	public AttractionIndex(List<Attraction> attractions, double cellDegrees, DistanceEngine distanceEngine) {
+		if (!(cellDegrees > 0 && cellDegrees <= 180)) {
+			throw new IllegalArgumentException("cellDegrees must be in ]0, 180]: " + cellDegrees);
+		}
+		this.cellDegrees = cellDegrees;
+		this.distanceEngine = distanceEngine;
+		this.rows = (int) Math.ceil(180 / cellDegrees);
+		this.columns = (int) Math.ceil(360 / cellDegrees);
+		this.attractions = Collections.unmodifiableList(new ArrayList<>(attractions));
+
+		this.entries = new Entry[this.attractions.size()];
+		Map<UUID, GeoPoint> points = new HashMap<>();
+		Map<Integer, List<Entry>> buckets = new HashMap<>();
+		for (int i = 0; i < entries.length; i++) {
+			Attraction attraction = this.attractions.get(i);
+			entries[i] = new Entry(attraction, GeoPoint.of(attraction.latitude, attraction.longitude));
+			points.put(attraction.attractionId, entries[i].point);
+			buckets.computeIfAbsent(cellKey(row(attraction.latitude), column(attraction.longitude)), key -> new ArrayList<>())
+					.add(entries[i]);
+		}
+		this.points = points;
+
+		Map<Integer, Entry[]> frozen = new HashMap<>();
+		buckets.forEach((key, bucket) -> frozen.put(key, bucket.toArray(new Entry[0])));
+		this.cells = frozen;
+	}
+
+	public DistanceEngine getDistanceEngine() {
+		return distanceEngine;
+	}
+
+	/**
+	 * Retrieves the point of an attraction, computed when the catalog was indexed if the attraction is part of it.
+	 *
+	 * @param attraction The attraction.
+	 * @return The point of the attraction.
+	 */
+	public GeoPoint pointOf(Attraction attraction) {
+		GeoPoint point = points.get(attraction.attractionId);
+		return point != null && point.isAt(attraction.latitude, attraction.longitude) ?
+				point :
+				GeoPoint.of(attraction.latitude, attraction.longitude);
+	}
+
+	/**
+	 * Retrieves the whole indexed catalog.
+	 *
+	 * @return An unmodifiable list of all the indexed attractions.
+	 */
+	public List<Attraction> getAttractions() {
+		return attractions;
+	}
+
+	/**
+	 * Retrieves the number of indexed attractions.
+	 *
+	 * @return The size of the catalog.
+	 */
+	public int size() {
+		return attractions.size();
+	}
+
+	/**
+	 * Retrieves the attractions whose distance to the location is lower than or equal to the radius.
+	 *
+	 * @param location    The center of the search.
+	 * @param radiusMiles The search radius in statute miles.
+	 * @return The attractions within the radius, in no particular order.
+	 */
+	public List<Attraction> withinRadius(Location location, double radiusMiles) {
+		List<Attraction> result = new ArrayList<>();
+		collect(location, GeoPoint.of(location), radiusMiles, (attraction, distance) -> result.add(attraction));
+		return result;
+	}
+
+	/**
+	 * Passes each attraction whose distance to the location is lower than or equal to the radius, with its distance.
+	 *
+	 * @param location    The center of the search.
+	 * @param radiusMiles The search radius in statute miles.
+	 * @param consumer    The consumer of the attractions and their distances in statute miles, in no particular order.
+	 */
+	public void forEachWithinRadius(Location location, double radiusMiles, ObjDoubleConsumer<Attraction> consumer) {
+		collect(location, GeoPoint.of(location), radiusMiles, consumer);
+	}
+
+	/**
+	 * Retrieves the k attractions closest to the location.
+	 *
+	 * @param location The center of the search.
+	 * @param k        The maximum number of attractions to return.
+	 * @return Up to k attractions, sorted by increasing distance.
+	 */
+	public List<Attraction> nearest(Location location, int k) {
+		if (k <= 0 || attractions.isEmpty()) return new ArrayList<>();
+
+		List<Neighbour> candidates = new ArrayList<>();
+		double radiusMiles = cellDegrees * GeoDistance.STATUTE_MILES_PER_DEGREE;
+		GeoPoint point = GeoPoint.of(location);
+		while (true) {
+			candidates.clear();
+			collect(location, point, radiusMiles, (attraction, distance) -> candidates.add(new Neighbour(attraction, distance)));
+			// everything outside the radius is farther than any candidate, so the k closest are among them
+			if (candidates.size() >= k || radiusMiles >= 180 * GeoDistance.STATUTE_MILES_PER_DEGREE) break;
+			radiusMiles *= 2;
+		}
+
+		candidates.sort(Comparator.comparingDouble(neighbour -> neighbour.distance));
+		List<Attraction> result = new ArrayList<>(Math.min(k, candidates.size()));
+		for (int i = 0; i < candidates.size() && i < k; i++) {
+			result.add(candidates.get(i).attraction);
+		}
+		return result;
+	}
+
+	private void collect(Location location, GeoPoint point, double radiusMiles, ObjDoubleConsumer<Attraction> consumer) {
+		if (!(radiusMiles >= 0)) return;
+
+		double radiusDegrees = radiusMiles / GeoDistance.STATUTE_MILES_PER_DEGREE;
+		double minLatitude = location.latitude - radiusDegrees;
+		double maxLatitude = location.latitude + radiusDegrees;
+		double longitudeSpan = longitudeSpan(location.latitude, radiusDegrees, minLatitude, maxLatitude);
+
+		int rowFrom = row(minLatitude);
+		int rowTo = row(maxLatitude);
+		int columnCount = longitudeSpan >= 180 ? columns
+				: Math.min(columns, (int) Math.floor((location.longitude + longitudeSpan + 180) / cellDegrees)
+						- (int) Math.floor((location.longitude - longitudeSpan + 180) / cellDegrees) + 1);
+
+		// when the box covers more cells than there are occupied ones, a plain scan is cheaper
+		if ((long) (rowTo - rowFrom + 1) * columnCount >= cells.size()) {
+			for (Entry entry : entries) {
+				accept(entry, point, radiusMiles, consumer);
+			}
+			return;
+		}
+
+		int columnFrom = columnCount == columns ? 0 : column(location.longitude - longitudeSpan);
+		for (int row = rowFrom; row <= rowTo; row++) {
+			for (int i = 0; i < columnCount; i++) {
+				Entry[] cell = cells.get(cellKey(row, (columnFrom + i) % columns));
+				if (cell == null) continue;
+				for (Entry entry : cell) {
+					accept(entry, point, radiusMiles, consumer);
+				}
+			}
+		}
+	}
+
+	private void accept(Entry entry, GeoPoint point, double radiusMiles, ObjDoubleConsumer<Attraction> consumer) {
+		double distance = distanceEngine.statuteMilesWithin(entry.point, point, radiusMiles);
+		if (distance <= radiusMiles) consumer.accept(entry.attraction, distance);
+	}
+
+	/**
+	 * Half-width in degrees of the longitude band that contains the spherical cap of the given radius.
+	 * Returns 180 when the cap reaches a pole and therefore spans every longitude.
+	 */
+	private static double longitudeSpan(double latitude, double radiusDegrees, double minLatitude, double maxLatitude) {
+		if (radiusDegrees >= 90 || minLatitude <= -90 || maxLatitude >= 90) return 180;
+		double ratio = Math.sin(Math.toRadians(radiusDegrees)) / Math.cos(Math.toRadians(latitude));
+		if (ratio >= 1) return 180;
+		// small margin so that rounding never excludes a cell on the border of the box
+		return Math.toDegrees(Math.asin(ratio)) + 1e-9;
+	}
+
+	private int row(double latitude) {
+		int row = (int) Math.floor((latitude + 90) / cellDegrees);
+		return Math.max(0, Math.min(rows - 1, row));
+	}
+
+	private int column(double longitude) {
+		int column = (int) Math.floor((longitude + 180) / cellDegrees) % columns;
+		return column < 0 ? column + columns : column;
+	}
+
+	private int cellKey(int row, int column) {
+		return row * columns + column;
+	}
+
+	private static final class Entry {
+		private final Attraction attraction;
+		private final GeoPoint point;
+
+		private Entry(Attraction attraction, GeoPoint point) {
+			this.attraction = attraction;
+			this.point = point;
+		}
+	}
+
+	private static final class Neighbour {
+		private final Attraction attraction;
+		private final double distance;
+
+		private Neighbour(Attraction attraction, double distance) {
+			this.attraction = attraction;
+			this.distance = distance;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package tourGuide.geo;
+
+/**
+ * Computes distances between {@link GeoPoint}s with the formula of a {@link DistanceMode}.
+ * Radius checks first reject the pairs outside a bounding box of the radius, which only takes a few
+ * multiplications, so that the trigonometric calls are only paid for the pairs that may be close enough.
+ */
+public final class DistanceEngine {
+	private static final double RADIANS_PER_STATUTE_MILE = Math.toRadians(1 / GeoDistance.STATUTE_MILES_PER_DEGREE);
+
+	private final DistanceMode mode;
+
+	/**
+	 * Constructs a DistanceEngine.
+	 *
+	 * @param mode The formula computing the distances.
+	 */
+	public DistanceEngine(DistanceMode mode) {
+		this.mode = mode;
+	}
+
+	public DistanceMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Calculates the distance between two points.
+	 *
+	 * @param from The first point.
+	 * @param to   The second point.
+	 * @return The distance in statute miles.
+	 */
+	public double statuteMiles(GeoPoint from, GeoPoint to) {
+		return mode.angle(from, to) / RADIANS_PER_STATUTE_MILE;
+	}
+
+	/**
+	 * Calculates the distance between two points if it is lower than or equal to the radius.
+	 *
+	 * @param from        The first point.
+	 * @param to          The second point.
+	 * @param radiusMiles The radius in statute miles.
+	 * @return The distance in statute miles, or positive infinity if the points are farther apart than the radius.
+	 */
+	public double statuteMilesWithin(GeoPoint from, GeoPoint to, double radiusMiles) {
+		if (outsideBoundingBox(from, to, radiusMiles * RADIANS_PER_STATUTE_MILE)) return Double.POSITIVE_INFINITY;
+		double distance = statuteMiles(from, to);
+		return distance <= radiusMiles ? distance : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Checks whether two points are within the radius of each other.
+	 *
+	 * @param from        The first point.
+	 * @param to          The second point.
+	 * @param radiusMiles The radius in statute miles.
+	 * @return True if the distance is lower than or equal to the radius, false otherwise.
+	 */
+	public boolean isWithin(GeoPoint from, GeoPoint to, double radiusMiles) {
+		return statuteMilesWithin(from, to, radiusMiles) <= radiusMiles;
+	}
+
+	/**
+	 * Rejects the pairs that cannot be within the angle of each other. The great-circle angle d between the points
+	 * is at least their latitude difference, and hav(d) >= cos(lat1) cos(lat2) hav(dLon) with
+	 * hav(dLon) >= (dLon / pi)^2 and hav(d) <= (d / 2)^2, so d <= angle implies
+	 * cos(lat1) cos(lat2) dLon^2 <= (pi angle / 2)^2.
+	 */
+	private static boolean outsideBoundingBox(GeoPoint from, GeoPoint to, double angle) {
+		if (Math.abs(to.latitude - from.latitude) > angle) return true;
+		double longitudeDifference = longitudeDifference(from, to);
+		double maxLongitudeSpan = Math.PI * angle / 2;
+		return from.cosLatitude * to.cosLatitude * longitudeDifference * longitudeDifference
+				> maxLongitudeSpan * maxLongitudeSpan;
+	}
+
+	/**
+	 * The absolute longitude difference of two points, in radians, taken across the antimeridian when shorter.
+	 */
+	static double longitudeDifference(GeoPoint from, GeoPoint to) {
+		double difference = Math.abs(to.longitude - from.longitude);
+		return difference > Math.PI ? 2 * Math.PI - difference : difference;
+	}
+}
@@ -0,0 +1,43 @@
+package tourGuide.geo;
+
+/**
+ * Formulas computing the angle between two points of the globe.
+ */
+public enum DistanceMode {
+	/**
+	 * Haversine formula, exact on the sphere and numerically stable at short range,
+	 * where the law of cosines loses precision.
+	 */
+	HAVERSINE {
+		@Override
+		double angle(GeoPoint from, GeoPoint to) {
+			double sinHalfLatitude = Math.sin((to.latitude - from.latitude) / 2);
+			double sinHalfLongitude = Math.sin((to.longitude - from.longitude) / 2);
+			double haversine = sinHalfLatitude * sinHalfLatitude
+					+ from.cosLatitude * to.cosLatitude * sinHalfLongitude * sinHalfLongitude;
+			return 2 * Math.asin(Math.sqrt(Math.min(1, haversine)));
+		}
+	},
+	/**
+	 * Equirectangular projection, without any trigonometric call. Its error stays below 0.1% up to a few
+	 * hundred miles away from the poles but grows with the distance, so it is meant for proximity checks.
+	 */
+	EQUIRECTANGULAR {
+		@Override
+		double angle(GeoPoint from, GeoPoint to) {
+			// the mean of the cosines stands for the cosine of the mean latitude
+			double x = DistanceEngine.longitudeDifference(from, to) * (from.cosLatitude + to.cosLatitude) / 2;
+			double y = to.latitude - from.latitude;
+			return Math.sqrt(x * x + y * y);
+		}
+	};
+
+	/**
+	 * Calculates the angle between two points.
+	 *
+	 * @param from The first point.
+	 * @param to   The second point.
+	 * @return The angle, in radians.
+	 */
+	abstract double angle(GeoPoint from, GeoPoint to);
+}
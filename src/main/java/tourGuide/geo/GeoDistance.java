@@ -0,0 +1,37 @@
+package tourGuide.geo;
+
+/**
+ * Great-circle distance helpers. The spherical law of cosines below is the reference the
+ * {@link DistanceEngine} modes are checked against.
+ */
+public final class GeoDistance {
+	public static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
+	// one degree of great circle arc is 60 nautical miles
+	public static final double STATUTE_MILES_PER_DEGREE = 60 * STATUTE_MILES_PER_NAUTICAL_MILE;
+
+	private GeoDistance() {
+	}
+
+	/**
+	 * Calculates the distance between two points using the spherical law of cosines.
+	 *
+	 * @param latitude1  The latitude of the first point, in degrees.
+	 * @param longitude1 The longitude of the first point, in degrees.
+	 * @param latitude2  The latitude of the second point, in degrees.
+	 * @param longitude2 The longitude of the second point, in degrees.
+	 * @return The distance between the two points in statute miles.
+	 */
+	public static double statuteMiles(double latitude1, double longitude1, double latitude2, double longitude2) {
+		double lat1 = Math.toRadians(latitude1);
+		double lon1 = Math.toRadians(longitude1);
+		double lat2 = Math.toRadians(latitude2);
+		double lon2 = Math.toRadians(longitude2);
+
+		double cosAngle = Math.sin(lat1) * Math.sin(lat2)
+				+ Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2);
+		// rounding can push the cosine slightly outside [-1, 1] for (nearly) identical points
+		double angle = Math.acos(Math.max(-1, Math.min(1, cosAngle)));
+
+		return STATUTE_MILES_PER_DEGREE * Math.toDegrees(angle);
+	}
+}
@@ -0,0 +1,63 @@
+package tourGuide.geo;
+
+import gpsUtil.location.Location;
+
+/**
+ * A point on the globe holding the values the distance computations need, converted once:
+ * the coordinates in radians and the cosine of the latitude.
+ */
+public final class GeoPoint {
+	private final double latitudeDegrees;
+	private final double longitudeDegrees;
+	final double latitude;
+	final double longitude;
+	final double cosLatitude;
+
+	private GeoPoint(double latitudeDegrees, double longitudeDegrees) {
+		this.latitudeDegrees = latitudeDegrees;
+		this.longitudeDegrees = longitudeDegrees;
+		this.latitude = Math.toRadians(latitudeDegrees);
+		this.longitude = Math.toRadians(longitudeDegrees);
+		this.cosLatitude = Math.cos(latitude);
+	}
+
+	/**
+	 * Creates a point.
+	 *
+	 * @param latitude  The latitude, in degrees.
+	 * @param longitude The longitude, in degrees.
+	 * @return The point.
+	 */
+	public static GeoPoint of(double latitude, double longitude) {
+		return new GeoPoint(latitude, longitude);
+	}
+
+	/**
+	 * Creates the point of a location.
+	 *
+	 * @param location The location.
+	 * @return The point.
+	 */
+	public static GeoPoint of(Location location) {
+		return new GeoPoint(location.latitude, location.longitude);
+	}
+
+	/**
+	 * Checks whether the point was created from the given coordinates.
+	 *
+	 * @param latitude  The latitude, in degrees.
+	 * @param longitude The longitude, in degrees.
+	 * @return True if the coordinates are the ones of the point, false otherwise.
+	 */
+	public boolean isAt(double latitude, double longitude) {
+		return latitudeDegrees == latitude && longitudeDegrees == longitude;
+	}
+
+	public double getLatitude() {
+		return latitudeDegrees;
+	}
+
+	public double getLongitude() {
+		return longitudeDegrees;
+	}
+}
@@ -4,6 +4,8 @@ public class InternalTestHelper {
 
 	// Set this default up to 100,000 for testing
 	private static int internalUserNumber = 10;
+	// Set a seed to give the internal users the same ids on every run, null keeps random ids
+	private static Long userIdSeed;
 	
 	public static void setInternalUserNumber(int internalUserNumber) {
 		InternalTestHelper.internalUserNumber = internalUserNumber;
@@ -12,4 +14,12 @@ public class InternalTestHelper {
 	public static int getInternalUserNumber() {
 		return internalUserNumber;
 	}
+
+	public static void setUserIdSeed(Long userIdSeed) {
+		InternalTestHelper.userIdSeed = userIdSeed;
+	}
+
+	public static Long getUserIdSeed() {
+		return userIdSeed;
+	}
 }
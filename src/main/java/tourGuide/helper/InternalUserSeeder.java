@@ -0,0 +1,105 @@
+package tourGuide.helper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.model.User;
+import tourGuide.repository.ILocationJournal;
+import tourGuide.repository.IUserRepository;
+
+/**
+ * Creates the internal test users in parallel.
+ * The range of users is split into chunks, each drawing from its own SplittableRandom split from a root one,
+ * so the chunks run on every core without sharing a generator, and a seeded run creates the same users
+ * whatever the number of threads.
+ */
+public class InternalUserSeeder {
+	private static final int USERS_PER_CHUNK = 4096;
+	private static final int LOCATIONS_PER_USER = 3;
+	private static final int LOCATION_DAYS = 30;
+	private static final double MAX_LATITUDE = 85.05112878;
+	private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+	private final IUserRepository userRepository;
+	private final ILocationJournal locationJournal;
+
+	/**
+	 * Constructs an InternalUserSeeder.
+	 *
+	 * @param userRepository The store the users are added to.
+	 */
+	public InternalUserSeeder(IUserRepository userRepository) {
+		this(userRepository, ILocationJournal.DISABLED);
+	}
+
+	/**
+	 * Constructs an InternalUserSeeder journaling the locations of the users it adds.
+	 *
+	 * @param userRepository  The store the users are added to.
+	 * @param locationJournal The journal of the locations, which the store does not keep when it is enabled.
+	 */
+	public InternalUserSeeder(IUserRepository userRepository, ILocationJournal locationJournal) {
+		this.userRepository = userRepository;
+		this.locationJournal = locationJournal;
+	}
+
+	/**
+	 * Adds the users internalUser0 to internalUser(userCount - 1), each with a few random locations of the last days.
+	 * Users already in the store, restored from a previous run, are kept as they are.
+	 *
+	 * @param userCount The number of internal users.
+	 * @param seed      The seed of the user ids and locations, or null for random ones.
+	 * @return The number of users added.
+	 */
+	public int seed(int userCount, Long seed) {
+		SplittableRandom root = (seed != null) ? new SplittableRandom(seed) : new SplittableRandom();
+		int chunkCount = (userCount + USERS_PER_CHUNK - 1) / USERS_PER_CHUNK;
+		// split in order, so each chunk gets the same generator on every run
+		SplittableRandom[] randoms = new SplittableRandom[chunkCount];
+		for (int chunk = 0; chunk < chunkCount; chunk++) {
+			randoms[chunk] = root.split();
+		}
+		long now = System.currentTimeMillis();
+
+		return IntStream.range(0, chunkCount).parallel()
+				.map(chunk -> seedChunk(chunk * USERS_PER_CHUNK, Math.min(userCount, (chunk + 1) * USERS_PER_CHUNK),
+						randoms[chunk], seed, now))
+				.sum();
+	}
+
+	private int seedChunk(int from, int to, SplittableRandom random, Long seed, long now) {
+		int added = 0;
+		for (int i = from; i < to; i++) {
+			String userName = "internalUser" + i;
+			if (userRepository.findByUserName(userName) != null) continue;
+			User user = userRepository.newUser(userId(userName, seed, random), userName, "000", userName + "@tourGuide.com");
+			for (int location = 0; location < LOCATIONS_PER_USER; location++) {
+				user.addToVisitedLocations(new VisitedLocation(user.getUserId(),
+						new Location(random.nextDouble(-MAX_LATITUDE, MAX_LATITUDE), random.nextDouble(-180, 180)),
+						new Date(now - random.nextInt(LOCATION_DAYS) * MILLIS_PER_DAY)));
+			}
+			if (userRepository.add(user)) {
+				user.getVisitedLocations().forEach(locationJournal::append);
+				added++;
+			}
+		}
+		return added;
+	}
+
+	// seeded ids only depend on the user name, so restored users keep theirs
+	private static UUID userId(String userName, Long seed, SplittableRandom random) {
+		if (seed != null) {
+			return UUID.nameUUIDFromBytes((seed + ":" + userName).getBytes(StandardCharsets.UTF_8));
+		}
+		// random version 4 UUID, without the lock of the SecureRandom behind UUID.randomUUID
+		long mostSignificantBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+		long leastSignificantBits = (random.nextLong() & ~(0xC000L << 48)) | (0x8000L << 48);
+		return new UUID(mostSignificantBits, leastSignificantBits);
+	}
+}
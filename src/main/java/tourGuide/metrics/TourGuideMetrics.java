@@ -0,0 +1,150 @@
+package tourGuide.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.ToDoubleFunction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Names of the meters of the application and helpers registering them.
+ * Meters go to the global Micrometer registry, which Spring Boot feeds into its own registries, the
+ * Prometheus one included, so the services built outside of Spring record metrics too. Meters registered
+ * twice with the same name and tags are the same meter, so the gauges and executor meters, which read the
+ * object they were registered for, are removed by the shutdown of their owner for a new owner to register
+ * its own.
+ */
+public final class TourGuideMetrics {
+	public static final String UPSTREAM_CALLS = "tourguide.upstream.calls";
+	public static final String UPSTREAM_WAIT = "tourguide.upstream.wait";
+	public static final String UPSTREAM_QUEUED = "tourguide.upstream.queued";
+	public static final String REWARDS_CALCULATION = "tourguide.rewards.calculation";
+	public static final String TRACKER_SWEEP = "tourguide.tracker.sweep";
+	public static final String TRACKER_SHARD_DISPATCH = "tourguide.tracker.shard.dispatch";
+	public static final String TRACKER_LAG = "tourguide.tracker.lag";
+	public static final String EXECUTOR_REJECTIONS = "tourguide.executor.rejections";
+	public static final String GEOFENCE_EVENTS = "tourguide.geofence.events";
+	public static final String GEOFENCE_DROPPED = "tourguide.geofence.dropped";
+	public static final String GEOFENCE_QUEUED = "tourguide.geofence.queued";
+	public static final String UPSTREAM_TAG = "upstream";
+	// longest durations expected by the timers, the upper bound of their histogram buckets
+	public static final Duration UPSTREAM_RANGE = Duration.ofSeconds(30);
+	// a calculation is timed from its submission, waiting behind the others when the pool is busy
+	public static final Duration REWARDS_CALCULATION_RANGE = Duration.ofMinutes(5);
+	public static final Duration TRACKER_SHARD_DISPATCH_RANGE = Duration.ofMinutes(1);
+	// a tracker sweep lasts a whole polling interval
+	public static final Duration TRACKER_SWEEP_RANGE = Duration.ofMinutes(30);
+
+	private TourGuideMetrics() {
+	}
+
+	public static MeterRegistry registry() {
+		return Metrics.globalRegistry;
+	}
+
+	/**
+	 * Registers a timer publishing a histogram, so percentiles can be aggregated across instances.
+	 * The timers sharing a name must be given the same range, so that their buckets match.
+	 *
+	 * @param name                 The name of the timer.
+	 * @param maximumExpectedValue The longest duration expected, such as {@link #UPSTREAM_RANGE}.
+	 * @param tags                 The tag keys and values, alternating.
+	 * @return The timer.
+	 */
+	public static Timer timer(String name, Duration maximumExpectedValue, String... tags) {
+		return Timer.builder(name)
+				.tags(tags)
+				.publishPercentileHistogram()
+				.maximumExpectedValue(maximumExpectedValue)
+				.register(registry());
+	}
+
+	/**
+	 * Registers a counter.
+	 *
+	 * @param name The name of the counter.
+	 * @param tags The tag keys and values, alternating.
+	 * @return The counter.
+	 */
+	public static Counter counter(String name, String... tags) {
+		return Counter.builder(name)
+				.tags(tags)
+				.register(registry());
+	}
+
+	/**
+	 * Registers a gauge reading the given object, which the gauge only holds weakly.
+	 *
+	 * @param name  The name of the gauge.
+	 * @param state The object read by the gauge.
+	 * @param value The function reading the value from the object.
+	 * @param tags  The tag keys and values, alternating.
+	 * @param <T>   The type of the object.
+	 * @return The gauge, to {@link #remove} once the object is shut down.
+	 */
+	public static <T> Gauge gauge(String name, T state, ToDoubleFunction<T> value, String... tags) {
+		return gauge(name, null, state, value, tags);
+	}
+
+	/**
+	 * Registers a gauge with a base unit reading the given object, which the gauge only holds weakly.
+	 *
+	 * @param name     The name of the gauge.
+	 * @param baseUnit The unit of the values, such as {@link BaseUnits#MILLISECONDS}, or null for none.
+	 * @param state    The object read by the gauge.
+	 * @param value    The function reading the value from the object.
+	 * @param tags     The tag keys and values, alternating.
+	 * @param <T>      The type of the object.
+	 * @return The gauge, to {@link #remove} once the object is shut down.
+	 */
+	public static <T> Gauge gauge(String name, String baseUnit, T state, ToDoubleFunction<T> value, String... tags) {
+		return Gauge.builder(name, state, value)
+				.tags(tags)
+				.baseUnit(baseUnit)
+				.register(registry());
+	}
+
+	/**
+	 * Removes a meter, so that registering it again reads the new object.
+	 *
+	 * @param meter The meter.
+	 */
+	public static void remove(Meter meter) {
+		registry().remove(meter);
+	}
+
+	/**
+	 * Registers the executor.* gauges of a thread pool: queued tasks, active threads, pool size and
+	 * completed tasks, tagged with the name of the pool. Other executors are left alone.
+	 *
+	 * @param executor The executor.
+	 * @param name     The name of the pool.
+	 */
+	public static void monitor(ExecutorService executor, String name) {
+		if (executor instanceof ThreadPoolExecutor) {
+			new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(registry());
+		}
+	}
+
+	/**
+	 * Removes the executor.* gauges registered by {@link #monitor} for the pool of the given name.
+	 *
+	 * @param name The name of the pool.
+	 */
+	public static void unmonitor(String name) {
+		for (Meter meter : registry().getMeters()) {
+			if (meter.getId().getName().startsWith("executor") && name.equals(meter.getId().getTag("name"))) {
+				registry().remove(meter);
+			}
+		}
+	}
+}
@@ -0,0 +1,12 @@
+package tourGuide.model;
+
+import java.util.UUID;
+
+import lombok.Data;
+
+@Data
+public class AttractionUserKey {
+	private final UUID attractionId;
+	private final UUID userId;
+
+}
@@ -0,0 +1,19 @@
+package tourGuide.model;
+
+import java.util.UUID;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import lombok.Data;
+
+/**
+ * A user entering, dwelling in or leaving the area around an attraction, detected on one of their visited locations.
+ */
+@Data
+public class GeofenceEvent {
+	private final UUID userId;
+	private final Attraction attraction;
+	private final GeofenceEventType type;
+	private final VisitedLocation visitedLocation;
+
+}
@@ -0,0 +1,19 @@
+package tourGuide.model;
+
+/**
+ * Transitions of a user relative to the area around an attraction.
+ */
+public enum GeofenceEventType {
+	/**
+	 * The user entered the area.
+	 */
+	ENTER,
+	/**
+	 * The user has been in the area for the dwell time, fired once per visit.
+	 */
+	DWELL,
+	/**
+	 * The user left the area.
+	 */
+	EXIT
+}
@@ -0,0 +1,16 @@
+package tourGuide.model;
+
+/**
+ * Receives the geofence events of every user.
+ * Listeners are called one event at a time from a single dispatching thread and should return quickly.
+ */
+@FunctionalInterface
+public interface GeofenceListener {
+
+    /**
+     * Handles a geofence event.
+     *
+     * @param event The event.
+     */
+    void onEvent(GeofenceEvent event);
+}
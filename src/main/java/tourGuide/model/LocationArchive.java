@@ -0,0 +1,23 @@
+package tourGuide.model;
+
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Receives the visited locations dropped from a full {@link LocationHistory}.
+ * Implementations are called from the tracking threads and should return quickly.
+ */
+@FunctionalInterface
+public interface LocationArchive {
+
+    /**
+     * Archive that simply forgets the dropped locations.
+     */
+    LocationArchive DISCARD = visitedLocation -> { };
+
+    /**
+     * Archives a visited location that no longer fits in the history of its user.
+     *
+     * @param visitedLocation The dropped visited location.
+     */
+    void archive(VisitedLocation visitedLocation);
+}
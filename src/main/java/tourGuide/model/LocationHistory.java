@@ -0,0 +1,202 @@
+package tourGuide.model;
+
+import java.util.AbstractList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Fixed-capacity ring buffer of the visited locations of one user.
+ * Latitude, longitude and time are kept in primitive arrays, which grow on demand up to the capacity,
+ * and VisitedLocation objects are only created when an entry is read. Once the buffer is full, each new
+ * location overwrites the oldest one, which is handed to the archive.
+ */
+public class LocationHistory {
+	public static final int DEFAULT_CAPACITY = 288;
+	private static final int INITIAL_SIZE = 8;
+	// markers for the VisitedLocation fields that were null
+	private static final long NO_TIME = Long.MIN_VALUE;
+
+	private final UUID userId;
+	private final int capacity;
+	private final LocationArchive archive;
+	private double[] latitudes;
+	private double[] longitudes;
+	private long[] times;
+	// index of the oldest entry
+	private int head;
+	private int size;
+	// number of locations ever added, used as a position that survives overwrites
+	private long addedCount;
+
+	/**
+	 * Constructs a LocationHistory with the default capacity, discarding the dropped locations.
+	 *
+	 * @param userId The id of the user owning the history.
+	 */
+	public LocationHistory(UUID userId) {
+		this(userId, DEFAULT_CAPACITY, LocationArchive.DISCARD);
+	}
+
+	/**
+	 * Constructs a LocationHistory.
+	 *
+	 * @param userId The id of the user owning the history.
+	 * @param config The capacity and archive of the history.
+	 */
+	public LocationHistory(UUID userId, LocationHistoryConfig config) {
+		this(userId, config.getCapacity(), config.getArchive());
+	}
+
+	/**
+	 * Constructs a LocationHistory.
+	 *
+	 * @param userId   The id of the user owning the history.
+	 * @param capacity The maximum number of locations kept.
+	 * @param archive  The archive receiving the locations dropped when the history is full.
+	 */
+	public LocationHistory(UUID userId, int capacity, LocationArchive archive) {
+		if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		this.userId = userId;
+		this.capacity = capacity;
+		this.archive = archive;
+		int initialSize = Math.min(capacity, INITIAL_SIZE);
+		this.latitudes = new double[initialSize];
+		this.longitudes = new double[initialSize];
+		this.times = new long[initialSize];
+	}
+
+	/**
+	 * Appends a visited location, dropping the oldest one to the archive when the history is full.
+	 *
+	 * @param visitedLocation The visited location to append.
+	 */
+	public void add(VisitedLocation visitedLocation) {
+		VisitedLocation dropped = null;
+		synchronized (this) {
+			if (size == capacity) {
+				dropped = get(0);
+				head = (head + 1) % capacity;
+				size--;
+			} else if (size == latitudes.length) {
+				grow();
+			}
+			int index = (head + size) % latitudes.length;
+			Location location = visitedLocation.location;
+			latitudes[index] = location == null ? Double.NaN : location.latitude;
+			longitudes[index] = location == null ? Double.NaN : location.longitude;
+			times[index] = visitedLocation.timeVisited == null ? NO_TIME : visitedLocation.timeVisited.getTime();
+			size++;
+			addedCount++;
+		}
+		if (dropped != null) archive.archive(dropped);
+	}
+
+	/**
+	 * Retrieves the most recent visited location.
+	 *
+	 * @return The last visited location, or null if the history is empty.
+	 */
+	public synchronized VisitedLocation last() {
+		return size == 0 ? null : get(size - 1);
+	}
+
+	/**
+	 * Retrieves the number of locations currently kept.
+	 *
+	 * @return The size of the history.
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Retrieves the number of locations ever added, including the ones dropped since.
+	 *
+	 * @return The total number of added locations.
+	 */
+	public synchronized long addedCount() {
+		return addedCount;
+	}
+
+	/**
+	 * Removes every location from the history, without archiving them.
+	 */
+	public synchronized void clear() {
+		head = 0;
+		size = 0;
+		addedCount = 0;
+	}
+
+	/**
+	 * Retrieves a snapshot of the kept locations, oldest first.
+	 *
+	 * @return A read-only list creating the VisitedLocation objects when they are read.
+	 */
+	public List<VisitedLocation> snapshot() {
+		return since(0);
+	}
+
+	/**
+	 * Retrieves a snapshot of the kept locations added after the given position, oldest first.
+	 *
+	 * @param position A number of added locations, as returned by {@link #addedCount()}.
+	 * @return A read-only list creating the VisitedLocation objects when they are read.
+	 */
+	public synchronized List<VisitedLocation> since(long position) {
+		int skipped = (int) Math.max(0, Math.min(size, position - (addedCount - size)));
+		int count = size - skipped;
+		double[] latitudeCopy = new double[count];
+		double[] longitudeCopy = new double[count];
+		long[] timeCopy = new long[count];
+		for (int i = 0; i < count; i++) {
+			int index = (head + skipped + i) % latitudes.length;
+			latitudeCopy[i] = latitudes[index];
+			longitudeCopy[i] = longitudes[index];
+			timeCopy[i] = times[index];
+		}
+		return new AbstractList<VisitedLocation>() {
+			@Override
+			public VisitedLocation get(int i) {
+				if (i < 0 || i >= count) throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + count);
+				return toVisitedLocation(latitudeCopy[i], longitudeCopy[i], timeCopy[i]);
+			}
+
+			@Override
+			public int size() {
+				return count;
+			}
+		};
+	}
+
+	private VisitedLocation get(int i) {
+		int index = (head + i) % latitudes.length;
+		return toVisitedLocation(latitudes[index], longitudes[index], times[index]);
+	}
+
+	private VisitedLocation toVisitedLocation(double latitude, double longitude, long time) {
+		return new VisitedLocation(userId,
+				Double.isNaN(latitude) ? null : new Location(latitude, longitude),
+				time == NO_TIME ? null : new Date(time));
+	}
+
+	private void grow() {
+		int length = Math.min(capacity, latitudes.length * 2);
+		double[] newLatitudes = new double[length];
+		double[] newLongitudes = new double[length];
+		long[] newTimes = new long[length];
+		for (int i = 0; i < size; i++) {
+			int index = (head + i) % latitudes.length;
+			newLatitudes[i] = latitudes[index];
+			newLongitudes[i] = longitudes[index];
+			newTimes[i] = times[index];
+		}
+		latitudes = newLatitudes;
+		longitudes = newLongitudes;
+		times = newTimes;
+		head = 0;
+	}
+}
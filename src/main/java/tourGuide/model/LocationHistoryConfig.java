@@ -0,0 +1,12 @@
+package tourGuide.model;
+
+import lombok.Data;
+
+@Data
+public class LocationHistoryConfig {
+	// maximum number of visited locations kept per user
+	private int capacity = LocationHistory.DEFAULT_CAPACITY;
+	// receives the locations dropped from a full history
+	private LocationArchive archive = LocationArchive.DISCARD;
+
+}
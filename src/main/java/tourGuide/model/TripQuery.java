@@ -0,0 +1,15 @@
+package tourGuide.model;
+
+import lombok.Data;
+
+/**
+ * The preferences TripPricer quotes a trip for, users sharing them get the same providers.
+ */
+@Data
+public class TripQuery {
+	private final int numberOfAdults;
+	private final int numberOfChildren;
+	private final int tripDuration;
+	private final int rewardPoints;
+
+}
@@ -1,12 +1,19 @@
 package tourGuide.model;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import gpsUtil.location.VisitedLocation;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import tripPricer.Provider;
 
 @Data
@@ -16,33 +23,148 @@ public class User {
 	private String phoneNumber;
 	private String emailAddress;
 	private Date latestLocationTimestamp;
-	private List<VisitedLocation> visitedLocations = new ArrayList<>();
-	private List<UserReward> userRewards = new ArrayList<>();
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private final LocationHistory locationHistory;
+	// rewards keyed by attraction id, so a user is rewarded at most once per attraction
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private final ConcurrentMap<UUID, UserReward> userRewards = new ConcurrentHashMap<>();
+	// read-only copy of the rewards, rebuilt on each new reward
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private volatile List<UserReward> userRewardsSnapshot = Collections.emptyList();
+	// sum of the reward points, kept up to date with the rewards
+	@Setter(AccessLevel.NONE)
+	private volatile int cumulativeRewardPoints;
 	private UserPreferences userPreferences = new UserPreferences();
 	private List<Provider> tripDeals = new ArrayList<>();
+	// position in the location history up to which locations were already checked for rewards
+	@Setter(AccessLevel.NONE)
+	private long rewardedLocationCount;
 	public User(UUID userId, String userName, String phoneNumber, String emailAddress) {
+		this(userId, userName, phoneNumber, emailAddress, new LocationHistory(userId));
+	}
+
+	public User(UUID userId, String userName, String phoneNumber, String emailAddress,
+				LocationHistoryConfig locationHistoryConfig) {
+		this(userId, userName, phoneNumber, emailAddress, new LocationHistory(userId, locationHistoryConfig));
+	}
+
+	private User(UUID userId, String userName, String phoneNumber, String emailAddress, LocationHistory locationHistory) {
 		this.userId = userId;
 		this.userName = userName;
 		this.phoneNumber = phoneNumber;
 		this.emailAddress = emailAddress;
+		this.locationHistory = locationHistory;
 	}
 
 	public void addToVisitedLocations(VisitedLocation visitedLocation) {
-		visitedLocations.add(visitedLocation);
+		locationHistory.add(visitedLocation);
+	}
+
+	public synchronized void clearVisitedLocations() {
+		locationHistory.clear();
+		rewardedLocationCount = 0;
 	}
 
-	public void clearVisitedLocations() {
-		visitedLocations.clear();
+	/**
+	 * Retrieves the visited locations kept in the history of the user.
+	 *
+	 * @return A read-only snapshot of the visited locations, oldest first.
+	 */
+	public List<VisitedLocation> getVisitedLocations() {
+		return locationHistory.snapshot();
 	}
 
-	public void addUserReward(UserReward userReward) {
-		if(userRewards.stream().filter(r -> r.attraction.attractionName.equals(userReward.getAttractionName())).count() == 0) {
-			userRewards.add(userReward);
+	/**
+	 * Retrieves the visited locations added since the last call and moves the reward watermark past them.
+	 *
+	 * @return The visited locations not yet checked for rewards.
+	 */
+	public synchronized List<VisitedLocation> pollLocationsToReward() {
+		synchronized (locationHistory) {
+			List<VisitedLocation> locationsToReward = locationHistory.since(rewardedLocationCount);
+			rewardedLocationCount = locationHistory.addedCount();
+			return locationsToReward;
 		}
 	}
 
+	/**
+	 * Copies the visited locations not yet checked for rewards, without moving the reward watermark, so that they
+	 * are checked again if the calculation fails.
+	 *
+	 * @param target The collection receiving the visited locations, oldest first.
+	 * @return The position reached, to pass to {@link #markLocationsRewarded} once their rewards are added.
+	 */
+	public synchronized long collectLocationsToReward(Collection<VisitedLocation> target) {
+		synchronized (locationHistory) {
+			target.addAll(locationHistory.since(rewardedLocationCount));
+			return locationHistory.addedCount();
+		}
+	}
+
+	/**
+	 * Moves the reward watermark past the locations whose rewards were added.
+	 *
+	 * @param position The position returned by {@link #collectLocationsToReward}.
+	 */
+	public synchronized void markLocationsRewarded(long position) {
+		// a position from before the history was cleared is ignored
+		if (position > locationHistory.addedCount()) return;
+		rewardedLocationCount = Math.max(rewardedLocationCount, position);
+	}
+
+	/**
+	 * Copies the visited locations added after the given position, without moving the reward watermark.
+	 *
+	 * @param position A position returned by a previous call, or 0 for every kept location.
+	 * @param target   The collection receiving the visited locations, oldest first.
+	 * @return The position reached, to pass to the next call.
+	 */
+	public long collectVisitedLocationsSince(long position, Collection<VisitedLocation> target) {
+		synchronized (locationHistory) {
+			target.addAll(locationHistory.since(position));
+			return locationHistory.addedCount();
+		}
+	}
+
+	/**
+	 * Adds the reward unless the user was already rewarded for the same attraction.
+	 * Safe to call concurrently.
+	 *
+	 * @param userReward The reward to add.
+	 * @return True if the reward was added, false if the attraction was already rewarded.
+	 */
+	public boolean addUserReward(UserReward userReward) {
+		if (userRewards.putIfAbsent(userReward.attraction.attractionId, userReward) != null) return false;
+		synchronized (userRewards) {
+			userRewardsSnapshot = Collections.unmodifiableList(new ArrayList<>(userRewards.values()));
+			cumulativeRewardPoints += userReward.getRewardPoints();
+		}
+		return true;
+	}
+
+	public boolean hasRewardFor(UUID attractionId) {
+		return userRewards.containsKey(attractionId);
+	}
+
+	/**
+	 * Retrieves the rewards of the user.
+	 *
+	 * @return A read-only snapshot of the rewards.
+	 */
+	public List<UserReward> getUserRewards() {
+		return userRewardsSnapshot;
+	}
+
+	/**
+	 * Retrieves the most recent visited location of the user.
+	 *
+	 * @return The last visited location, or null if the user has no location yet.
+	 */
 	public VisitedLocation getLastVisitedLocation() {
-		return visitedLocations.get(visitedLocations.size() - 1);
+		return locationHistory.last();
 	}
 
 }
\ No newline at end of file
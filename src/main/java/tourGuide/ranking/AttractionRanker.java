@@ -0,0 +1,117 @@
+package tourGuide.ranking;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import tourGuide.geo.AttractionIndex;
+import tourGuide.geo.DistanceEngine;
+import tourGuide.geo.GeoPoint;
+import tourGuide.model.AttractionUserKey;
+import tourGuide.service.IRewardsService;
+import tourGuide.service.RewardPointsCache;
+
+/**
+ * Picks the attractions to suggest to a user, scoring them by a weighted mix of their distance and of their
+ * reward points. Only the reward points already cached are used, RewardCentral is never called here.
+ * The k nearest attractions give a first top-k, whose worst score bounds the distance beyond which no
+ * attraction can score better, so only the attractions within that distance are scored, on a bounded heap.
+ */
+public class AttractionRanker {
+	private static final Comparator<RankedAttraction> BEST_FIRST = Comparator
+			.comparingDouble(RankedAttraction::getScore).reversed()
+			.thenComparingDouble(RankedAttraction::getDistance);
+
+	private final IRewardsService rewardsService;
+	private final RankingConfig rankingConfig;
+
+	/**
+	 * Constructs an AttractionRanker.
+	 *
+	 * @param rewardsService The service holding the attraction index and the cached reward points.
+	 * @param rankingConfig  The number of attractions to pick and the weights of the score.
+	 * @throws IllegalArgumentException If a scale or the distance weight is not a positive number, or the reward
+	 *                                  weight or points are negative.
+	 */
+	public AttractionRanker(IRewardsService rewardsService, RankingConfig rankingConfig) {
+		if (!isPositive(rankingConfig.getDistanceScaleMiles()) || !isPositive(rankingConfig.getDistanceWeight())
+				|| rankingConfig.getRewardPointsScale() <= 0) {
+			throw new IllegalArgumentException("distanceScaleMiles, distanceWeight and rewardPointsScale must be positive: "
+					+ rankingConfig);
+		}
+		if (!(isPositive(rankingConfig.getRewardWeight()) || rankingConfig.getRewardWeight() == 0)
+				|| rankingConfig.getDefaultRewardPoints() < 0) {
+			throw new IllegalArgumentException("rewardWeight and defaultRewardPoints must not be negative: " + rankingConfig);
+		}
+		this.rewardsService = rewardsService;
+		this.rankingConfig = rankingConfig;
+	}
+
+	/**
+	 * Picks the best attractions for a user.
+	 *
+	 * @param userId           The id of the user.
+	 * @param location         The location of the user.
+	 * @param maxDistanceMiles The distance beyond which attractions are ignored, in statute miles.
+	 * @return Up to limit attractions, best first.
+	 */
+	public List<RankedAttraction> rank(UUID userId, Location location, double maxDistanceMiles) {
+		int limit = rankingConfig.getLimit();
+		if (limit <= 0) return new ArrayList<>();
+		AttractionIndex index = rewardsService.getAttractionIndex();
+		DistanceEngine distanceEngine = index.getDistanceEngine();
+		GeoPoint point = GeoPoint.of(location);
+
+		// the root of the heap is the worst attraction kept
+		PriorityQueue<RankedAttraction> top = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+		Set<UUID> scored = new HashSet<>();
+		for (Attraction attraction : index.nearest(location, limit)) {
+			double distance = distanceEngine.statuteMiles(index.pointOf(attraction), point);
+			if (distance > maxDistanceMiles) break;
+			scored.add(attraction.attractionId);
+			offer(top, limit, new RankedAttraction(attraction, distance, score(userId, attraction, distance)));
+		}
+
+		// fewer than limit attractions within reach means they are all kept already
+		if (top.size() == limit && rankingConfig.getRewardWeight() > 0) {
+			// farther away, even the whole reward weight cannot beat the worst attraction kept
+			double reach = (rankingConfig.getRewardWeight() - top.peek().getScore())
+					* rankingConfig.getDistanceScaleMiles() / rankingConfig.getDistanceWeight();
+			double searchRadius = Math.min(maxDistanceMiles, reach);
+			index.forEachWithinRadius(location, searchRadius, (attraction, distance) -> {
+				if (scored.contains(attraction.attractionId)) return;
+				offer(top, limit, new RankedAttraction(attraction, distance, score(userId, attraction, distance)));
+			});
+		}
+
+		List<RankedAttraction> ranked = new ArrayList<>(top);
+		ranked.sort(BEST_FIRST);
+		return ranked;
+	}
+
+	// false for NaN and infinities too, which would turn every score into NaN
+	private static boolean isPositive(double value) {
+		return value > 0 && value < Double.POSITIVE_INFINITY;
+	}
+
+	private static void offer(PriorityQueue<RankedAttraction> top, int limit, RankedAttraction candidate) {
+		top.add(candidate);
+		if (top.size() > limit) top.poll();
+	}
+
+	private double score(UUID userId, Attraction attraction, double distance) {
+		double score = -rankingConfig.getDistanceWeight() * distance / rankingConfig.getDistanceScaleMiles();
+		if (rankingConfig.getRewardWeight() > 0) {
+			int points = rewardsService.getCachedRewardPoints(new AttractionUserKey(attraction.attractionId, userId));
+			if (points == RewardPointsCache.ABSENT) points = rankingConfig.getDefaultRewardPoints();
+			score += rankingConfig.getRewardWeight() * Math.min(1, (double) points / rankingConfig.getRewardPointsScale());
+		}
+		return score;
+	}
+}
@@ -0,0 +1,15 @@
+package tourGuide.ranking;
+
+import gpsUtil.location.Attraction;
+import lombok.Data;
+
+/**
+ * An attraction picked for a user, with its distance to the user and its score, the higher the better.
+ */
+@Data
+public class RankedAttraction {
+	private final Attraction attraction;
+	private final double distance;
+	private final double score;
+
+}
@@ -0,0 +1,18 @@
+package tourGuide.ranking;
+
+import lombok.Data;
+
+@Data
+public class RankingConfig {
+	// number of attractions returned to a user
+	private int limit = 5;
+	// the score loses distanceWeight every distanceScaleMiles
+	private double distanceWeight = 1;
+	private double distanceScaleMiles = 100;
+	// and gains up to rewardWeight with the reward points, rewardPointsScale points and above giving the whole weight
+	private double rewardWeight = 0;
+	private int rewardPointsScale = 1000;
+	// points assumed for the attractions whose points are not cached yet
+	private int defaultRewardPoints = 500;
+
+}
@@ -0,0 +1,353 @@
+package tourGuide.repository;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.model.LocationHistoryConfig;
+import tourGuide.model.User;
+
+/**
+ * User store kept in memory and persisted to an append-only log plus a snapshot in a directory.
+ * Every user stays in memory, since the tracker visits each of them once per polling interval. Saved users are
+ * only marked as changed: a background thread appends one record per changed user to the log at a fixed interval,
+ * holding the locations added since its previous record, and forces the log to disk once per batch. When the log
+ * outgrows the snapshot, the snapshot is rewritten and the log restarted.
+ */
+public class FileUserRepository implements IUserRepository, Closeable {
+	public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+	static final String SNAPSHOT_FILE = "users.snapshot";
+	static final String LOG_FILE = "users.log";
+	private static final long MIN_LOG_SIZE_TO_COMPACT = 1 << 20;
+	private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+	private final Logger logger = LoggerFactory.getLogger(FileUserRepository.class);
+	private final Path directory;
+	private final UserRecordCodec codec;
+	private final LocationHistoryConfig locationHistoryConfig;
+	private final boolean persistLocations;
+	private final ConcurrentMap<String, User> users = new ConcurrentHashMap<>();
+	private final Set<String> changedUserNames = ConcurrentHashMap.newKeySet();
+	private final ScheduledExecutorService flusher;
+
+	// state below is only used while holding the lock of the repository
+	// location history position and reward count of each user when its last record was written
+	private final Map<String, Long> persistedLocationCounts = new HashMap<>();
+	private final Map<String, Integer> persistedRewardCounts = new HashMap<>();
+	// the snapshot covers every log of an older generation
+	private long generation;
+	private long snapshotSize;
+	private FileChannel log;
+	private boolean closed;
+
+	/**
+	 * Constructs a FileUserRepository and loads the users stored in the directory.
+	 *
+	 * @param directory           The directory of the snapshot and log files, created if missing.
+	 * @param attractions         The attractions the stored rewards are matched to, by name.
+	 * @param flushIntervalMillis The interval between two writes of the changed users.
+	 */
+	public FileUserRepository(Path directory, List<Attraction> attractions, long flushIntervalMillis) {
+		this(directory, attractions, flushIntervalMillis, true);
+	}
+
+	/**
+	 * Constructs a FileUserRepository and loads the users stored in the directory.
+	 *
+	 * @param directory           The directory of the snapshot and log files, created if missing.
+	 * @param attractions         The attractions the stored rewards are matched to, by name.
+	 * @param flushIntervalMillis The interval between two writes of the changed users.
+	 * @param persistLocations    False when the visited locations are persisted by an {@link ILocationJournal}.
+	 */
+	public FileUserRepository(Path directory, List<Attraction> attractions, long flushIntervalMillis,
+							  boolean persistLocations) {
+		this(directory, attractions, flushIntervalMillis, persistLocations, new LocationHistoryConfig());
+	}
+
+	/**
+	 * Constructs a FileUserRepository and loads the users stored in the directory.
+	 *
+	 * @param directory             The directory of the snapshot and log files, created if missing.
+	 * @param attractions           The attractions the stored rewards are matched to, by name.
+	 * @param flushIntervalMillis   The interval between two writes of the changed users.
+	 * @param persistLocations      False when the visited locations are persisted by an {@link ILocationJournal}.
+	 * @param locationHistoryConfig The capacity and archive of the location history of the users.
+	 */
+	public FileUserRepository(Path directory, List<Attraction> attractions, long flushIntervalMillis,
+							  boolean persistLocations, LocationHistoryConfig locationHistoryConfig) {
+		this.directory = directory;
+		this.persistLocations = persistLocations;
+		this.locationHistoryConfig = locationHistoryConfig;
+		this.codec = new UserRecordCodec(attractions, (userId, userName) -> newUser(userId, userName, null, null));
+		try {
+			Files.createDirectories(directory);
+			load();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to load the users from " + directory, e);
+		}
+		this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "user-store-flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public User findByUserName(String userName) {
+		return users.get(userName);
+	}
+
+	@Override
+	public List<User> findAll() {
+		return new ArrayList<>(users.values());
+	}
+
+	@Override
+	public User newUser(UUID userId, String userName, String phoneNumber, String emailAddress) {
+		return new User(userId, userName, phoneNumber, emailAddress, locationHistoryConfig);
+	}
+
+	@Override
+	public boolean add(User user) {
+		if (users.putIfAbsent(user.getUserName(), user) != null) return false;
+		changedUserNames.add(user.getUserName());
+		return true;
+	}
+
+	@Override
+	public void save(User user) {
+		if (users.get(user.getUserName()) == user) {
+			changedUserNames.add(user.getUserName());
+		}
+	}
+
+	@Override
+	public boolean isPersistent() {
+		return true;
+	}
+
+	@Override
+	public int count() {
+		return users.size();
+	}
+
+	/**
+	 * Writes the changed users to the log and forces it to disk.
+	 */
+	public synchronized void flush() throws IOException {
+		if (closed || changedUserNames.isEmpty()) return;
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(WRITE_BUFFER_SIZE);
+		Iterator<String> names = changedUserNames.iterator();
+		while (names.hasNext()) {
+			String userName = names.next();
+			names.remove();
+			User user = users.get(userName);
+			if (user == null) continue;
+			writeRecord(buffer, user, false);
+			if (buffer.size() >= WRITE_BUFFER_SIZE) {
+				writeFully(log, buffer);
+			}
+		}
+		writeFully(log, buffer);
+		log.force(false);
+
+		if (log.size() > Math.max(MIN_LOG_SIZE_TO_COMPACT, snapshotSize)) {
+			compact();
+		}
+	}
+
+	/**
+	 * Writes the pending changes and stops the background writes.
+	 */
+	@Override
+	public void close() throws IOException {
+		flusher.shutdown();
+		synchronized (this) {
+			flush();
+			closed = true;
+			log.close();
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (IOException | RuntimeException e) {
+			logger.error("Unable to write the changed users to " + directory, e);
+		}
+	}
+
+	/**
+	 * Rewrites the snapshot from every user and restarts the log under a new generation.
+	 * A crash between the two steps leaves a log of an older generation, which the next load skips.
+	 */
+	private void compact() throws IOException {
+		long newGeneration = generation + 1;
+		Path snapshot = directory.resolve(SNAPSHOT_FILE);
+		Path temporarySnapshot = directory.resolve(SNAPSHOT_FILE + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporarySnapshot, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream(WRITE_BUFFER_SIZE);
+			new DataOutputStream(buffer).writeLong(newGeneration);
+			for (User user : users.values()) {
+				writeRecord(buffer, user, true);
+				if (buffer.size() >= WRITE_BUFFER_SIZE) {
+					writeFully(channel, buffer);
+				}
+			}
+			writeFully(channel, buffer);
+			channel.force(true);
+		}
+		Files.move(temporarySnapshot, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		log.close();
+		generation = newGeneration;
+		snapshotSize = Files.size(snapshot);
+		log = openNewLog();
+		logger.debug("Compacted the user store to " + users.size() + " users, snapshot of " + snapshotSize + " bytes");
+	}
+
+	private void writeRecord(ByteArrayOutputStream buffer, User user, boolean full) throws IOException {
+		String userName = user.getUserName();
+		List<VisitedLocation> newLocations = new ArrayList<>();
+		long locationCount = !persistLocations ? 0 : user.collectVisitedLocationsSince(
+				full ? 0 : persistedLocationCounts.getOrDefault(userName, 0L), newLocations);
+		int rewardCount = user.getUserRewards().size();
+		boolean rewardsChanged = full || rewardCount != persistedRewardCounts.getOrDefault(userName, 0);
+
+		ByteArrayOutputStream record = new ByteArrayOutputStream();
+		codec.write(new DataOutputStream(record), user, newLocations, rewardsChanged ? user.getUserRewards() : null);
+		CRC32 crc = new CRC32();
+		crc.update(record.toByteArray(), 0, record.size());
+
+		DataOutputStream out = new DataOutputStream(buffer);
+		out.writeInt(record.size());
+		record.writeTo(out);
+		out.writeInt((int) crc.getValue());
+
+		persistedLocationCounts.put(userName, locationCount);
+		persistedRewardCounts.put(userName, rewardCount);
+	}
+
+	private synchronized void load() throws IOException {
+		Path snapshot = directory.resolve(SNAPSHOT_FILE);
+		if (Files.exists(snapshot)) {
+			try (DataInputStream in = open(snapshot)) {
+				generation = in.readLong();
+				readRecords(in);
+			}
+			snapshotSize = Files.size(snapshot);
+		}
+
+		Path logPath = directory.resolve(LOG_FILE);
+		long validLogSize = -1;
+		if (Files.exists(logPath) && Files.size(logPath) >= Long.BYTES) {
+			try (DataInputStream in = open(logPath)) {
+				if (in.readLong() == generation) {
+					validLogSize = Long.BYTES + readRecords(in);
+				}
+			}
+		}
+		if (validLogSize < 0) {
+			log = openNewLog();
+		} else {
+			log = FileChannel.open(logPath, StandardOpenOption.WRITE);
+			// drop a record torn by a crash
+			log.truncate(validLogSize);
+			log.position(validLogSize);
+		}
+
+		// everything loaded is already persisted
+		users.values().forEach(user -> {
+			persistedLocationCounts.put(user.getUserName(), user.collectVisitedLocationsSince(Long.MAX_VALUE, new ArrayList<>()));
+			persistedRewardCounts.put(user.getUserName(), user.getUserRewards().size());
+		});
+		logger.debug("Loaded " + users.size() + " users from " + directory);
+	}
+
+	/**
+	 * Applies the records up to the end of the input or to the first incomplete or corrupted record.
+	 *
+	 * @return The number of bytes of the valid records.
+	 */
+	private long readRecords(DataInputStream in) throws IOException {
+		long validSize = 0;
+		while (true) {
+			byte[] record;
+			int checksum;
+			try {
+				int length = in.readInt();
+				if (length < 0) break;
+				record = new byte[length];
+				in.readFully(record);
+				checksum = in.readInt();
+			} catch (EOFException e) {
+				break;
+			}
+			CRC32 crc = new CRC32();
+			crc.update(record, 0, record.length);
+			if ((int) crc.getValue() != checksum) break;
+
+			codec.apply(new DataInputStream(new ByteArrayInputStream(record)), users);
+			validSize += Integer.BYTES + record.length + Integer.BYTES;
+		}
+		return validSize;
+	}
+
+	private FileChannel openNewLog() throws IOException {
+		FileChannel channel = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		ByteBuffer header = ByteBuffer.allocate(Long.BYTES).putLong(0, generation);
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+		channel.force(true);
+		return channel;
+	}
+
+	private static DataInputStream open(Path path) throws IOException {
+		InputStream in = Files.newInputStream(path);
+		return new DataInputStream(new BufferedInputStream(in, 1 << 16));
+	}
+
+	private static void writeFully(FileChannel channel, ByteArrayOutputStream buffer) throws IOException {
+		ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+		buffer.reset();
+	}
+}
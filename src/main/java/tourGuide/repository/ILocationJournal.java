@@ -0,0 +1,42 @@
+package tourGuide.repository;
+
+import java.util.Collection;
+
+import gpsUtil.location.VisitedLocation;
+import tourGuide.model.User;
+
+/**
+ * Interface for the journal of the tracked visited locations, replayed into the user histories on startup.
+ */
+public interface ILocationJournal {
+
+    /**
+     * Journal that keeps nothing, the histories are then rebuilt by the tracker after a restart.
+     */
+    ILocationJournal DISABLED = new ILocationJournal() {
+        @Override
+        public void append(VisitedLocation visitedLocation) {
+        }
+
+        @Override
+        public long replay(Collection<User> users) {
+            return 0;
+        }
+    };
+
+    /**
+     * Appends a tracked visited location.
+     *
+     * @param visitedLocation The visited location, holding the id of its user.
+     */
+    void append(VisitedLocation visitedLocation);
+
+    /**
+     * Appends the journaled locations to the histories of their users, in the order they were journaled.
+     * Locations of users missing from the collection are skipped.
+     *
+     * @param users The users to restore.
+     * @return The number of restored locations.
+     */
+    long replay(Collection<User> users);
+}
@@ -0,0 +1,70 @@
+package tourGuide.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+import tourGuide.model.User;
+
+/**
+ * Interface for the store holding the users, keyed by user name.
+ */
+public interface IUserRepository {
+
+    /**
+     * Finds a user by name.
+     *
+     * @param userName The name of the user.
+     * @return The user, or null if there is no user with this name.
+     */
+    User findByUserName(String userName);
+
+    /**
+     * Retrieves every user.
+     *
+     * @return A new list of the users.
+     */
+    List<User> findAll();
+
+    /**
+     * Creates a user with the location history settings of the store, without adding it.
+     *
+     * @param userId       The id of the user.
+     * @param userName     The name of the user.
+     * @param phoneNumber  The phone number of the user.
+     * @param emailAddress The email address of the user.
+     * @return The new user.
+     */
+    User newUser(UUID userId, String userName, String phoneNumber, String emailAddress);
+
+    /**
+     * Adds a user unless a user with the same name already exists.
+     *
+     * @param user The user to add.
+     * @return True if the user was added, false if the name was already taken.
+     */
+    boolean add(User user);
+
+    /**
+     * Records that the locations, rewards or preferences of a user changed.
+     * Durable implementations persist the change later, in a batch, so this returns quickly.
+     *
+     * @param user The changed user.
+     */
+    void save(User user);
+
+    /**
+     * Tells whether the users are kept across restarts.
+     *
+     * @return True if the users are loaded back on the next start.
+     */
+    default boolean isPersistent() {
+        return false;
+    }
+
+    /**
+     * Retrieves the number of users.
+     *
+     * @return The number of users.
+     */
+    int count();
+}
@@ -0,0 +1,64 @@
+package tourGuide.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import tourGuide.model.LocationHistoryConfig;
+import tourGuide.model.User;
+
+/**
+ * User store kept in memory only, lost on restart.
+ */
+public class InMemoryUserRepository implements IUserRepository {
+	private final ConcurrentMap<String, User> users = new ConcurrentHashMap<>();
+	private final LocationHistoryConfig locationHistoryConfig;
+
+	/**
+	 * Constructs an InMemoryUserRepository whose users keep the default number of locations.
+	 */
+	public InMemoryUserRepository() {
+		this(new LocationHistoryConfig());
+	}
+
+	/**
+	 * Constructs an InMemoryUserRepository.
+	 *
+	 * @param locationHistoryConfig The capacity and archive of the location history of the users.
+	 */
+	public InMemoryUserRepository(LocationHistoryConfig locationHistoryConfig) {
+		this.locationHistoryConfig = locationHistoryConfig;
+	}
+
+	@Override
+	public User findByUserName(String userName) {
+		return users.get(userName);
+	}
+
+	@Override
+	public List<User> findAll() {
+		return new ArrayList<>(users.values());
+	}
+
+	@Override
+	public User newUser(UUID userId, String userName, String phoneNumber, String emailAddress) {
+		return new User(userId, userName, phoneNumber, emailAddress, locationHistoryConfig);
+	}
+
+	@Override
+	public boolean add(User user) {
+		return users.putIfAbsent(user.getUserName(), user) == null;
+	}
+
+	@Override
+	public void save(User user) {
+		// the users are the stored state
+	}
+
+	@Override
+	public int count() {
+		return users.size();
+	}
+}
@@ -0,0 +1,236 @@
+package tourGuide.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.model.User;
+
+/**
+ * Location journal made of fixed-size segment files written through memory mappings, so appending a location
+ * is a few memory writes. Each segment starts with the number of complete records, updated after each record,
+ * followed by 40-byte records: user id high and low bits, latitude, longitude and time. When a segment is full
+ * it is forced to disk and the next one is created, and the oldest segments beyond maxSegments are deleted:
+ * their locations are no longer restored, even for the users whose history could still hold them.
+ * Locations not yet forced survive a crash of the process, but not of the machine.
+ */
+public class MappedLocationJournal implements ILocationJournal, Closeable {
+	public static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+	public static final int DEFAULT_MAX_SEGMENTS = 16;
+	static final int HEADER_SIZE = Long.BYTES;
+	static final int RECORD_SIZE = 5 * Long.BYTES;
+	private static final int USER_ID_HIGH = 0;
+	private static final int USER_ID_LOW = 8;
+	private static final int LATITUDE = 16;
+	private static final int LONGITUDE = 24;
+	private static final int TIME = 32;
+	// marker for the VisitedLocation times that were null
+	private static final long NO_TIME = Long.MIN_VALUE;
+	private static final String SEGMENT_PREFIX = "locations-";
+	private static final String SEGMENT_SUFFIX = ".journal";
+
+	private final Logger logger = LoggerFactory.getLogger(MappedLocationJournal.class);
+	private final Path directory;
+	private final int segmentRecords;
+	private final int maxSegments;
+
+	// state below is only used while holding the lock of the journal
+	// indexes of the segment files, oldest first
+	private final Deque<Long> segments = new ArrayDeque<>();
+	private MappedByteBuffer current;
+	private int currentRecords;
+	private boolean closed;
+	private boolean droppedSegment;
+
+	/**
+	 * Constructs a MappedLocationJournal, appending after the locations already journaled in the directory.
+	 *
+	 * @param directory      The directory of the segment files, created if missing.
+	 * @param segmentRecords The number of records of a segment.
+	 * @param maxSegments    The number of segments kept, older ones are deleted.
+	 */
+	public MappedLocationJournal(Path directory, int segmentRecords, int maxSegments) {
+		if (segmentRecords <= 0 || maxSegments <= 0) {
+			throw new IllegalArgumentException("segmentRecords and maxSegments must be positive");
+		}
+		if (HEADER_SIZE + (long) segmentRecords * RECORD_SIZE > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("A segment can't be mapped with " + segmentRecords + " records");
+		}
+		this.directory = directory;
+		this.segmentRecords = segmentRecords;
+		this.maxSegments = maxSegments;
+		try {
+			Files.createDirectories(directory);
+			openSegments();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to open the location journal in " + directory, e);
+		}
+	}
+
+	@Override
+	public synchronized void append(VisitedLocation visitedLocation) {
+		if (closed) return;
+		try {
+			if (currentRecords == segmentRecords) {
+				rotate();
+			}
+		} catch (IOException e) {
+			logger.error("Unable to create a location journal segment in " + directory, e);
+			return;
+		}
+		int offset = HEADER_SIZE + currentRecords * RECORD_SIZE;
+		Location location = visitedLocation.location;
+		current.putLong(offset + USER_ID_HIGH, visitedLocation.userId.getMostSignificantBits());
+		current.putLong(offset + USER_ID_LOW, visitedLocation.userId.getLeastSignificantBits());
+		current.putDouble(offset + LATITUDE, location == null ? Double.NaN : location.latitude);
+		current.putDouble(offset + LONGITUDE, location == null ? Double.NaN : location.longitude);
+		current.putLong(offset + TIME, visitedLocation.timeVisited == null ? NO_TIME : visitedLocation.timeVisited.getTime());
+		currentRecords++;
+		current.putLong(0, currentRecords);
+	}
+
+	/**
+	 * Replays the segments with one parallel task per partition of the users. Every task scans the segments in
+	 * order and only applies the records of its own users, so the locations of a user are appended in journal
+	 * order by a single thread.
+	 */
+	@Override
+	public long replay(Collection<User> users) {
+		Map<UUID, User> usersById = new HashMap<>();
+		users.forEach(user -> usersById.put(user.getUserId(), user));
+		List<ByteBuffer> buffers = new ArrayList<>();
+		synchronized (this) {
+			try {
+				for (long segment : segments) {
+					buffers.add(map(segment, FileChannel.MapMode.READ_ONLY));
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to read the location journal in " + directory, e);
+			}
+		}
+
+		int partitions = Runtime.getRuntime().availableProcessors();
+		long replayed = IntStream.range(0, partitions).parallel()
+				.mapToLong(partition -> replayPartition(buffers, usersById, partition, partitions))
+				.sum();
+		logger.debug("Replayed " + replayed + " locations from " + buffers.size() + " journal segments");
+		return replayed;
+	}
+
+	/**
+	 * Forces the current segment to disk and stops journaling.
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed) return;
+		closed = true;
+		current.force();
+	}
+
+	private static long replayPartition(List<ByteBuffer> buffers, Map<UUID, User> usersById, int partition, int partitions) {
+		long replayed = 0;
+		for (ByteBuffer buffer : buffers) {
+			long records = Math.min(buffer.getLong(0), (buffer.capacity() - HEADER_SIZE) / RECORD_SIZE);
+			for (int i = 0; i < records; i++) {
+				int offset = HEADER_SIZE + i * RECORD_SIZE;
+				long high = buffer.getLong(offset + USER_ID_HIGH);
+				long low = buffer.getLong(offset + USER_ID_LOW);
+				// same value as UUID.hashCode, without creating the UUID of the records of other partitions
+				long hilo = high ^ low;
+				if (Math.floorMod(((int) (hilo >> 32)) ^ (int) hilo, partitions) != partition) continue;
+
+				User user = usersById.get(new UUID(high, low));
+				if (user == null) continue;
+				double latitude = buffer.getDouble(offset + LATITUDE);
+				double longitude = buffer.getDouble(offset + LONGITUDE);
+				long time = buffer.getLong(offset + TIME);
+				user.addToVisitedLocations(new VisitedLocation(user.getUserId(),
+						Double.isNaN(latitude) ? null : new Location(latitude, longitude),
+						time == NO_TIME ? null : new Date(time)));
+				replayed++;
+			}
+		}
+		return replayed;
+	}
+
+	private void openSegments() throws IOException {
+		List<Long> indexes = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				indexes.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+			}
+		}
+		indexes.sort(null);
+		segments.addAll(indexes);
+		if (segments.isEmpty()) {
+			segments.add(0L);
+		}
+		current = map(segments.getLast(), FileChannel.MapMode.READ_WRITE);
+		currentRecords = (int) Math.min(current.getLong(0), segmentRecords);
+		// a segment written with more records per segment is left as it is
+		if (current.capacity() > segmentSize()) {
+			currentRecords = segmentRecords;
+		}
+	}
+
+	private void rotate() throws IOException {
+		current.force();
+		long next = segments.getLast() + 1;
+		current = map(next, FileChannel.MapMode.READ_WRITE);
+		currentRecords = 0;
+		segments.addLast(next);
+		while (segments.size() > maxSegments) {
+			Files.deleteIfExists(segmentPath(segments.removeFirst()));
+			if (!droppedSegment) {
+				droppedSegment = true;
+				logger.warn("The location journal in " + directory + " reached " + maxSegments
+						+ " segments, the oldest locations will not be restored after a restart");
+			}
+		}
+	}
+
+	private MappedByteBuffer map(long segment, FileChannel.MapMode mode) throws IOException {
+		Path path = segmentPath(segment);
+		if (mode == FileChannel.MapMode.READ_ONLY) {
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				return channel.map(mode, 0, channel.size());
+			}
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			// the mapping outlives the channel, and a new file is extended to the segment size
+			return channel.map(mode, 0, Math.max(channel.size(), segmentSize()));
+		}
+	}
+
+	private long segmentSize() {
+		return HEADER_SIZE + (long) segmentRecords * RECORD_SIZE;
+	}
+
+	private Path segmentPath(long segment) {
+		return directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+	}
+}
@@ -0,0 +1,155 @@
+package tourGuide.repository;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.model.User;
+import tourGuide.model.UserPreferences;
+import tourGuide.model.UserReward;
+
+/**
+ * Binary form of the changes of one user: its profile, the visited locations added since the previous record
+ * and, when they changed, its rewards. Applying the records of a user in order rebuilds the user.
+ */
+class UserRecordCodec {
+	// markers for the fields that were null
+	private static final long NO_TIME = Long.MIN_VALUE;
+	private static final int UNCHANGED_REWARDS = -1;
+
+	// attraction ids change between runs of gpsUtil, rewards are matched to the attractions by name
+	private final Map<String, Attraction> attractionsByName = new HashMap<>();
+	private final BiFunction<UUID, String, User> userFactory;
+
+	/**
+	 * Constructs a UserRecordCodec.
+	 *
+	 * @param attractions The attractions the rewards are matched to, by name.
+	 * @param userFactory Creates the users met for the first time from their id and name.
+	 */
+	UserRecordCodec(List<Attraction> attractions, BiFunction<UUID, String, User> userFactory) {
+		attractions.forEach(attraction -> attractionsByName.put(attraction.attractionName, attraction));
+		this.userFactory = userFactory;
+	}
+
+	/**
+	 * Writes a record of the user.
+	 *
+	 * @param out          The output of the record.
+	 * @param user         The user.
+	 * @param newLocations The visited locations added since the previous record of the user.
+	 * @param rewards      The rewards of the user, or null if they did not change since the previous record.
+	 */
+	void write(DataOutput out, User user, List<VisitedLocation> newLocations, List<UserReward> rewards) throws IOException {
+		out.writeLong(user.getUserId().getMostSignificantBits());
+		out.writeLong(user.getUserId().getLeastSignificantBits());
+		out.writeUTF(user.getUserName());
+		writeNullableString(out, user.getPhoneNumber());
+		writeNullableString(out, user.getEmailAddress());
+		out.writeLong(user.getLatestLocationTimestamp() == null ? NO_TIME : user.getLatestLocationTimestamp().getTime());
+
+		UserPreferences preferences = user.getUserPreferences();
+		out.writeInt(preferences.getAttractionProximity());
+		out.writeUTF(preferences.getCurrency().getCurrencyCode());
+		out.writeInt(preferences.getLowerPricePoint().getNumber().intValue());
+		out.writeInt(preferences.getHighPricePoint().getNumber().intValue());
+		out.writeInt(preferences.getTripDuration());
+		out.writeInt(preferences.getTicketQuantity());
+		out.writeInt(preferences.getNumberOfAdults());
+		out.writeInt(preferences.getNumberOfChildren());
+
+		out.writeInt(newLocations.size());
+		for (VisitedLocation visitedLocation : newLocations) {
+			writeVisitedLocation(out, visitedLocation);
+		}
+
+		if (rewards == null) {
+			out.writeInt(UNCHANGED_REWARDS);
+			return;
+		}
+		out.writeInt(rewards.size());
+		for (UserReward reward : rewards) {
+			out.writeUTF(reward.getAttractionName());
+			writeVisitedLocation(out, reward.visitedLocation);
+			out.writeInt(reward.getRewardPoints());
+		}
+	}
+
+	/**
+	 * Reads a record and applies it to its user, creating the user if needed.
+	 *
+	 * @param in    The input positioned on a record.
+	 * @param users The users keyed by name.
+	 */
+	void apply(DataInput in, ConcurrentMap<String, User> users) throws IOException {
+		UUID userId = new UUID(in.readLong(), in.readLong());
+		String userName = in.readUTF();
+		User user = users.computeIfAbsent(userName, name -> userFactory.apply(userId, name));
+		user.setPhoneNumber(readNullableString(in));
+		user.setEmailAddress(readNullableString(in));
+		long latestLocationTimestamp = in.readLong();
+		user.setLatestLocationTimestamp(latestLocationTimestamp == NO_TIME ? null : new Date(latestLocationTimestamp));
+
+		UserPreferences preferences = new UserPreferences();
+		preferences.setAttractionProximity(in.readInt());
+		preferences.setCurrency(in.readUTF());
+		preferences.setLowerPricePoint(in.readInt());
+		preferences.setHighPricePoint(in.readInt());
+		preferences.setTripDuration(in.readInt());
+		preferences.setTicketQuantity(in.readInt());
+		preferences.setNumberOfAdults(in.readInt());
+		preferences.setNumberOfChildren(in.readInt());
+		user.setUserPreferences(preferences);
+
+		int locationCount = in.readInt();
+		for (int i = 0; i < locationCount; i++) {
+			user.addToVisitedLocations(readVisitedLocation(in, userId));
+		}
+
+		int rewardCount = in.readInt();
+		for (int i = 0; i < rewardCount; i++) {
+			Attraction attraction = attractionsByName.get(in.readUTF());
+			VisitedLocation visitedLocation = readVisitedLocation(in, userId);
+			int rewardPoints = in.readInt();
+			// an attraction that left the catalog can't be rewarded anymore
+			if (attraction != null) {
+				user.addUserReward(new UserReward(visitedLocation, attraction, rewardPoints));
+			}
+		}
+	}
+
+	private static void writeVisitedLocation(DataOutput out, VisitedLocation visitedLocation) throws IOException {
+		Location location = visitedLocation.location;
+		out.writeDouble(location == null ? Double.NaN : location.latitude);
+		out.writeDouble(location == null ? Double.NaN : location.longitude);
+		out.writeLong(visitedLocation.timeVisited == null ? NO_TIME : visitedLocation.timeVisited.getTime());
+	}
+
+	private static VisitedLocation readVisitedLocation(DataInput in, UUID userId) throws IOException {
+		double latitude = in.readDouble();
+		double longitude = in.readDouble();
+		long time = in.readLong();
+		return new VisitedLocation(userId,
+				Double.isNaN(latitude) ? null : new Location(latitude, longitude),
+				time == NO_TIME ? null : new Date(time));
+	}
+
+	private static void writeNullableString(DataOutput out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) out.writeUTF(value);
+	}
+
+	private static String readNullableString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
@@ -0,0 +1,114 @@
+package tourGuide.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import tourGuide.model.AttractionUserKey;
+
+/**
+ * Reward points client that answers from a {@link RewardPointsCache} and only forwards misses
+ * to the underlying gateway.
+ */
+public class CachingRewardPointsGateway implements IRewardPointsGateway {
+	private final IRewardPointsGateway delegate;
+	private final RewardPointsCache cache;
+
+	/**
+	 * Constructs a CachingRewardPointsGateway.
+	 *
+	 * @param delegate The gateway called on cache misses.
+	 * @param cache    The cache holding the reward points already looked up.
+	 */
+	public CachingRewardPointsGateway(IRewardPointsGateway delegate, RewardPointsCache cache) {
+		this.delegate = delegate;
+		this.cache = cache;
+	}
+
+	@Override
+	public CompletableFuture<Integer> getRewardPointsAsync(AttractionUserKey key) {
+		int cached = cache.get(key);
+		if (cached != RewardPointsCache.ABSENT) return CompletableFuture.completedFuture(cached);
+
+		return delegate.getRewardPointsAsync(key).thenApply(points -> {
+			cache.put(key, points);
+			return points;
+		});
+	}
+
+	@Override
+	public int getRewardPoints(AttractionUserKey key) {
+		int cached = cache.get(key);
+		if (cached != RewardPointsCache.ABSENT) return cached;
+
+		int points = delegate.getRewardPoints(key);
+		cache.put(key, points);
+		return points;
+	}
+
+	@Override
+	public Map<AttractionUserKey, Integer> getRewardPoints(Collection<AttractionUserKey> keys) {
+		Map<AttractionUserKey, Integer> rewardPoints = new HashMap<>();
+		List<AttractionUserKey> missing = collectCached(keys, rewardPoints);
+		if (missing.isEmpty()) return rewardPoints;
+
+		delegate.getRewardPoints(missing).forEach((key, points) -> {
+			cache.put(key, points);
+			rewardPoints.put(key, points);
+		});
+		return rewardPoints;
+	}
+
+	@Override
+	public CompletableFuture<Map<AttractionUserKey, Integer>> getRewardPointsAsync(Collection<AttractionUserKey> keys) {
+		Map<AttractionUserKey, Integer> rewardPoints = new HashMap<>();
+		List<AttractionUserKey> missing = collectCached(keys, rewardPoints);
+		if (missing.isEmpty()) return CompletableFuture.completedFuture(rewardPoints);
+
+		return delegate.getRewardPointsAsync(missing).thenApply(fetched -> {
+			fetched.forEach((key, points) -> {
+				cache.put(key, points);
+				rewardPoints.put(key, points);
+			});
+			return rewardPoints;
+		});
+	}
+
+	@Override
+	public void invalidateUser(UUID userId) {
+		cache.invalidateUser(userId);
+	}
+
+	/**
+	 * Puts the cached reward points of the keys in the map.
+	 *
+	 * @return The distinct keys missing from the cache.
+	 */
+	private List<AttractionUserKey> collectCached(Collection<AttractionUserKey> keys, Map<AttractionUserKey, Integer> rewardPoints) {
+		List<AttractionUserKey> missing = new ArrayList<>();
+		keys.forEach(key -> {
+			if (rewardPoints.containsKey(key)) return;
+			int cached = cache.get(key);
+			if (cached == RewardPointsCache.ABSENT) {
+				missing.add(key);
+			} else {
+				rewardPoints.put(key, cached);
+			}
+		});
+		return missing;
+	}
+
+	@Override
+	public int peekRewardPoints(AttractionUserKey key) {
+		return cache.peek(key);
+	}
+
+	@Override
+	public void shutdown() {
+		delegate.shutdown();
+	}
+}
@@ -0,0 +1,202 @@
+package tourGuide.service;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import tourGuide.metrics.TourGuideMetrics;
+import tourGuide.model.GeofenceEvent;
+import tourGuide.model.GeofenceEventType;
+import tourGuide.model.GeofenceListener;
+
+/**
+ * Detects users entering, dwelling in and leaving the area around each attraction.
+ * Each visited location is only compared with the attractions the attraction index finds within the radius
+ * and with the ones the user was already around. The events go through a lock-free queue to a single
+ * dispatching thread, so the tracking threads never wait on the listeners. When the queue is full,
+ * new events are dropped and counted, and no event is queued while there is no listener. Locations without
+ * a time can't be ordered with the others and are ignored.
+ */
+public class GeofenceService implements IGeofenceService {
+	public static final double DEFAULT_RADIUS_MILES = 10;
+	public static final long DEFAULT_DWELL_MILLIS = TimeUnit.MINUTES.toMillis(15);
+	public static final int DEFAULT_QUEUE_CAPACITY = 100_000;
+
+	private final Logger logger = LoggerFactory.getLogger(GeofenceService.class);
+	private final IRewardsService rewardsService;
+	private final double radiusMiles;
+	private final long dwellMillis;
+	private final int queueCapacity;
+	private final ConcurrentMap<UUID, Presences> presencesByUser = new ConcurrentHashMap<>();
+	private final Queue<GeofenceEvent> events = new ConcurrentLinkedQueue<>();
+	// ConcurrentLinkedQueue.size walks the whole queue
+	private final AtomicInteger queuedEvents = new AtomicInteger();
+	private final List<GeofenceListener> listeners = new CopyOnWriteArrayList<>();
+	private final Map<GeofenceEventType, Counter> eventCounters = new EnumMap<>(GeofenceEventType.class);
+	private final Counter droppedEvents;
+	private final Gauge queuedGauge;
+	private final Thread dispatcher;
+	private volatile boolean dispatcherWaiting;
+	private volatile boolean stop;
+
+	/**
+	 * Constructs a GeofenceService with the default radius, dwell time and queue capacity.
+	 *
+	 * @param rewardsService The service holding the attraction index.
+	 */
+	public GeofenceService(IRewardsService rewardsService) {
+		this(rewardsService, DEFAULT_RADIUS_MILES, DEFAULT_DWELL_MILLIS, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * Constructs a GeofenceService.
+	 *
+	 * @param rewardsService The service holding the attraction index.
+	 * @param radiusMiles    The radius of the area around each attraction, in statute miles.
+	 * @param dwellMillis    The time a user stays in an area before the dwell event, in milliseconds.
+	 * @param queueCapacity  The number of events waiting for the listeners above which new events are dropped.
+	 */
+	public GeofenceService(IRewardsService rewardsService, double radiusMiles, long dwellMillis, int queueCapacity) {
+		if (queueCapacity <= 0) throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+		this.rewardsService = rewardsService;
+		this.radiusMiles = radiusMiles;
+		this.dwellMillis = dwellMillis;
+		this.queueCapacity = queueCapacity;
+		for (GeofenceEventType type : GeofenceEventType.values()) {
+			eventCounters.put(type, TourGuideMetrics.counter(TourGuideMetrics.GEOFENCE_EVENTS, "type", type.name()));
+		}
+		this.droppedEvents = TourGuideMetrics.counter(TourGuideMetrics.GEOFENCE_DROPPED);
+		this.queuedGauge = TourGuideMetrics.gauge(TourGuideMetrics.GEOFENCE_QUEUED, queuedEvents, AtomicInteger::get);
+
+		this.dispatcher = new Thread(this::dispatch, "geofence-events");
+		dispatcher.setDaemon(true);
+		dispatcher.start();
+	}
+
+	@Override
+	public void onLocation(VisitedLocation visitedLocation) {
+		if (visitedLocation == null || visitedLocation.location == null || visitedLocation.timeVisited == null) return;
+		List<Attraction> nearbyAttractions = rewardsService.getAttractionIndex()
+				.withinRadius(visitedLocation.location, radiusMiles);
+		Presences presences = presencesByUser.computeIfAbsent(visitedLocation.userId, userId -> new Presences());
+		long time = visitedLocation.timeVisited.getTime();
+
+		synchronized (presences) {
+			if (time < presences.lastTime) return;
+			presences.lastTime = time;
+			long generation = ++presences.generation;
+
+			for (Attraction attraction : nearbyAttractions) {
+				Presence presence = presences.byAttraction.get(attraction.attractionId);
+				if (presence == null) {
+					presences.byAttraction.put(attraction.attractionId, new Presence(attraction, time, generation));
+					publish(new GeofenceEvent(visitedLocation.userId, attraction, GeofenceEventType.ENTER, visitedLocation));
+					continue;
+				}
+				presence.seenGeneration = generation;
+				if (!presence.dwelled && time - presence.enteredAt >= dwellMillis) {
+					presence.dwelled = true;
+					publish(new GeofenceEvent(visitedLocation.userId, attraction, GeofenceEventType.DWELL, visitedLocation));
+				}
+			}
+
+			// the areas not found around this location are the ones the user left
+			Iterator<Presence> iterator = presences.byAttraction.values().iterator();
+			while (iterator.hasNext()) {
+				Presence presence = iterator.next();
+				if (presence.seenGeneration == generation) continue;
+				iterator.remove();
+				publish(new GeofenceEvent(visitedLocation.userId, presence.attraction, GeofenceEventType.EXIT, visitedLocation));
+			}
+		}
+	}
+
+	@Override
+	public void subscribe(GeofenceListener listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public void unsubscribe(GeofenceListener listener) {
+		listeners.remove(listener);
+	}
+
+	@Override
+	public void shutdown() {
+		stop = true;
+		LockSupport.unpark(dispatcher);
+		TourGuideMetrics.remove(queuedGauge);
+	}
+
+	private void publish(GeofenceEvent event) {
+		if (listeners.isEmpty()) return;
+		if (queuedEvents.incrementAndGet() > queueCapacity) {
+			queuedEvents.decrementAndGet();
+			droppedEvents.increment();
+			return;
+		}
+		events.offer(event);
+		eventCounters.get(event.getType()).increment();
+		// the dispatcher sets the flag before checking the queue a last time, so either it sees the event or we see the flag
+		if (dispatcherWaiting) LockSupport.unpark(dispatcher);
+	}
+
+	private void dispatch() {
+		while (!stop) {
+			GeofenceEvent event = events.poll();
+			if (event == null) {
+				dispatcherWaiting = true;
+				if (events.isEmpty() && !stop) LockSupport.park(this);
+				dispatcherWaiting = false;
+				continue;
+			}
+			queuedEvents.decrementAndGet();
+			for (GeofenceListener listener : listeners) {
+				try {
+					listener.onEvent(event);
+				} catch (RuntimeException e) {
+					logger.warn("Geofence listener failed on " + event.getType() + " of user " + event.getUserId() + ": " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	// the areas a user is in, guarded by its own monitor
+	private static final class Presences {
+		private final Map<UUID, Presence> byAttraction = new HashMap<>();
+		private long lastTime = Long.MIN_VALUE;
+		private long generation;
+	}
+
+	private static final class Presence {
+		private final Attraction attraction;
+		private final long enteredAt;
+		// the last location that found the attraction around the user
+		private long seenGeneration;
+		private boolean dwelled;
+
+		private Presence(Attraction attraction, long enteredAt, long seenGeneration) {
+			this.attraction = attraction;
+			this.enteredAt = enteredAt;
+			this.seenGeneration = seenGeneration;
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package tourGuide.service;
+
+import gpsUtil.location.VisitedLocation;
+import tourGuide.model.GeofenceListener;
+
+/**
+ * Interface for the stage turning the tracked locations into geofence events around the attractions.
+ */
+public interface IGeofenceService {
+
+    /**
+     * Geofencing that never fires any event.
+     */
+    IGeofenceService DISABLED = new IGeofenceService() {
+        @Override
+        public void onLocation(VisitedLocation visitedLocation) {
+        }
+
+        @Override
+        public void subscribe(GeofenceListener listener) {
+        }
+
+        @Override
+        public void unsubscribe(GeofenceListener listener) {
+        }
+    };
+
+    /**
+     * Compares a new visited location with the attractions the user was around,
+     * and publishes the resulting enter, dwell and exit events.
+     * Locations older than the last one handled for the same user are ignored.
+     *
+     * @param visitedLocation The new visited location of a user.
+     */
+    void onLocation(VisitedLocation visitedLocation);
+
+    /**
+     * Registers a listener receiving every event published from now on.
+     *
+     * @param listener The listener.
+     */
+    void subscribe(GeofenceListener listener);
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener The listener.
+     */
+    void unsubscribe(GeofenceListener listener);
+
+    /**
+     * Stops dispatching the events, the ones still queued are dropped.
+     * Called by Spring when the application context closes.
+     */
+    default void shutdown() {
+    }
+}
@@ -0,0 +1,75 @@
+package tourGuide.service;
+
+import tourGuide.model.AttractionUserKey;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interface for the client that looks up attraction reward points from RewardCentral.
+ */
+public interface IRewardPointsGateway {
+
+    /**
+     * Looks up the reward points for the given attraction and user asynchronously.
+     * Concurrent lookups for the same key share a single upstream call.
+     *
+     * @param key The attraction and user to look up.
+     * @return A CompletableFuture that will complete with the reward points.
+     */
+    CompletableFuture<Integer> getRewardPointsAsync(AttractionUserKey key);
+
+    /**
+     * Looks up the reward points for the given attraction and user, waiting for the result.
+     *
+     * @param key The attraction and user to look up.
+     * @return The reward points.
+     */
+    int getRewardPoints(AttractionUserKey key);
+
+    /**
+     * Looks up the reward points for a batch of attractions and users.
+     * Duplicate keys are looked up once and the upstream calls run concurrently.
+     *
+     * @param keys The attractions and users to look up.
+     * @return A map of each distinct key to its reward points.
+     */
+    Map<AttractionUserKey, Integer> getRewardPoints(Collection<AttractionUserKey> keys);
+
+    /**
+     * Looks up the reward points for a batch of attractions and users asynchronously.
+     * Duplicate keys are looked up once and the upstream calls run concurrently.
+     *
+     * @param keys The attractions and users to look up.
+     * @return A CompletableFuture that will complete with a map of each distinct key to its reward points.
+     */
+    CompletableFuture<Map<AttractionUserKey, Integer>> getRewardPointsAsync(Collection<AttractionUserKey> keys);
+
+    /**
+     * Retrieves the reward points for the given attraction and user if they are at hand, without any upstream call.
+     *
+     * @param key The attraction and user to look up.
+     * @return The reward points, or {@link RewardPointsCache#ABSENT} if they are not cached.
+     */
+    default int peekRewardPoints(AttractionUserKey key) {
+        return RewardPointsCache.ABSENT;
+    }
+
+    /**
+     * Drops the reward points kept for the given user, so the next lookups go upstream.
+     * A gateway keeping nothing has nothing to drop.
+     *
+     * @param userId The id of the user.
+     */
+    default void invalidateUser(UUID userId) {
+    }
+
+    /**
+     * Releases the threads of the gateway, letting the lookups already started finish.
+     * Called by Spring when the application context closes.
+     */
+    default void shutdown() {
+    }
+}
@@ -3,8 +3,16 @@ package tourGuide.service;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
+import tourGuide.geo.AttractionIndex;
+import tourGuide.geo.DistanceMode;
+import tourGuide.model.AttractionUserKey;
 import tourGuide.model.User;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface for a RewardsService that handles the calculation of rewards for users based on their visited locations.
  */
@@ -22,17 +30,47 @@ public interface IRewardsService {
      */
     void setDefaultProximityBuffer();
 
+    /**
+     * Enables or disables the incremental mode, where each calculation only checks the visited locations
+     * added since the previous calculation for the user instead of the whole history.
+     *
+     * @param incrementalMode True to enable the incremental mode, false to check the whole history.
+     */
+    void setIncrementalMode(boolean incrementalMode);
+
+    /**
+     * Tells whether the incremental mode is enabled.
+     *
+     * @return True if each calculation only checks the visited locations added since the previous one.
+     */
+    boolean isIncrementalMode();
+
+    /**
+     * Selects the formula used for the distances, the exact haversine one or the faster equirectangular approximation.
+     *
+     * @param distanceMode The distance formula.
+     */
+    void setDistanceMode(DistanceMode distanceMode);
+
     /**
      * Calculates the rewards for a user based on their visited locations.
      *
      * @param user The User for which to calculate the rewards.
+     * @return A CompletableFuture that will complete once the rewards are added to the user.
      */
-    void calculateRewards(User user);
+    CompletableFuture<Void> calculateRewards(User user);
 
     /**
-     * Waits for the completion of the calculateRewards task.
-     * If the task does not complete within the given time,
-     * it shuts down the executor and interrupts the current thread.
+     * Calculates the rewards of several users.
+     *
+     * @param users The users for which to calculate the rewards.
+     * @return A CompletableFuture that will complete once the rewards of every user are added.
+     */
+    CompletableFuture<Void> calculateRewards(Collection<User> users);
+
+    /**
+     * Waits for the completion of every calculateRewards task submitted so far, for 15 minutes at most.
+     * The executor keeps on running, so rewards can be calculated again afterwards.
      */
     void awaitCalculateRewardsEnding();
 
@@ -64,7 +102,45 @@ public interface IRewardsService {
     int getRewardPoints(Attraction attraction, User user);
 
     /**
-     * Calculates the distance between two locations using the haversine formula.
+     * Calculates the reward points for a batch of attractions and users.
+     *
+     * @param keys The attractions and users for which to calculate the reward points.
+     * @return A map of each distinct attraction and user to its reward points.
+     */
+    Map<AttractionUserKey, Integer> getRewardPoints(Collection<AttractionUserKey> keys);
+
+    /**
+     * Calculates the reward points for a batch of attractions and users without waiting for the result.
+     *
+     * @param keys The attractions and users for which to calculate the reward points.
+     * @return A CompletableFuture that will complete with a map of each distinct attraction and user to its reward points.
+     */
+    CompletableFuture<Map<AttractionUserKey, Integer>> getRewardPointsAsync(Collection<AttractionUserKey> keys);
+
+    /**
+     * Retrieves the cached reward points for the given attraction and user, without calling RewardCentral.
+     *
+     * @param key The attraction and user to look up.
+     * @return The reward points, or {@link RewardPointsCache#ABSENT} if they are not cached.
+     */
+    int getCachedRewardPoints(AttractionUserKey key);
+
+    /**
+     * Drops the cached reward points of the given user, so the next lookups call RewardCentral again.
+     *
+     * @param userId The id of the user.
+     */
+    void invalidateRewardPoints(UUID userId);
+
+    /**
+     * Retrieves the spatial index built over the attraction catalog.
+     *
+     * @return The attraction index.
+     */
+    AttractionIndex getAttractionIndex();
+
+    /**
+     * Calculates the distance between two locations with the formula of the distance mode.
      *
      * @param loc1 The first location.
      * @param loc2 The second location.
@@ -8,8 +8,10 @@ import tripPricer.Provider;
 import tourGuide.model.User;
 import tourGuide.model.UserReward;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 public interface ITourGuideService {
@@ -30,6 +32,15 @@ public interface ITourGuideService {
      */
     VisitedLocation getUserLocation(User user);
 
+    /**
+     * Retrieves the current location of a user without waiting for GpsUtil.
+     *
+     * @param user The user for whom to retrieve the location.
+     * @return A CompletableFuture that will complete with the visited location of the user, already complete
+     * when the user has a last visited location.
+     */
+    CompletableFuture<VisitedLocation> getUserLocationAsync(User user);
+
     /**
      * Retrieves a user based on the username.
      *
@@ -45,6 +56,13 @@ public interface ITourGuideService {
      */
     List<User> getAllUsers();
 
+    /**
+     * Retrieves the users this node owns, the only ones it tracks when the users are split between several nodes.
+     *
+     * @return The list of the users owned by this node.
+     */
+    List<User> getLocalUsers();
+
     /**
      * Adds a new user.
      *
@@ -69,14 +87,30 @@ public interface ITourGuideService {
     CompletableFuture<VisitedLocation> trackUserLocation(User user);
 
     /**
-     * Waits for the completion of the track user task.
-     * If the task does not complete within the given time,
-     * it shuts down the executor and interrupts the current thread.
+     * Retrieves the loading of the users at startup: the creation of the internal users and the replay
+     * of the location journal, which may run in the background.
+     *
+     * @return A CompletableFuture that will complete once the users are loaded.
+     */
+    CompletableFuture<Void> whenReady();
+
+    /**
+     * Tracks the location of several users asynchronously.
+     *
+     * @param users The users for whom to track the location.
+     * @return A CompletableFuture that will complete once the location of every user is tracked.
+     */
+    CompletableFuture<Void> trackUsers(Collection<User> users);
+
+    /**
+     * Waits for the completion of every track user task submitted so far, for 15 minutes at most.
+     * The executor keeps on running, so users can be tracked again afterwards.
      */
     void awaitTrackUserEnding();
 
     /**
      * Retrieves nearby attractions for a user's visited location.
+     * The best ranked attractions within the attraction proximity of the user preferences are returned, best first.
      *
      * @param user             The user for whom to retrieve nearby attractions.
      * @param visitedLocation  The visited location of the user.
@@ -84,6 +118,38 @@ public interface ITourGuideService {
      */
     List<NearbyAttraction> getNearByAttractions(User user, VisitedLocation visitedLocation);
 
+    /**
+     * Retrieves nearby attractions for a user's visited location without waiting for RewardCentral.
+     *
+     * @param user             The user for whom to retrieve nearby attractions.
+     * @param visitedLocation  The visited location of the user.
+     * @return A CompletableFuture that will complete with the list of nearby attractions.
+     */
+    CompletableFuture<List<NearbyAttraction>> getNearByAttractionsAsync(User user, VisitedLocation visitedLocation);
+
+    /**
+     * Retrieves nearby attractions for the visited locations of several users at once.
+     * The reward points of every user are looked up in a single batch.
+     *
+     * @param visitedLocations The visited locations, at most one per user is used.
+     * @return A CompletableFuture that will complete with the nearby attractions by user id,
+     * users without location being left out.
+     */
+    CompletableFuture<Map<UUID, List<NearbyAttraction>>> getNearByAttractionsAsync(Collection<VisitedLocation> visitedLocations);
+
+    /**
+     * Retrieves nearby attractions for the visited locations of several users at once, within the attraction
+     * proximity of their preferences. Locations of users missing from the given users get no distance limit.
+     * The reward points of every user are looked up in a single batch.
+     *
+     * @param users            The users, whose preferences limit the distance of their attractions.
+     * @param visitedLocations The visited locations, at most one per user is used.
+     * @return A CompletableFuture that will complete with the nearby attractions by user id,
+     * users without location being left out.
+     */
+    CompletableFuture<Map<UUID, List<NearbyAttraction>>> getNearByAttractionsAsync(Collection<User> users,
+                                                                                  Collection<VisitedLocation> visitedLocations);
+
     /**
      * Retrieves the current locations of all users.
      *
@@ -91,6 +157,14 @@ public interface ITourGuideService {
      */
     Map<String, Location> getAllCurrentLocations();
 
+    /**
+     * Retrieves the index of the latest location of each user, kept up to date by the tracking.
+     * Unlike getAllCurrentLocations, reading it never waits for a user to be located.
+     *
+     * @return The latest location index.
+     */
+    LatestLocationIndex getLatestLocationIndex();
+
     /**
      * Updates the user preferences for a given user.
      *
@@ -0,0 +1,29 @@
+package tourGuide.service;
+
+import tourGuide.model.User;
+import tripPricer.Provider;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interface for the service that quotes trip deals from TripPricer.
+ */
+public interface ITripDealService {
+
+    /**
+     * Retrieves the trip deals matching the preferences and reward points of a user.
+     * Users with the same preferences and reward points share the quotes of a single TripPricer call.
+     *
+     * @param user The user for whom to retrieve trip deals.
+     * @return The list of trip deals, whose trip id is the user id.
+     */
+    List<Provider> getTripDeals(User user);
+
+    /**
+     * Retrieves the hit, miss and eviction counters of the quotes cache.
+     *
+     * @return The cache statistics by name.
+     */
+    Map<String, Long> getStats();
+}
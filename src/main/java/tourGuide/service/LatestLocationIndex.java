@@ -0,0 +1,75 @@
+package tourGuide.service;
+
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Latest visited location of each tracked user, sorted by user id so it can be read page by page.
+ * A version, bumped on every update, identifies the content of the index for ETags.
+ */
+public class LatestLocationIndex {
+	private final ConcurrentSkipListMap<UUID, VisitedLocation> latestLocations = new ConcurrentSkipListMap<>();
+	private final AtomicLong version = new AtomicLong();
+	// versions restart at 0 with the application, the start time keeps the ETags of two runs apart
+	private final long startTime = System.currentTimeMillis();
+	private volatile long lastModified = startTime;
+
+	/**
+	 * Records a visited location, unless the index already holds a more recent one for the user.
+	 *
+	 * @param visitedLocation The visited location, ignored if null or without location.
+	 */
+	public void update(VisitedLocation visitedLocation) {
+		if (visitedLocation == null || visitedLocation.location == null) return;
+		latestLocations.merge(visitedLocation.userId, visitedLocation,
+				(current, candidate) -> isBefore(candidate, current) ? current : candidate);
+		version.incrementAndGet();
+		lastModified = System.currentTimeMillis();
+	}
+
+	/**
+	 * Retrieves the latest visited location of a user.
+	 *
+	 * @param userId The id of the user.
+	 * @return The latest visited location, or null if the user was never located.
+	 */
+	public VisitedLocation get(UUID userId) {
+		return latestLocations.get(userId);
+	}
+
+	/**
+	 * Retrieves a live view of the latest locations of the users whose id follows the cursor.
+	 *
+	 * @param cursor The last user id of the previous page, or null to start from the first user.
+	 * @return The latest visited locations sorted by user id.
+	 */
+	public NavigableMap<UUID, VisitedLocation> after(UUID cursor) {
+		return cursor == null ? latestLocations : latestLocations.tailMap(cursor, false);
+	}
+
+	public int size() {
+		return latestLocations.size();
+	}
+
+	/**
+	 * Retrieves an ETag value that changes whenever a location of the index changes.
+	 *
+	 * @return The ETag value, without quotes.
+	 */
+	public String getETag() {
+		return Long.toHexString(startTime) + "-" + version.get();
+	}
+
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	private static boolean isBefore(VisitedLocation candidate, VisitedLocation current) {
+		return candidate.timeVisited != null && current.timeVisited != null
+				&& candidate.timeVisited.before(current.timeVisited);
+	}
+}
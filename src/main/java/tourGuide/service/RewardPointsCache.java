@@ -0,0 +1,266 @@
+package tourGuide.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import tourGuide.model.AttractionUserKey;
+
+/**
+ * Size-bounded reward points cache with time-based expiry.
+ * Keys are stored as the four longs of the attraction and user UUIDs in flat arrays, so an entry costs
+ * a few primitives instead of a map node and its key objects. The table is split into segments chosen by
+ * user id, so that all the entries of a user live in one segment and can be invalidated together, and each
+ * segment is a set-associative table: a key can only live in one of the {@value #WAYS} slots of its set, and
+ * the entry closest to expiry is evicted when the set is full.
+ */
+public class RewardPointsCache {
+	public static final int ABSENT = Integer.MIN_VALUE;
+	public static final int DEFAULT_MAXIMUM_SIZE = 500_000;
+	public static final long DEFAULT_TTL_MINUTES = 30;
+	private static final int WAYS = 4;
+	private static final int SEGMENTS = 64;
+
+	private final Segment[] segments = new Segment[SEGMENTS];
+	private final long ttlNanos;
+	private final LongSupplier ticker;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Constructs a RewardPointsCache with the default size and time to live.
+	 */
+	public RewardPointsCache() {
+		this(DEFAULT_MAXIMUM_SIZE, DEFAULT_TTL_MINUTES, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Constructs a RewardPointsCache.
+	 *
+	 * @param maximumSize The maximum number of entries kept.
+	 * @param ttl         How long an entry stays valid after it is written.
+	 * @param unit        The unit of the time to live.
+	 */
+	public RewardPointsCache(int maximumSize, long ttl, TimeUnit unit) {
+		this(maximumSize, unit.toNanos(ttl), System::nanoTime);
+	}
+
+	/**
+	 * Constructs a RewardPointsCache reading the time from the given ticker.
+	 *
+	 * @param maximumSize The maximum number of entries kept.
+	 * @param ttlNanos    How long an entry stays valid after it is written, in nanoseconds.
+	 * @param ticker      The source of the current time, in nanoseconds.
+	 */
+	public RewardPointsCache(int maximumSize, long ttlNanos, LongSupplier ticker) {
+		if (maximumSize <= 0) throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+		if (ttlNanos <= 0) throw new IllegalArgumentException("ttl must be positive: " + ttlNanos);
+		this.ttlNanos = ttlNanos;
+		this.ticker = ticker;
+		int setsPerSegment = Math.max(1, (int) Math.ceil((double) maximumSize / (SEGMENTS * WAYS)));
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment(setsPerSegment);
+		}
+	}
+
+	/**
+	 * Retrieves the cached reward points for the given attraction and user.
+	 *
+	 * @param key The attraction and user to look up.
+	 * @return The reward points, or {@link #ABSENT} if they are not cached or have expired.
+	 */
+	public int get(AttractionUserKey key) {
+		int points = peek(key);
+		if (points == ABSENT) {
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return points;
+	}
+
+	/**
+	 * Retrieves the cached reward points for the given attraction and user without counting a hit or a miss,
+	 * for callers that only use the points as a hint.
+	 *
+	 * @param key The attraction and user to look up.
+	 * @return The reward points, or {@link #ABSENT} if they are not cached or have expired.
+	 */
+	public int peek(AttractionUserKey key) {
+		UUID attractionId = key.getAttractionId();
+		UUID userId = key.getUserId();
+		return segmentFor(userId).get(attractionId.getMostSignificantBits(), attractionId.getLeastSignificantBits(),
+				userId.getMostSignificantBits(), userId.getLeastSignificantBits(), ticker.getAsLong());
+	}
+
+	/**
+	 * Stores the reward points for the given attraction and user.
+	 *
+	 * @param key    The attraction and user.
+	 * @param points The reward points.
+	 */
+	public void put(AttractionUserKey key, int points) {
+		UUID attractionId = key.getAttractionId();
+		UUID userId = key.getUserId();
+		segmentFor(userId).put(attractionId.getMostSignificantBits(), attractionId.getLeastSignificantBits(),
+				userId.getMostSignificantBits(), userId.getLeastSignificantBits(), points, ticker.getAsLong());
+	}
+
+	/**
+	 * Removes every cached entry of the given user.
+	 *
+	 * @param userId The id of the user.
+	 */
+	public void invalidateUser(UUID userId) {
+		segmentFor(userId).invalidateUser(userId.getMostSignificantBits(), userId.getLeastSignificantBits());
+	}
+
+	/**
+	 * Removes every cached entry.
+	 */
+	public void invalidateAll() {
+		for (Segment segment : segments) {
+			segment.invalidateAll();
+		}
+	}
+
+	/**
+	 * Retrieves the number of entries currently stored, including expired ones not yet overwritten.
+	 *
+	 * @return The number of stored entries.
+	 */
+	public long size() {
+		long size = 0;
+		for (Segment segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Retrieves the hit, miss and eviction counters of the cache.
+	 *
+	 * @return The cache statistics by name.
+	 */
+	public Map<String, Long> getStats() {
+		Map<String, Long> stats = new LinkedHashMap<>();
+		stats.put("hits", hits.sum());
+		stats.put("misses", misses.sum());
+		stats.put("evictions", evictions.sum());
+		stats.put("size", size());
+		return stats;
+	}
+
+	private Segment segmentFor(UUID userId) {
+		return segments[Math.floorMod(mix(userId.getMostSignificantBits() ^ userId.getLeastSignificantBits()), SEGMENTS)];
+	}
+
+	private static int mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		return (int) value;
+	}
+
+	private final class Segment {
+		private final int sets;
+		// per slot: attraction msb/lsb and user msb/lsb, laid out side by side
+		private final long[] keys;
+		private final int[] points;
+		private final long[] expiries;
+		private final boolean[] used;
+		private int size;
+
+		private Segment(int sets) {
+			this.sets = sets;
+			int slots = sets * WAYS;
+			this.keys = new long[slots * 4];
+			this.points = new int[slots];
+			this.expiries = new long[slots];
+			this.used = new boolean[slots];
+		}
+
+		private synchronized int get(long attractionMsb, long attractionLsb, long userMsb, long userLsb, long now) {
+			int slot = find(attractionMsb, attractionLsb, userMsb, userLsb);
+			if (slot < 0) return ABSENT;
+			if (expiries[slot] - now <= 0) {
+				clear(slot);
+				return ABSENT;
+			}
+			return points[slot];
+		}
+
+		private synchronized void put(long attractionMsb, long attractionLsb, long userMsb, long userLsb, int value, long now) {
+			int slot = find(attractionMsb, attractionLsb, userMsb, userLsb);
+			if (slot < 0) {
+				slot = victim(firstSlot(attractionMsb, attractionLsb, userMsb, userLsb), now);
+				int offset = slot * 4;
+				keys[offset] = attractionMsb;
+				keys[offset + 1] = attractionLsb;
+				keys[offset + 2] = userMsb;
+				keys[offset + 3] = userLsb;
+				used[slot] = true;
+				size++;
+			}
+			points[slot] = value;
+			expiries[slot] = now + ttlNanos;
+		}
+
+		private synchronized void invalidateUser(long userMsb, long userLsb) {
+			for (int slot = 0; slot < used.length; slot++) {
+				if (used[slot] && keys[slot * 4 + 2] == userMsb && keys[slot * 4 + 3] == userLsb) clear(slot);
+			}
+		}
+
+		private synchronized void invalidateAll() {
+			for (int slot = 0; slot < used.length; slot++) {
+				if (used[slot]) clear(slot);
+			}
+		}
+
+		private synchronized int size() {
+			return size;
+		}
+
+		private int find(long attractionMsb, long attractionLsb, long userMsb, long userLsb) {
+			int first = firstSlot(attractionMsb, attractionLsb, userMsb, userLsb);
+			for (int slot = first; slot < first + WAYS; slot++) {
+				int offset = slot * 4;
+				if (used[slot] && keys[offset] == attractionMsb && keys[offset + 1] == attractionLsb
+						&& keys[offset + 2] == userMsb && keys[offset + 3] == userLsb) {
+					return slot;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Picks the slot of the set to write to: a free one if any, else the one closest to expiry.
+		 * Replacing an entry that has not expired yet counts as an eviction.
+		 */
+		private int victim(int first, long now) {
+			int victim = first;
+			for (int slot = first; slot < first + WAYS; slot++) {
+				if (!used[slot]) return slot;
+				if (expiries[slot] - expiries[victim] < 0) victim = slot;
+			}
+			if (expiries[victim] - now > 0) evictions.increment();
+			clear(victim);
+			return victim;
+		}
+
+		private void clear(int slot) {
+			used[slot] = false;
+			size--;
+		}
+
+		private int firstSlot(long attractionMsb, long attractionLsb, long userMsb, long userLsb) {
+			int hash = mix(attractionMsb ^ attractionLsb ^ Long.rotateLeft(userMsb ^ userLsb, 17));
+			return Math.floorMod(hash, sets) * WAYS;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package tourGuide.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+
+import rewardCentral.RewardCentral;
+import tourGuide.concurrent.ExecutionMode;
+import tourGuide.concurrent.ServiceExecutors;
+import tourGuide.concurrent.UpstreamLimiter;
+import tourGuide.metrics.TourGuideMetrics;
+import tourGuide.model.AttractionUserKey;
+
+/**
+ * Client in front of RewardCentral that dedupes in-flight lookups for the same attraction and user
+ * and caps the number of concurrent upstream calls.
+ */
+public class RewardPointsGateway implements IRewardPointsGateway {
+	public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 400;
+	private static final String POOL_NAME = "reward-central";
+	private final RewardCentral rewardCentral;
+	private final ConcurrentMap<AttractionUserKey, CompletableFuture<Integer>> inFlight = new ConcurrentHashMap<>();
+	private final UpstreamLimiter rewardCentralLimiter;
+	final ExecutorService executor;
+
+	/**
+	 * Constructs a RewardPointsGateway with the default concurrency limit.
+	 *
+	 * @param rewardCentral The RewardCentral dependency.
+	 */
+	public RewardPointsGateway(RewardCentral rewardCentral) {
+		this(rewardCentral, DEFAULT_MAX_CONCURRENT_REQUESTS);
+	}
+
+	/**
+	 * Constructs a RewardPointsGateway.
+	 *
+	 * @param rewardCentral         The RewardCentral dependency.
+	 * @param maxConcurrentRequests The maximum number of calls to RewardCentral running at the same time.
+	 */
+	public RewardPointsGateway(RewardCentral rewardCentral, int maxConcurrentRequests) {
+		this(rewardCentral, maxConcurrentRequests, ExecutionMode.PLATFORM);
+	}
+
+	/**
+	 * Constructs a RewardPointsGateway running the upstream calls in the given execution mode.
+	 *
+	 * @param rewardCentral         The RewardCentral dependency.
+	 * @param maxConcurrentRequests The maximum number of calls to RewardCentral running at the same time.
+	 * @param executionMode         The kind of threads running the calls.
+	 */
+	public RewardPointsGateway(RewardCentral rewardCentral, int maxConcurrentRequests, ExecutionMode executionMode) {
+		if (maxConcurrentRequests <= 0) {
+			throw new IllegalArgumentException("maxConcurrentRequests must be positive: " + maxConcurrentRequests);
+		}
+		this.rewardCentral = rewardCentral;
+		this.rewardCentralLimiter = new UpstreamLimiter("RewardCentral", maxConcurrentRequests);
+		this.executor = ServiceExecutors.newExecutor(executionMode, maxConcurrentRequests, POOL_NAME);
+	}
+
+	@Override
+	public CompletableFuture<Integer> getRewardPointsAsync(AttractionUserKey key) {
+		CompletableFuture<Integer> future = inFlight.computeIfAbsent(key, k -> CompletableFuture.supplyAsync(
+				() -> rewardCentralLimiter.call(() -> rewardCentral.getAttractionRewardPoints(k.getAttractionId(), k.getUserId())),
+				executor));
+		// once answered, the next lookup for this key goes upstream again
+		future.whenComplete((points, throwable) -> inFlight.remove(key, future));
+		return future;
+	}
+
+	@Override
+	public int getRewardPoints(AttractionUserKey key) {
+		return getRewardPointsAsync(key).join();
+	}
+
+	@Override
+	public Map<AttractionUserKey, Integer> getRewardPoints(Collection<AttractionUserKey> keys) {
+		return getRewardPointsAsync(keys).join();
+	}
+
+	@Override
+	public CompletableFuture<Map<AttractionUserKey, Integer>> getRewardPointsAsync(Collection<AttractionUserKey> keys) {
+		// start every lookup before waiting on any of them
+		Map<AttractionUserKey, CompletableFuture<Integer>> futures = new HashMap<>();
+		keys.forEach(key -> futures.computeIfAbsent(key, this::getRewardPointsAsync));
+
+		return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+			Map<AttractionUserKey, Integer> rewardPoints = new HashMap<>();
+			futures.forEach((key, future) -> rewardPoints.put(key, future.join()));
+			return rewardPoints;
+		});
+	}
+
+	@Override
+	public void shutdown() {
+		executor.shutdown();
+		rewardCentralLimiter.shutdown();
+		TourGuideMetrics.unmonitor(POOL_NAME);
+	}
+}
@@ -1,42 +1,97 @@
 package tourGuide.service;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.*;
+import java.util.stream.Collectors;
 
-import org.springframework.stereotype.Service;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import io.micrometer.core.instrument.Timer;
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
+import tourGuide.concurrent.ExecutionConfig;
+import tourGuide.concurrent.UserTaskExecutor;
+import tourGuide.geo.AttractionIndex;
+import tourGuide.geo.DistanceEngine;
+import tourGuide.geo.DistanceMode;
+import tourGuide.geo.GeoPoint;
+import tourGuide.metrics.TourGuideMetrics;
+import tourGuide.model.AttractionUserKey;
 import tourGuide.model.User;
 import tourGuide.model.UserReward;
 
 /**
  * Service class that handles the calculation of rewards for users based on their visited locations.
+ * Declared as a bean by TourGuideModule, which configures it, rather than component-scanned.
  */
-@Service
 public class RewardsService implements IRewardsService{
-    private static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
+	private final Logger logger = LoggerFactory.getLogger(RewardsService.class);
 	// proximity in miles
     private int defaultProximityBuffer = 10;
 	public int proximityBuffer = defaultProximityBuffer;
 	private int attractionProximityRange = 200;
+	private volatile boolean incrementalMode = true;
 	private final GpsUtil gpsUtil;
-	private final RewardCentral rewardsCentral;
-	final ExecutorService executor = Executors.newFixedThreadPool(400);
+	private final IRewardPointsGateway rewardPointsGateway;
+	// gateway built by this service rather than handed to it, shut down with it
+	private final boolean ownsRewardPointsGateway;
+	// rebuilt with the distance engine when the distance mode changes
+	private volatile AttractionIndex attractionIndex;
+	private final UserTaskExecutor<Void> rewardsTasks;
+	private final long shutdownGraceSeconds;
+	private final Timer calculationTimer = TourGuideMetrics.timer(TourGuideMetrics.REWARDS_CALCULATION,
+			TourGuideMetrics.REWARDS_CALCULATION_RANGE);
 
 	/**
-	 * Constructs a RewardsService with the given dependencies.
+	 * Constructs a RewardsService with the given dependencies, looking up the reward points through its own
+	 * gateway, which {@link #shutdown()} stops too.
 	 *
 	 * @param gpsUtil        The GpsUtil dependency.
 	 * @param rewardCentral  The RewardCentral dependency.
 	 */
 	public RewardsService(GpsUtil gpsUtil, RewardCentral rewardCentral) {
+		this(gpsUtil, new CachingRewardPointsGateway(new RewardPointsGateway(rewardCentral), new RewardPointsCache()),
+				new ExecutionConfig(), true);
+	}
+
+	/**
+	 * Constructs a RewardsService with the given dependencies.
+	 *
+	 * @param gpsUtil             The GpsUtil dependency.
+	 * @param rewardPointsGateway The client used to look up reward points.
+	 */
+	public RewardsService(GpsUtil gpsUtil, IRewardPointsGateway rewardPointsGateway) {
+		this(gpsUtil, rewardPointsGateway, new ExecutionConfig());
+	}
+
+	/**
+	 * Constructs a RewardsService with the given dependencies.
+	 *
+	 * @param gpsUtil             The GpsUtil dependency.
+	 * @param rewardPointsGateway The client used to look up reward points.
+	 * @param executionConfig     The execution mode and pool size of the rewards calculation.
+	 */
+	public RewardsService(GpsUtil gpsUtil, IRewardPointsGateway rewardPointsGateway, ExecutionConfig executionConfig) {
+		this(gpsUtil, rewardPointsGateway, executionConfig, false);
+	}
+
+	private RewardsService(GpsUtil gpsUtil, IRewardPointsGateway rewardPointsGateway, ExecutionConfig executionConfig,
+						   boolean ownsRewardPointsGateway) {
 		this.gpsUtil = gpsUtil;
-		this.rewardsCentral = rewardCentral;
+		this.rewardPointsGateway = rewardPointsGateway;
+		this.ownsRewardPointsGateway = ownsRewardPointsGateway;
+		this.rewardsTasks = new UserTaskExecutor<>(executionConfig.getMode(), executionConfig.getRewardsThreads(),
+				executionConfig.getRewardsQueueCapacity(), executionConfig.getRewardsRejectionPolicy(), "rewards");
+		this.shutdownGraceSeconds = executionConfig.getShutdownGraceSeconds();
+		this.attractionIndex = new AttractionIndex(gpsUtil.getAttractions());
 	}
 
 	@Override
@@ -50,64 +105,140 @@ public class RewardsService implements IRewardsService{
 	}
 
 	@Override
-	public void calculateRewards(User user) {
-		CompletableFuture.runAsync(() -> {
-			List<VisitedLocation> userLocations = new ArrayList<>(user.getVisitedLocations());
-			List<Attraction> attractions = gpsUtil.getAttractions();
+	public void setIncrementalMode(boolean incrementalMode) {
+		this.incrementalMode = incrementalMode;
+	}
+
+	@Override
+	public boolean isIncrementalMode() {
+		return incrementalMode;
+	}
+
+	@Override
+	public void setDistanceMode(DistanceMode distanceMode) {
+		if (attractionIndex.getDistanceEngine().getMode() == distanceMode) return;
+		attractionIndex = new AttractionIndex(attractionIndex.getAttractions(), new DistanceEngine(distanceMode));
+	}
 
-			// Iterate over each visited location
+	@Override
+	public CompletableFuture<Void> calculateRewards(User user) {
+		// timed from the submission, so the wait in the executor queue is included
+		Timer.Sample sample = Timer.start(TourGuideMetrics.registry());
+		return rewardsTasks.submit(user.getUserId(), () -> {
+			// In incremental mode only the locations added since the previous calculation are checked,
+			// the watermark only moves once their rewards are added so a failed lookup is retried next time
+			List<VisitedLocation> userLocations = new ArrayList<>();
+			long rewardedPosition = incrementalMode ?
+					user.collectLocationsToReward(userLocations) :
+					user.collectVisitedLocationsSince(0, userLocations);
+
+			// Pair each attraction near one of the visited locations with a location that reached it
+			Map<Attraction, VisitedLocation> nearbyAttractions = new ConcurrentHashMap<>();
 			userLocations.parallelStream().forEach(visitedLocation -> {
-				// Filter attractions to find the ones near the visited location
-				attractions.parallelStream().filter(attraction -> nearAttraction(visitedLocation, attraction))
-						.forEach(attraction -> {
-							// Add a new UserReward to the user for the visited location and attraction
-							// using the getRewardPoints() method to calculate the reward points
-							user.addUserReward(new UserReward(visitedLocation, attraction, getRewardPoints(attraction, user)));
-						});
+				// Look up only the attractions within the proximity buffer of the visited location
+				attractionIndex.withinRadius(visitedLocation.location, proximityBuffer).stream()
+						// Attractions already rewarded will not be rewarded again
+						.filter(attraction -> !user.hasRewardFor(attraction.attractionId))
+						.forEach(attraction -> nearbyAttractions.putIfAbsent(attraction, visitedLocation));
 			});
+			if (nearbyAttractions.isEmpty()) {
+				user.markLocationsRewarded(rewardedPosition);
+				return null;
+			}
+
+			// Fetch the reward points of all the nearby attractions in a single batch
+			Map<AttractionUserKey, Integer> rewardPoints = getRewardPoints(nearbyAttractions.keySet().stream()
+					.map(attraction -> new AttractionUserKey(attraction.attractionId, user.getUserId()))
+					.collect(Collectors.toList()));
+
+			// Add a new UserReward to the user for each visited location and attraction
+			nearbyAttractions.forEach((attraction, visitedLocation) -> user.addUserReward(new UserReward(visitedLocation,
+					attraction, rewardPoints.get(new AttractionUserKey(attraction.attractionId, user.getUserId())))));
+			user.markLocationsRewarded(rewardedPosition);
+			return null;
+		}).whenComplete((done, throwable) -> sample.stop(calculationTimer));
+	}
 
-		}, executor);
+	@Override
+	public CompletableFuture<Void> calculateRewards(Collection<User> users) {
+		return CompletableFuture.allOf(users.stream()
+				.map(this::calculateRewards)
+				.toArray(CompletableFuture<?>[]::new));
 	}
 
 	@Override
 	public void awaitCalculateRewardsEnding() {
 		try {
-			executor.shutdown();
-			executor.awaitTermination(15, TimeUnit.MINUTES);
+			if (!rewardsTasks.awaitIdle(15, TimeUnit.MINUTES)) {
+				logger.warn(rewardsTasks.getPendingTasks() + " reward calculations still pending after 15 minutes");
+			}
 		} catch (InterruptedException e) {
-			executor.shutdownNow();
 			Thread.currentThread().interrupt();
 		}
 	}
 
+	/**
+	 * Stops the rewards pool, giving the calculations already submitted the shutdown grace period to finish,
+	 * then the reward points gateway if this service built it. Called by Spring when the application context closes.
+	 */
+	public void shutdown() {
+		rewardsTasks.shutdown(shutdownGraceSeconds, TimeUnit.SECONDS);
+		if (ownsRewardPointsGateway) {
+			rewardPointsGateway.shutdown();
+		}
+	}
+
 	@Override
 	public boolean isWithinAttractionProximity(Attraction attraction, Location location) {
-		return getDistance(attraction, location) > attractionProximityRange ? false : true;
+		AttractionIndex index = attractionIndex;
+		return index.getDistanceEngine().isWithin(index.pointOf(attraction), GeoPoint.of(location), attractionProximityRange);
 	}
 
 	@Override
 	public boolean nearAttraction(VisitedLocation visitedLocation, Attraction attraction) {
-		return getDistance(attraction, visitedLocation.location) > proximityBuffer ? false : true;
+		AttractionIndex index = attractionIndex;
+		return index.getDistanceEngine().isWithin(index.pointOf(attraction), GeoPoint.of(visitedLocation.location), proximityBuffer);
 	}
 
 	@Override
 	public int getRewardPoints(Attraction attraction, User user) {
-		return rewardsCentral.getAttractionRewardPoints(attraction.attractionId, user.getUserId());
+		return rewardPointsGateway.getRewardPoints(new AttractionUserKey(attraction.attractionId, user.getUserId()));
 	}
 
 	@Override
-	public double getDistance(Location loc1, Location loc2) {
-        double lat1 = Math.toRadians(loc1.latitude);
-        double lon1 = Math.toRadians(loc1.longitude);
-        double lat2 = Math.toRadians(loc2.latitude);
-        double lon2 = Math.toRadians(loc2.longitude);
+	public Map<AttractionUserKey, Integer> getRewardPoints(Collection<AttractionUserKey> keys) {
+		return rewardPointsGateway.getRewardPoints(keys);
+	}
+
+	@Override
+	public CompletableFuture<Map<AttractionUserKey, Integer>> getRewardPointsAsync(Collection<AttractionUserKey> keys) {
+		return rewardPointsGateway.getRewardPointsAsync(keys);
+	}
 
-        double angle = Math.acos(Math.sin(lat1) * Math.sin(lat2)
-                               + Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
+	@Override
+	public int getCachedRewardPoints(AttractionUserKey key) {
+		return rewardPointsGateway.peekRewardPoints(key);
+	}
+
+	@Override
+	public void invalidateRewardPoints(UUID userId) {
+		rewardPointsGateway.invalidateUser(userId);
+	}
+
+	@Override
+	public AttractionIndex getAttractionIndex() {
+		return attractionIndex;
+	}
+
+	@Override
+	public double getDistance(Location loc1, Location loc2) {
+		AttractionIndex index = attractionIndex;
+		return index.getDistanceEngine().statuteMiles(pointOf(index, loc1), pointOf(index, loc2));
+	}
 
-        double nauticalMiles = 60 * Math.toDegrees(angle);
-        double statuteMiles = STATUTE_MILES_PER_NAUTICAL_MILE * nauticalMiles;
-        return statuteMiles;
+	// attractions get the point computed by the index
+	private static GeoPoint pointOf(AttractionIndex index, Location location) {
+		return location instanceof Attraction ? index.pointOf((Attraction) location) : GeoPoint.of(location);
 	}
 
 }
@@ -1,24 +1,39 @@
 package tourGuide.service;
 
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import org.mapstruct.factory.Mappers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
+import tourGuide.cluster.Partitioner;
+import tourGuide.concurrent.ExecutionConfig;
+import tourGuide.concurrent.UserTaskExecutor;
+import tourGuide.concurrent.UpstreamLimiter;
 import tourGuide.dto.UserPreferencesDTO;
 import tourGuide.helper.InternalTestHelper;
+import tourGuide.helper.InternalUserSeeder;
 import tourGuide.model.*;
+import tourGuide.ranking.AttractionRanker;
+import tourGuide.ranking.RankedAttraction;
+import tourGuide.ranking.RankingConfig;
+import tourGuide.repository.ILocationJournal;
+import tourGuide.repository.IUserRepository;
+import tourGuide.repository.InMemoryUserRepository;
 import tourGuide.tracker.Tracker;
+import tourGuide.tracker.TrackerConfig;
 import tripPricer.Provider;
 import tripPricer.TripPricer;
 
@@ -29,24 +44,106 @@ public class TourGuideService implements ITourGuideService {
 	private final MapstructMapper mapper = Mappers.getMapper(MapstructMapper.class);
 	private final GpsUtil gpsUtil;
 	private final RewardsService rewardsService;
-	private final TripPricer tripPricer = new TripPricer();
+	private final ITripDealService tripDealService;
+	private final IUserRepository userRepository;
+	private final ILocationJournal locationJournal;
+	private final IGeofenceService geofenceService;
+	private final Partitioner partitioner;
+	private final AttractionRanker attractionRanker;
+	private final LatestLocationIndex latestLocations = new LatestLocationIndex();
 	public final Tracker tracker;
 	boolean testMode = true;
 
-	final ExecutorService executor = Executors.newFixedThreadPool(200);
+	private final UserTaskExecutor<VisitedLocation> trackingTasks;
+	private final long shutdownGraceSeconds;
+	private final UpstreamLimiter gpsUtilLimiter;
+	// completes once the users are loaded
+	private final CompletableFuture<Void> ready;
 
 	public TourGuideService(GpsUtil gpsUtil, RewardsService rewardsService) {
+		this(gpsUtil, rewardsService, new TrackerConfig());
+	}
+
+	public TourGuideService(GpsUtil gpsUtil, RewardsService rewardsService, TrackerConfig trackerConfig) {
+		this(gpsUtil, rewardsService, trackerConfig, new ExecutionConfig());
+	}
+
+	public TourGuideService(GpsUtil gpsUtil, RewardsService rewardsService, TrackerConfig trackerConfig,
+							ExecutionConfig executionConfig) {
+		this(gpsUtil, rewardsService, new TripDealService(new TripPricer()), new InMemoryUserRepository(), ILocationJournal.DISABLED,
+				IGeofenceService.DISABLED, Partitioner.singleNode(), new RankingConfig(), trackerConfig, executionConfig);
+	}
+
+	@Autowired
+	public TourGuideService(GpsUtil gpsUtil, RewardsService rewardsService, ITripDealService tripDealService,
+							IUserRepository userRepository, ILocationJournal locationJournal, IGeofenceService geofenceService,
+							Partitioner partitioner, RankingConfig rankingConfig, TrackerConfig trackerConfig, ExecutionConfig executionConfig) {
 		this.gpsUtil = gpsUtil;
 		this.rewardsService = rewardsService;
-		
-		if(testMode) {
-			logger.info("TestMode enabled");
-			logger.debug("Initializing users");
-			initializeInternalUsers();
-			logger.debug("Finished initializing users");
+		this.tripDealService = tripDealService;
+		this.userRepository = userRepository;
+		this.locationJournal = locationJournal;
+		this.geofenceService = geofenceService;
+		this.partitioner = partitioner;
+		this.attractionRanker = new AttractionRanker(rewardsService, rankingConfig);
+		this.trackingTasks = new UserTaskExecutor<>(executionConfig.getMode(), executionConfig.getTrackingThreads(),
+				executionConfig.getTrackingQueueCapacity(), executionConfig.getTrackingRejectionPolicy(), "tracking");
+		this.shutdownGraceSeconds = executionConfig.getShutdownGraceSeconds();
+		this.gpsUtilLimiter = new UpstreamLimiter("GpsUtil", executionConfig.getGpsUtilMaxConcurrentCalls());
+		this.ready = loadUsers(executionConfig.isBackgroundUserSeeding());
+		tracker = new Tracker(this, trackerConfig);
+		// the tracker picks the new partition up on its next cycle, users are kept on every node
+		partitioner.addRebalanceListener(() -> logger.info("Now tracking " + getLocalUsers().size() + " of "
+				+ userRepository.findAll().size() + " users on " + partitioner.getLocalNode()));
+	}
+
+	/**
+	 * Creates the internal users and replays the location journal, on a background thread if asked,
+	 * so that a large user base does not hold up the startup of the application.
+	 */
+	private CompletableFuture<Void> loadUsers(boolean background) {
+		Runnable loadUsers = () -> {
+			// users kept by the store get their locations back before the new ones are seeded and journaled,
+			// users of a store kept in memory are seeded again on each start and only get the journaled ones
+			boolean persistent = userRepository.isPersistent();
+			if (persistent) {
+				locationJournal.replay(userRepository.findAll());
+			}
+			if(testMode) {
+				logger.info("TestMode enabled");
+				logger.debug("Initializing users");
+				initializeInternalUsers(persistent ? locationJournal : ILocationJournal.DISABLED);
+				logger.debug("Finished initializing users");
+			}
+			if (!persistent) {
+				locationJournal.replay(userRepository.findAll());
+			}
+			userRepository.findAll().forEach(user -> latestLocations.update(user.getLastVisitedLocation()));
+		};
+		if (!background) {
+			loadUsers.run();
+			return CompletableFuture.completedFuture(null);
 		}
-		tracker = new Tracker(this);
-		addShutDownHook();
+
+		CompletableFuture<Void> loaded = new CompletableFuture<>();
+		Thread thread = new Thread(() -> {
+			try {
+				loadUsers.run();
+				loaded.complete(null);
+			} catch (RuntimeException e) {
+				logger.error("Could not load the users", e);
+				loaded.completeExceptionally(e);
+			}
+		}, "user-seeding");
+		thread.setDaemon(true);
+		thread.start();
+		return loaded;
+	}
+
+	@Override
+	public CompletableFuture<Void> whenReady() {
+		// a copy, so that callers cannot complete it
+		return ready.thenApply(Function.identity());
 	}
 
 	@Override
@@ -56,40 +153,46 @@ public class TourGuideService implements ITourGuideService {
 
 	@Override
 	public VisitedLocation getUserLocation(User user) {
-			VisitedLocation visitedLocation = (user.getVisitedLocations().size() > 0) ?
-					user.getLastVisitedLocation() :
-					trackUserLocation(user).join();
-			return visitedLocation;
+		return getUserLocationAsync(user).join();
+	}
+
+	@Override
+	public CompletableFuture<VisitedLocation> getUserLocationAsync(User user) {
+		VisitedLocation lastVisitedLocation = user.getLastVisitedLocation();
+		return (lastVisitedLocation != null) ?
+				CompletableFuture.completedFuture(lastVisitedLocation) :
+				trackUserLocation(user);
 	}
 
 	@Override
 	public User getUser(String userName) {
-		return internalUserMap.get(userName);
+		return userRepository.findByUserName(userName);
 	}
 
 	@Override
 	public List<User> getAllUsers() {
-		return internalUserMap.values().stream().collect(Collectors.toList());
+		return userRepository.findAll();
+	}
+
+	@Override
+	public List<User> getLocalUsers() {
+		return userRepository.findAll().stream()
+				.filter(user -> partitioner.isLocal(user.getUserName()))
+				.collect(Collectors.toList());
 	}
 
 	@Override
 	public void addUser(User user) {
-		if(!internalUserMap.containsKey(user.getUserName())) {
-			internalUserMap.put(user.getUserName(), user);
+		if (userRepository.add(user)) {
+			// the locations the user came with, which the user store does not keep when the journal is enabled
+			user.getVisitedLocations().forEach(locationJournal::append);
+			latestLocations.update(user.getLastVisitedLocation());
 		}
 	}
 
 	@Override
 	public List<Provider> getTripDeals(User user) {
-		int cumulativeRewardPoints = user.getUserRewards()
-				.stream().mapToInt(i -> i.getRewardPoints()).sum();
-		List<Provider> providers = tripPricer.getPrice(
-				tripPricerApiKey,
-				user.getUserId(),
-				user.getUserPreferences().getNumberOfAdults(),
-				user.getUserPreferences().getNumberOfChildren(),
-				user.getUserPreferences().getTripDuration(),
-				cumulativeRewardPoints);
+		List<Provider> providers = tripDealService.getTripDeals(user);
 		user.setTripDeals(providers);
 		return providers;
 	}
@@ -98,56 +201,116 @@ public class TourGuideService implements ITourGuideService {
 	public CompletableFuture<VisitedLocation> trackUserLocation(User user) {
 		Locale.setDefault(Locale.US);
 
-		return CompletableFuture
-				.supplyAsync(() -> {
-					VisitedLocation visitedLocation = gpsUtil.getUserLocation(user.getUserId());
-					user.addToVisitedLocations(visitedLocation);
-					rewardsService.calculateRewards(user);
-					return visitedLocation;
-				}, executor);
+		return trackingTasks.submit(user.getUserId(), () -> {
+			VisitedLocation visitedLocation = gpsUtilLimiter.call(() -> gpsUtil.getUserLocation(user.getUserId()));
+			user.addToVisitedLocations(visitedLocation);
+			locationJournal.append(visitedLocation);
+			latestLocations.update(visitedLocation);
+			geofenceService.onLocation(visitedLocation);
+			userRepository.save(user);
+			rewardsService.calculateRewards(user).thenRun(() -> userRepository.save(user));
+			return visitedLocation;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> trackUsers(Collection<User> users) {
+		return CompletableFuture.allOf(users.stream()
+				.map(this::trackUserLocation)
+				.toArray(CompletableFuture<?>[]::new));
 	}
 
 	@Override
 	public void awaitTrackUserEnding() {
 		try {
-			executor.shutdown();
-			executor.awaitTermination(15, TimeUnit.MINUTES);
+			if (!trackingTasks.awaitIdle(15, TimeUnit.MINUTES)) {
+				logger.warn(trackingTasks.getPendingTasks() + " location updates still pending after 15 minutes");
+			}
 		} catch (InterruptedException e) {
-			executor.shutdownNow();
 			Thread.currentThread().interrupt();
 		}
 	}
 
+	/**
+	 * Stops the tracker and the tracking pool when the application context closes.
+	 * Location updates already submitted are given the shutdown grace period to finish.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		tracker.stopTracking();
+		trackingTasks.shutdown(shutdownGraceSeconds, TimeUnit.SECONDS);
+		gpsUtilLimiter.shutdown();
+	}
+
 	@Override
 	public List<NearbyAttraction> getNearByAttractions(User user, VisitedLocation visitedLocation) {
-		List<NearbyAttraction> nearbyAttractionsList = new ArrayList<>();
+		return getNearByAttractionsAsync(user, visitedLocation).join();
+	}
 
+	@Override
+	public CompletableFuture<List<NearbyAttraction>> getNearByAttractionsAsync(User user, VisitedLocation visitedLocation) {
 		// Check if User or visited location is null
-		if (visitedLocation.location == null) return nearbyAttractionsList;
-
-		// Iterate over attractions and calculate distance and reward points
-		gpsUtil.getAttractions().forEach(attraction -> {
-			Location attractionLocation = new Location(attraction.latitude, attraction.longitude);
-			double distance = rewardsService.getDistance(attractionLocation, visitedLocation.location);
-			int rewardPoints = rewardsService.getRewardPoints(attraction, user);
-
-			// Create a NearbyAttraction object and add it to the list
-			NearbyAttraction nearbyAttraction = new NearbyAttraction(
-					attraction.attractionName,
-					attractionLocation,
-					visitedLocation.location,
-					distance,
-					rewardPoints
-			);
-
-			nearbyAttractionsList.add(nearbyAttraction);
+		if (visitedLocation.location == null) return CompletableFuture.completedFuture(new ArrayList<>());
+
+		return getNearByAttractionsAsync(Collections.singletonList(user), Collections.singletonList(
+				new VisitedLocation(user.getUserId(), visitedLocation.location, visitedLocation.timeVisited)))
+				.thenApply(nearbyAttractionsByUser -> nearbyAttractionsByUser.get(user.getUserId()));
+	}
+
+	@Override
+	public CompletableFuture<Map<UUID, List<NearbyAttraction>>> getNearByAttractionsAsync(Collection<VisitedLocation> visitedLocations) {
+		return getNearByAttractionsAsync(Collections.emptyList(), visitedLocations);
+	}
+
+	@Override
+	public CompletableFuture<Map<UUID, List<NearbyAttraction>>> getNearByAttractionsAsync(Collection<User> users,
+			Collection<VisitedLocation> visitedLocations) {
+		Map<UUID, UserPreferences> preferencesByUser = new HashMap<>();
+		users.forEach(user -> preferencesByUser.put(user.getUserId(), user.getUserPreferences()));
+
+		// Rank the attractions of each location from the cached reward points only,
+		// then fetch the reward points of the picked attractions of every user in a single batch
+		Map<UUID, VisitedLocation> locationsByUser = new LinkedHashMap<>();
+		Map<UUID, List<RankedAttraction>> rankedAttractionsByUser = new HashMap<>();
+		List<AttractionUserKey> keys = new ArrayList<>();
+		visitedLocations.forEach(visitedLocation -> {
+			if (visitedLocation.location == null || locationsByUser.putIfAbsent(visitedLocation.userId, visitedLocation) != null) return;
+			UserPreferences preferences = preferencesByUser.get(visitedLocation.userId);
+			// a proximity of 0, sent by the clients updating their preferences without it, sets no limit
+			double maxDistanceMiles = (preferences != null && preferences.getAttractionProximity() > 0) ?
+					preferences.getAttractionProximity() : Double.POSITIVE_INFINITY;
+			List<RankedAttraction> rankedAttractions = attractionRanker.rank(visitedLocation.userId,
+					visitedLocation.location, maxDistanceMiles);
+			rankedAttractionsByUser.put(visitedLocation.userId, rankedAttractions);
+			rankedAttractions.forEach(ranked -> keys.add(new AttractionUserKey(ranked.getAttraction().attractionId, visitedLocation.userId)));
 		});
 
-		// Sort attractions by distance, limit to top 5, and return the list
-		return nearbyAttractionsList.stream()
-				.sorted(Comparator.comparing(NearbyAttraction::getDistance))
-				.limit(5)
-				.collect(Collectors.toList());
+		return rewardsService.getRewardPointsAsync(keys).thenApply(rewardPointsByAttraction -> {
+			Map<UUID, List<NearbyAttraction>> nearbyAttractionsByUser = new LinkedHashMap<>();
+			locationsByUser.forEach((userId, visitedLocation) -> {
+				List<NearbyAttraction> nearbyAttractionsList = new ArrayList<>();
+
+				// Keep the order of the ranking
+				rankedAttractionsByUser.get(userId).forEach(ranked -> {
+					Attraction attraction = ranked.getAttraction();
+					int rewardPoints = rewardPointsByAttraction.get(new AttractionUserKey(attraction.attractionId, userId));
+
+					// Create a NearbyAttraction object and add it to the list
+					NearbyAttraction nearbyAttraction = new NearbyAttraction(
+							attraction.attractionName,
+							new Location(attraction.latitude, attraction.longitude),
+							visitedLocation.location,
+							ranked.getDistance(),
+							rewardPoints
+					);
+
+					nearbyAttractionsList.add(nearbyAttraction);
+				});
+
+				nearbyAttractionsByUser.put(userId, nearbyAttractionsList);
+			});
+			return nearbyAttractionsByUser;
+		});
 	}
 
 	@Override
@@ -158,62 +321,41 @@ public class TourGuideService implements ITourGuideService {
 		return allUsersLocation;
 	}
 
+	@Override
+	public LatestLocationIndex getLatestLocationIndex() {
+		return latestLocations;
+	}
+
+	/**
+	 * Retrieves the rewards service used to calculate the rewards of the tracked users.
+	 *
+	 * @return The rewards service.
+	 */
+	public RewardsService getRewardsService() {
+		return rewardsService;
+	}
+
 	@Override
 	public UserPreferencesDTO updateUserPreferences(User user, UserPreferencesDTO userPreferencesDTO) {
 		UserPreferences userPreferences = mapper.userPreferencesDTOToUserPreferences(userPreferencesDTO);
 		user.setUserPreferences(userPreferences);
+		userRepository.save(user);
+		// the profile of the user changed, its points are looked up again instead of waiting for the cache TTL
+		rewardsService.invalidateRewardPoints(user.getUserId());
 		UserPreferencesDTO userPreferencesUpdated = mapper.userPreferencesToUserPreferencesDTO(user.getUserPreferences());
 		return userPreferencesUpdated;
 	}
 
-	private void addShutDownHook() {
-		Runtime.getRuntime().addShutdownHook(new Thread(tracker::stopTracking));
-	}
-	
 	/**********************************************************************************
 	 * 
 	 * Methods Below: For Internal Testing
 	 * 
 	 **********************************************************************************/
-	private static final String tripPricerApiKey = "test-server-api-key";
-	// Database connection will be used for external users, but for testing purposes internal users are provided and stored in memory
-	private final Map<String, User> internalUserMap = new HashMap<>();
-
-	private void initializeInternalUsers() {
-		IntStream.range(0, InternalTestHelper.getInternalUserNumber()).forEach(i -> {
-			String userName = "internalUser" + i;
-			String phone = "000";
-			String email = userName + "@tourGuide.com";
-			User user = new User(UUID.randomUUID(), userName, phone, email);
-			generateUserLocationHistory(user);
-			
-			internalUserMap.put(userName, user);
-		});
-		logger.debug("Created " + InternalTestHelper.getInternalUserNumber() + " internal test users.");
-	}
-
-
-	public void generateUserLocationHistory(User user) {
-		IntStream.range(0, 3).forEach(i-> {
-			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(generateRandomLatitude(), generateRandomLongitude()), getRandomTime()));
-		});
-	}
-	
-	public double generateRandomLongitude() {
-		double leftLimit = -180;
-	    double rightLimit = 180;
-	    return leftLimit + new Random().nextDouble() * (rightLimit - leftLimit);
-	}
-	
-	public double generateRandomLatitude() {
-		double leftLimit = -85.05112878;
-	    double rightLimit = 85.05112878;
-	    return leftLimit + new Random().nextDouble() * (rightLimit - leftLimit);
-	}
-	
-	public Date getRandomTime() {
-		LocalDateTime localDateTime = LocalDateTime.now().minusDays(new Random().nextInt(30));
-	    return Date.from(localDateTime.toInstant(ZoneOffset.UTC));
+	// internal users already in the repository, restored from a previous run, are kept as they are,
+	// the locations of the new ones are appended to the given journal
+	private void initializeInternalUsers(ILocationJournal seededLocationJournal) {
+		int added = new InternalUserSeeder(userRepository, seededLocationJournal)
+				.seed(InternalTestHelper.getInternalUserNumber(), InternalTestHelper.getUserIdSeed());
+		logger.debug("Created " + added + " internal test users.");
 	}
-	
 }
@@ -0,0 +1,173 @@
+package tourGuide.service;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.Timer;
+import tourGuide.metrics.TourGuideMetrics;
+import tourGuide.model.TripQuery;
+import tourGuide.model.User;
+import tourGuide.model.UserPreferences;
+import tripPricer.Provider;
+import tripPricer.TripPricer;
+
+/**
+ * Quotes trip deals from TripPricer, keeping the quotes of each {@link TripQuery} for a short time.
+ * The first request for a query calls TripPricer and the concurrent identical requests wait for its answer
+ * instead of calling TripPricer too. A failed call is not cached, the next request retries it.
+ */
+public class TripDealService implements ITripDealService {
+	public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+	public static final long DEFAULT_TTL_SECONDS = 60;
+	private static final String TRIP_PRICER_API_KEY = "test-server-api-key";
+
+	private final TripPricer tripPricer;
+	private final int maximumSize;
+	private final long ttlNanos;
+	private final LongSupplier ticker;
+	private final ConcurrentMap<TripQuery, Quote> quotes = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final Timer tripPricerTimer = TourGuideMetrics.timer(TourGuideMetrics.UPSTREAM_CALLS,
+			TourGuideMetrics.UPSTREAM_RANGE, TourGuideMetrics.UPSTREAM_TAG, "TripPricer");
+
+	/**
+	 * Constructs a TripDealService with the default cache size and time to live.
+	 *
+	 * @param tripPricer The TripPricer dependency.
+	 */
+	public TripDealService(TripPricer tripPricer) {
+		this(tripPricer, DEFAULT_MAXIMUM_SIZE, DEFAULT_TTL_SECONDS, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Constructs a TripDealService.
+	 *
+	 * @param tripPricer  The TripPricer dependency.
+	 * @param maximumSize The number of queries above which quotes are dropped, the expired ones first.
+	 * @param ttl         How long quotes are reused after they are requested.
+	 * @param unit        The unit of the time to live.
+	 */
+	public TripDealService(TripPricer tripPricer, int maximumSize, long ttl, TimeUnit unit) {
+		this(tripPricer, maximumSize, unit.toNanos(ttl), System::nanoTime);
+	}
+
+	/**
+	 * Constructs a TripDealService reading the time from the given ticker.
+	 *
+	 * @param tripPricer  The TripPricer dependency.
+	 * @param maximumSize The number of queries above which quotes are dropped, the expired ones first.
+	 * @param ttlNanos    How long quotes are reused after they are requested, in nanoseconds.
+	 * @param ticker      The source of the current time, in nanoseconds.
+	 */
+	public TripDealService(TripPricer tripPricer, int maximumSize, long ttlNanos, LongSupplier ticker) {
+		if (maximumSize <= 0) throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+		if (ttlNanos <= 0) throw new IllegalArgumentException("ttl must be positive: " + ttlNanos);
+		this.tripPricer = tripPricer;
+		this.maximumSize = maximumSize;
+		this.ttlNanos = ttlNanos;
+		this.ticker = ticker;
+	}
+
+	@Override
+	public List<Provider> getTripDeals(User user) {
+		UserPreferences preferences = user.getUserPreferences();
+		TripQuery query = new TripQuery(preferences.getNumberOfAdults(), preferences.getNumberOfChildren(),
+				preferences.getTripDuration(), user.getCumulativeRewardPoints());
+
+		long now = ticker.getAsLong();
+		CompletableFuture<List<Provider>> created = new CompletableFuture<>();
+		Quote quote = quotes.compute(query, (key, current) ->
+				current == null || current.isExpired(now) ? new Quote(created, now + ttlNanos) : current);
+
+		if (quote.providers == created) {
+			misses.increment();
+			if (quotes.size() > maximumSize) {
+				evict(now);
+			}
+			try {
+				created.complete(tripPricerTimer.record(() -> tripPricer.getPrice(TRIP_PRICER_API_KEY, user.getUserId(),
+						query.getNumberOfAdults(), query.getNumberOfChildren(), query.getTripDuration(), query.getRewardPoints())));
+			} catch (RuntimeException e) {
+				quotes.remove(query, quote);
+				created.completeExceptionally(e);
+			}
+		} else {
+			hits.increment();
+		}
+
+		List<Provider> providers;
+		try {
+			providers = quote.providers.join();
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+		}
+		// the quotes may come from the call of another user
+		return providers.stream()
+				.map(provider -> provider.tripId.equals(user.getUserId()) ?
+						provider :
+						new Provider(user.getUserId(), provider.name, provider.price))
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public Map<String, Long> getStats() {
+		Map<String, Long> stats = new LinkedHashMap<>();
+		stats.put("hits", hits.sum());
+		stats.put("misses", misses.sum());
+		stats.put("evictions", evictions.sum());
+		stats.put("size", (long) quotes.size());
+		return stats;
+	}
+
+	/**
+	 * Drops the expired quotes then, if the cache is still above its maximum size, the answered quotes
+	 * expiring first until it is back to that size, so that the cache stays bounded whatever the number of
+	 * distinct queries.
+	 */
+	private void evict(long now) {
+		quotes.forEach((query, quote) -> {
+			if (quote.isExpired(now) && quotes.remove(query, quote)) evictions.increment();
+		});
+		int excess = quotes.size() - maximumSize;
+		if (excess <= 0) return;
+		// the excess answered quotes expiring first, the one expiring last at the head
+		PriorityQueue<Map.Entry<TripQuery, Quote>> expiringFirst = new PriorityQueue<>(excess + 1,
+				Comparator.comparingLong((Map.Entry<TripQuery, Quote> entry) -> entry.getValue().expiresAt - now).reversed());
+		for (Map.Entry<TripQuery, Quote> entry : quotes.entrySet()) {
+			if (!entry.getValue().providers.isDone()) continue;
+			expiringFirst.add(entry);
+			if (expiringFirst.size() > excess) expiringFirst.poll();
+		}
+		for (Map.Entry<TripQuery, Quote> entry : expiringFirst) {
+			if (quotes.remove(entry.getKey(), entry.getValue())) evictions.increment();
+		}
+	}
+
+	private static final class Quote {
+		private final CompletableFuture<List<Provider>> providers;
+		private final long expiresAt;
+
+		private Quote(CompletableFuture<List<Provider>> providers, long expiresAt) {
+			this.providers = providers;
+			this.expiresAt = expiresAt;
+		}
+
+		// a quote still being requested is shared whatever its age
+		private boolean isExpired(long now) {
+			return providers.isDone() && now - expiresAt >= 0;
+		}
+	}
+}
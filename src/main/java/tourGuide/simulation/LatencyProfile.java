@@ -0,0 +1,131 @@
+package tourGuide.simulation;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and failures of a simulated upstream call.
+ * A call waits baseMillis plus a uniform jitter in [0, jitterMillis], or tailMillis for a tailRate share of the calls,
+ * then fails for an errorRate share of the calls.
+ */
+public class LatencyProfile {
+	public static final LatencyProfile NONE = new LatencyProfile(0, 0, 0, 0, 0);
+
+	private final long baseMillis;
+	private final long jitterMillis;
+	private final long tailMillis;
+	private final double tailRate;
+	private final double errorRate;
+
+	public LatencyProfile(long baseMillis, long jitterMillis, long tailMillis, double tailRate, double errorRate) {
+		if (baseMillis < 0 || jitterMillis < 0 || tailMillis < 0) {
+			throw new IllegalArgumentException("Latencies must not be negative");
+		}
+		if (tailRate < 0 || tailRate > 1 || errorRate < 0 || errorRate > 1) {
+			throw new IllegalArgumentException("Rates must be between 0 and 1");
+		}
+		this.baseMillis = baseMillis;
+		this.jitterMillis = jitterMillis;
+		this.tailMillis = tailMillis;
+		this.tailRate = tailRate;
+		this.errorRate = errorRate;
+	}
+
+	/**
+	 * Parses a profile such as "base=30,jitter=70,tail=2000,tail-rate=0.01,error-rate=0.001".
+	 * Missing keys are 0 and an empty value is {@link #NONE}.
+	 *
+	 * @param value The profile as written in application.properties.
+	 * @return The parsed profile.
+	 */
+	public static LatencyProfile parse(String value) {
+		long base = 0;
+		long jitter = 0;
+		long tail = 0;
+		double tailRate = 0;
+		double errorRate = 0;
+		for (String entry : value.split(",")) {
+			if (entry.trim().isEmpty()) {
+				continue;
+			}
+			String[] keyValue = entry.split("=", 2);
+			if (keyValue.length != 2) {
+				throw new IllegalArgumentException("Invalid latency profile entry: " + entry);
+			}
+			String number = keyValue[1].trim();
+			switch (keyValue[0].trim()) {
+				case "base":
+					base = Long.parseLong(number);
+					break;
+				case "jitter":
+					jitter = Long.parseLong(number);
+					break;
+				case "tail":
+					tail = Long.parseLong(number);
+					break;
+				case "tail-rate":
+					tailRate = Double.parseDouble(number);
+					break;
+				case "error-rate":
+					errorRate = Double.parseDouble(number);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown latency profile key: " + keyValue[0]);
+			}
+		}
+		return new LatencyProfile(base, jitter, tail, tailRate, errorRate);
+	}
+
+	/**
+	 * Draws the delay of one call.
+	 *
+	 * @param random The generator of the call.
+	 * @return The delay in milliseconds.
+	 */
+	public long sampleDelayMillis(SplittableRandom random) {
+		double tailDraw = random.nextDouble();
+		long jitter = jitterMillis > 0 ? random.nextLong(jitterMillis + 1) : 0;
+		return tailDraw < tailRate ? tailMillis : baseMillis + jitter;
+	}
+
+	/**
+	 * Waits for the delay of one call, then throws if the call is drawn as failed.
+	 *
+	 * @param random   The generator of the call.
+	 * @param upstream The name of the simulated upstream, for the exception message.
+	 */
+	public void simulate(SplittableRandom random, String upstream) {
+		long delay = sampleDelayMillis(random);
+		boolean failed = random.nextDouble() < errorRate;
+		if (delay > 0) {
+			try {
+				TimeUnit.MILLISECONDS.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (failed) {
+			throw new SimulatedUpstreamException(upstream);
+		}
+	}
+
+	public long getBaseMillis() {
+		return baseMillis;
+	}
+
+	public long getJitterMillis() {
+		return jitterMillis;
+	}
+
+	public long getTailMillis() {
+		return tailMillis;
+	}
+
+	public double getTailRate() {
+		return tailRate;
+	}
+
+	public double getErrorRate() {
+		return errorRate;
+	}
+}
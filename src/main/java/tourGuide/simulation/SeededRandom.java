@@ -0,0 +1,32 @@
+package tourGuide.simulation;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Derives a random generator from a seed and the inputs of a call, so a simulated call returns the same
+ * values whatever the thread or the order it runs in.
+ */
+final class SeededRandom {
+
+	private SeededRandom() {
+	}
+
+	static SplittableRandom of(long seed, long salt, UUID id, long... parts) {
+		long hash = mix(seed ^ mix(salt));
+		hash = mix(hash ^ mix(id.getMostSignificantBits()));
+		hash = mix(hash ^ mix(id.getLeastSignificantBits()));
+		for (long part : parts) {
+			hash = mix(hash ^ mix(part));
+		}
+		return new SplittableRandom(hash);
+	}
+
+	// SplitMix64 finalizer
+	private static long mix(long z) {
+		z += 0x9e3779b97f4a7c15L;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
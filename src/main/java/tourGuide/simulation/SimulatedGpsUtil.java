@@ -0,0 +1,80 @@
+package tourGuide.simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * GpsUtil whose locations only depend on the seed, the user and how many times the user was located.
+ * The time of the visited locations is read from a clock, which a replay can drive itself.
+ */
+public class SimulatedGpsUtil extends GpsUtil {
+	private static final long SALT = 1;
+	private static final double MAX_LATITUDE = 85.05112878;
+	private static final double MAX_LONGITUDE = 180;
+
+	private final long seed;
+	private final LatencyProfile latency;
+	private final LongSupplier clock;
+	private final List<Attraction> attractions;
+	// number of locations already returned per user
+	private final ConcurrentMap<UUID, AtomicLong> callCounts = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructs a SimulatedGpsUtil serving the attractions of gpsUtil.
+	 *
+	 * @param seed    The seed of the simulated locations.
+	 * @param latency The latency of getUserLocation.
+	 */
+	public SimulatedGpsUtil(long seed, LatencyProfile latency) {
+		this(seed, latency, System::currentTimeMillis);
+	}
+
+	/**
+	 * Constructs a SimulatedGpsUtil serving the attractions of gpsUtil and reading the time from the given clock.
+	 *
+	 * @param seed    The seed of the simulated locations.
+	 * @param latency The latency of getUserLocation.
+	 * @param clock   The source of the time of the visited locations, in epoch milliseconds.
+	 */
+	public SimulatedGpsUtil(long seed, LatencyProfile latency, LongSupplier clock) {
+		this.seed = seed;
+		this.latency = latency;
+		this.clock = clock;
+		// gpsUtil creates new attraction ids on each call, the catalog is read once to keep them stable
+		this.attractions = Collections.unmodifiableList(new ArrayList<>(super.getAttractions()));
+	}
+
+	@Override
+	public VisitedLocation getUserLocation(UUID userId) {
+		long call = callCounts.computeIfAbsent(userId, id -> new AtomicLong()).getAndIncrement();
+		SplittableRandom random = SeededRandom.of(seed, SALT, userId, call);
+		latency.simulate(random.split(), "GpsUtil");
+
+		double latitude = round(random.nextDouble(-MAX_LATITUDE, MAX_LATITUDE));
+		double longitude = round(random.nextDouble(-MAX_LONGITUDE, MAX_LONGITUDE));
+		return new VisitedLocation(userId, new Location(latitude, longitude), new Date(clock.getAsLong()));
+	}
+
+	@Override
+	public List<Attraction> getAttractions() {
+		return new ArrayList<>(attractions);
+	}
+
+	// gpsUtil returns coordinates with 6 decimals
+	private static double round(double coordinate) {
+		return Math.round(coordinate * 1_000_000d) / 1_000_000d;
+	}
+}
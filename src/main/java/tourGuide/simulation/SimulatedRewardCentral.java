@@ -0,0 +1,44 @@
+package tourGuide.simulation;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import gpsUtil.location.Attraction;
+import rewardCentral.RewardCentral;
+
+/**
+ * RewardCentral whose points only depend on the seed, the attraction and the user.
+ */
+public class SimulatedRewardCentral extends RewardCentral {
+	private static final long SALT = 2;
+
+	private final long seed;
+	private final LatencyProfile latency;
+	// attraction ids change between runs, their names don't
+	private final Map<UUID, Long> attractionKeys = new HashMap<>();
+
+	/**
+	 * Constructs a SimulatedRewardCentral.
+	 *
+	 * @param seed        The seed of the simulated points.
+	 * @param latency     The latency of getAttractionRewardPoints.
+	 * @param attractions The attractions served by gpsUtil.
+	 */
+	public SimulatedRewardCentral(long seed, LatencyProfile latency, List<Attraction> attractions) {
+		this.seed = seed;
+		this.latency = latency;
+		attractions.forEach(attraction -> attractionKeys.put(attraction.attractionId, (long) attraction.attractionName.hashCode()));
+	}
+
+	@Override
+	public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+		Long attractionKey = attractionKeys.get(attractionId);
+		long key = attractionKey != null ? attractionKey : attractionId.getMostSignificantBits() ^ attractionId.getLeastSignificantBits();
+		SplittableRandom random = SeededRandom.of(seed, SALT, userId, key);
+		latency.simulate(random.split(), "RewardCentral");
+		return random.nextInt(1, 1000);
+	}
+}
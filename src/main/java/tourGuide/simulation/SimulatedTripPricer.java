@@ -0,0 +1,57 @@
+package tourGuide.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import tripPricer.Provider;
+import tripPricer.TripPricer;
+
+/**
+ * TripPricer whose deals only depend on the seed and the request, priced like TripPricer does.
+ */
+public class SimulatedTripPricer extends TripPricer {
+	private static final long SALT = 3;
+	private static final int PROVIDERS_PER_REQUEST = 5;
+	private static final String[] PROVIDER_NAMES = {
+			"Holiday Travels", "Enterprize Ventures Limited", "Sunny Days", "FlyAway Trips", "United Partners Vacations",
+			"Dream Trips", "Live Free", "Dancing Waves Cruselines and Partners", "AdventureCo"
+	};
+
+	private final long seed;
+	private final LatencyProfile latency;
+
+	/**
+	 * Constructs a SimulatedTripPricer.
+	 *
+	 * @param seed    The seed of the simulated deals.
+	 * @param latency The latency of getPrice.
+	 */
+	public SimulatedTripPricer(long seed, LatencyProfile latency) {
+		this.seed = seed;
+		this.latency = latency;
+	}
+
+	@Override
+	public List<Provider> getPrice(String apiKey, UUID tripId, int adults, int children, int nightsStay, int rewardsPoints) {
+		SplittableRandom random = SeededRandom.of(seed, SALT, tripId, adults, children, nightsStay, rewardsPoints);
+		latency.simulate(random.split(), "TripPricer");
+
+		// partial shuffle, so the providers of a request are distinct
+		String[] names = PROVIDER_NAMES.clone();
+		List<Provider> providers = new ArrayList<>(PROVIDERS_PER_REQUEST);
+		for (int i = 0; i < PROVIDERS_PER_REQUEST; i++) {
+			int picked = i + random.nextInt(names.length - i);
+			String name = names[picked];
+			names[picked] = names[i];
+			names[i] = name;
+
+			int multiple = random.nextInt(100, 700);
+			double childrenShare = children / 3;
+			double price = Math.max(0, multiple * adults + multiple * childrenShare * nightsStay + 0.99 - rewardsPoints);
+			providers.add(new Provider(tripId, name, price));
+		}
+		return providers;
+	}
+}
@@ -0,0 +1,11 @@
+package tourGuide.simulation;
+
+/**
+ * Thrown by a simulated upstream call drawn as failed by its {@link LatencyProfile}.
+ */
+public class SimulatedUpstreamException extends RuntimeException {
+
+	public SimulatedUpstreamException(String upstream) {
+		super("Simulated failure of " + upstream);
+	}
+}
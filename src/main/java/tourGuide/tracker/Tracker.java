@@ -1,28 +1,70 @@
 package tourGuide.tracker;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 
-import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import tourGuide.metrics.TourGuideMetrics;
 import tourGuide.service.TourGuideService;
 import tourGuide.model.User;
 
+/**
+ * Tracks the location of every user owned by this node once per polling interval.
+ * At the start of each cycle the users are split into hash-based shards, in a single pass, and each shard gets
+ * its own slice of the interval, so the location updates are spread evenly instead of being submitted all at once.
+ * Users added or moved to this node during a cycle are picked up by the next one. A shard is dispatched
+ * with a bounded number of updates in flight, and users whose previous update is still running are skipped.
+ */
 public class Tracker extends Thread {
 	private Logger logger = LoggerFactory.getLogger(Tracker.class);
-	private static final long trackingPollingInterval = TimeUnit.MINUTES.toSeconds(5);
 	private final ExecutorService executorService = Executors.newSingleThreadExecutor();
 	private final TourGuideService tourGuideService;
-	private boolean stop = false;
+	private final long trackingPollingIntervalMillis;
+	private final int shardCount;
+	private final Semaphore inFlightPermits;
+	private final Set<UUID> inFlightUsers = ConcurrentHashMap.newKeySet();
+	// delay between the planned and the actual end of the last dispatch of each shard
+	private final AtomicLongArray shardLagsMillis;
+	private final AtomicLongArray shardSkippedUsers;
+	private final Timer sweepTimer = TourGuideMetrics.timer(TourGuideMetrics.TRACKER_SWEEP,
+			TourGuideMetrics.TRACKER_SWEEP_RANGE);
+	private final Timer shardDispatchTimer = TourGuideMetrics.timer(TourGuideMetrics.TRACKER_SHARD_DISPATCH,
+			TourGuideMetrics.TRACKER_SHARD_DISPATCH_RANGE);
+	private final Gauge lagGauge;
+	private volatile boolean stop = false;
 
 	public Tracker(TourGuideService tourGuideService) {
+		this(tourGuideService, new TrackerConfig());
+	}
+
+	public Tracker(TourGuideService tourGuideService, TrackerConfig trackerConfig) {
+		if (trackerConfig.getShardCount() <= 0 || trackerConfig.getMaxInFlight() <= 0) {
+			throw new IllegalArgumentException("shardCount and maxInFlight must be positive: " + trackerConfig);
+		}
 		this.tourGuideService = tourGuideService;
-		
+		this.trackingPollingIntervalMillis = TimeUnit.SECONDS.toMillis(trackerConfig.getTrackingPollingInterval());
+		this.shardCount = trackerConfig.getShardCount();
+		this.inFlightPermits = new Semaphore(trackerConfig.getMaxInFlight());
+		this.shardLagsMillis = new AtomicLongArray(shardCount);
+		this.shardSkippedUsers = new AtomicLongArray(shardCount);
+		this.lagGauge = TourGuideMetrics.gauge(TourGuideMetrics.TRACKER_LAG, BaseUnits.MILLISECONDS, this,
+				tracker -> Arrays.stream(tracker.getShardLagsMillis()).max().orElse(0));
+
 		executorService.submit(this);
 	}
 	
@@ -32,33 +74,120 @@ public class Tracker extends Thread {
 	public void stopTracking() {
 		stop = true;
 		executorService.shutdownNow();
+		TourGuideMetrics.remove(lagGauge);
 	}
-	
+
+	/**
+	 * Retrieves how late each shard finished its last dispatch compared to the end of its slice.
+	 * A lag that keeps growing means the tracker cannot keep up with the polling interval.
+	 *
+	 * @return The lag of each shard in milliseconds, indexed by shard.
+	 */
+	public long[] getShardLagsMillis() {
+		long[] lags = new long[shardCount];
+		for (int shard = 0; shard < shardCount; shard++) {
+			lags[shard] = shardLagsMillis.get(shard);
+		}
+		return lags;
+	}
+
+	/**
+	 * Retrieves how many users each shard skipped during its last dispatch
+	 * because their previous location update had not finished.
+	 *
+	 * @return The number of skipped users, indexed by shard.
+	 */
+	public long[] getShardSkippedUsers() {
+		long[] skipped = new long[shardCount];
+		for (int shard = 0; shard < shardCount; shard++) {
+			skipped[shard] = shardSkippedUsers.get(shard);
+		}
+		return skipped;
+	}
+
 	@Override
 	public void run() {
-		StopWatch stopWatch = new StopWatch();
+		try {
+			tourGuideService.whenReady().get();
+		} catch (InterruptedException e) {
+			logger.debug("Tracker stopping");
+			return;
+		} catch (ExecutionException e) {
+			logger.warn("Tracking the users loaded so far: " + e.getCause().getMessage());
+		}
+
+		long sliceMillis = trackingPollingIntervalMillis / shardCount;
+		long cycleStart = System.currentTimeMillis();
 		while(true) {
-			if(Thread.currentThread().isInterrupted() || stop) {
-				logger.debug("Tracker stopping");
-				break;
+			logger.debug("Begin Tracker cycle over " + shardCount + " shards.");
+			long sweepStart = System.nanoTime();
+			List<List<User>> shards = splitIntoShards(tourGuideService.getLocalUsers());
+			for (int shard = 0; shard < shardCount; shard++) {
+				long sliceStart = cycleStart + shard * sliceMillis;
+				try {
+					long wait = sliceStart - System.currentTimeMillis();
+					if (wait > 0) TimeUnit.MILLISECONDS.sleep(wait);
+					if(Thread.currentThread().isInterrupted() || stop) {
+						logger.debug("Tracker stopping");
+						return;
+					}
+					long dispatchStart = System.nanoTime();
+					trackShard(shard, shards.get(shard), sliceStart + sliceMillis);
+					shardDispatchTimer.record(System.nanoTime() - dispatchStart, TimeUnit.NANOSECONDS);
+				} catch (InterruptedException e) {
+					logger.debug("Tracker stopping");
+					return;
+				}
 			}
-			
-			List<User> users = tourGuideService.getAllUsers();
-			logger.debug("Begin Tracker. Tracking " + users.size() + " users.");
-			stopWatch.start();
-			users.forEach(u -> {
-				tourGuideService.trackUserLocation(u);
-			});
-			stopWatch.stop();
-			logger.debug("Tracker Time Elapsed: " + TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()) + " seconds."); 
-			stopWatch.reset();
+			sweepTimer.record(System.nanoTime() - sweepStart, TimeUnit.NANOSECONDS);
+			// when a whole cycle is late, start the next one now rather than trying to catch up
+			cycleStart = Math.max(cycleStart + trackingPollingIntervalMillis, System.currentTimeMillis());
+		}
+	}
+
+	private List<List<User>> splitIntoShards(List<User> users) {
+		List<List<User>> shards = new ArrayList<>(shardCount);
+		for (int shard = 0; shard < shardCount; shard++) {
+			shards.add(new ArrayList<>(users.size() / shardCount + 1));
+		}
+		for (User user : users) {
+			shards.get(shardOf(user)).add(user);
+		}
+		return shards;
+	}
+
+	private void trackShard(int shard, List<User> users, long sliceEnd) throws InterruptedException {
+		int skipped = 0;
+		for (User user : users) {
+			UUID userId = user.getUserId();
+			if (!inFlightUsers.add(userId)) {
+				skipped++;
+				continue;
+			}
+			inFlightPermits.acquire();
 			try {
-				logger.debug("Tracker sleeping");
-				TimeUnit.SECONDS.sleep(trackingPollingInterval);
-			} catch (InterruptedException e) {
-				break;
+				tourGuideService.trackUserLocation(user).whenComplete((visitedLocation, throwable) -> {
+					inFlightUsers.remove(userId);
+					inFlightPermits.release();
+				});
+			} catch (RuntimeException e) {
+				inFlightUsers.remove(userId);
+				inFlightPermits.release();
+				logger.warn("Tracker could not track user " + userId + ": " + e.getMessage());
 			}
 		}
-		
+
+		long lag = Math.max(0, System.currentTimeMillis() - sliceEnd);
+		shardLagsMillis.set(shard, lag);
+		shardSkippedUsers.set(shard, skipped);
+		if (lag > 0 || skipped > 0) {
+			logger.warn("Tracker shard " + shard + " is " + lag + " ms behind, " + skipped + " users skipped.");
+		} else {
+			logger.debug("Tracker shard " + shard + " dispatched " + users.size() + " users.");
+		}
+	}
+
+	private int shardOf(User user) {
+		return Math.floorMod(user.getUserId().hashCode(), shardCount);
 	}
 }
@@ -0,0 +1,16 @@
+package tourGuide.tracker;
+
+import java.util.concurrent.TimeUnit;
+
+import lombok.Data;
+
+@Data
+public class TrackerConfig {
+	// time to sweep every user once
+	private long trackingPollingInterval = TimeUnit.MINUTES.toSeconds(5);
+	// number of slices the users are spread over within one polling interval
+	private int shardCount = 60;
+	// maximum number of location updates running at the same time
+	private int maxInFlight = 200;
+
+}
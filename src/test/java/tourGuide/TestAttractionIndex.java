@@ -0,0 +1,118 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import tourGuide.geo.AttractionIndex;
+import tourGuide.geo.GeoDistance;
+
+public class TestAttractionIndex {
+
+	private List<Attraction> attractions;
+	private AttractionIndex attractionIndex;
+	private Random random;
+
+	@Before
+	public void setUp() {
+		random = new Random(42);
+		attractions = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			attractions.add(new Attraction("attraction" + i, "city", "state", randomLatitude(), randomLongitude()));
+		}
+		attractionIndex = new AttractionIndex(attractions);
+	}
+
+	@Test
+	public void withinRadiusMatchesFullScan() {
+		for (int i = 0; i < 200; i++) {
+			//given
+			Location location = new Location(randomLatitude(), randomLongitude());
+			double radius = random.nextInt(1500);
+
+			//when
+			Set<Attraction> found = new HashSet<>(attractionIndex.withinRadius(location, radius));
+
+			//then
+			Set<Attraction> expected = attractions.stream()
+					.filter(attraction -> distance(attraction, location) <= radius)
+					.collect(Collectors.toSet());
+			assertEquals(expected, found);
+		}
+	}
+
+	@Test
+	public void nearestMatchesFullSort() {
+		for (int i = 0; i < 200; i++) {
+			//given
+			Location location = new Location(randomLatitude(), randomLongitude());
+
+			//when
+			List<Attraction> found = attractionIndex.nearest(location, 5);
+
+			//then
+			List<Attraction> expected = attractions.stream()
+					.sorted(Comparator.comparingDouble(attraction -> distance(attraction, location)))
+					.limit(5)
+					.collect(Collectors.toList());
+			assertEquals(expected, found);
+		}
+	}
+
+	@Test
+	public void withinRadiusAcrossAntimeridianAndPole() {
+		//given
+		Attraction east = new Attraction("east", "city", "state", 10, 179.9);
+		Attraction west = new Attraction("west", "city", "state", 10, -179.9);
+		Attraction north = new Attraction("north", "city", "state", 89.9, 0);
+		Attraction farNorth = new Attraction("farNorth", "city", "state", 89.9, 180);
+		AttractionIndex index = new AttractionIndex(Arrays.asList(east, west, north, farNorth));
+
+		//when
+		List<Attraction> aroundAntimeridian = index.withinRadius(new Location(10, 180), 20);
+		List<Attraction> aroundPole = index.withinRadius(new Location(90, 0), 20);
+
+		//then
+		assertEquals(new HashSet<>(Arrays.asList(east, west)), new HashSet<>(aroundAntimeridian));
+		assertEquals(new HashSet<>(Arrays.asList(north, farNorth)), new HashSet<>(aroundPole));
+	}
+
+	@Test
+	public void unlimitedRadiusReturnsWholeCatalog() {
+		//when
+		List<Attraction> found = attractionIndex.withinRadius(new Location(0, 0), Integer.MAX_VALUE);
+
+		//then
+		assertEquals(attractions.size(), found.size());
+	}
+
+	@Test
+	public void nearestOnEmptyOrSmallCatalog() {
+		//given
+		AttractionIndex emptyIndex = new AttractionIndex(Collections.emptyList());
+		AttractionIndex smallIndex = new AttractionIndex(attractions.subList(0, 3));
+
+		//then
+		assertTrue(emptyIndex.nearest(new Location(0, 0), 5).isEmpty());
+		assertEquals(3, smallIndex.nearest(new Location(0, 0), 5).size());
+	}
+
+	private double distance(Attraction attraction, Location location) {
+		return GeoDistance.statuteMiles(attraction.latitude, attraction.longitude, location.latitude, location.longitude);
+	}
+
+	private double randomLatitude() {
+		return -85.05112878 + random.nextDouble() * 2 * 85.05112878;
+	}
+
+	private double randomLongitude() {
+		return -180 + random.nextDouble() * 360;
+	}
+}
@@ -0,0 +1,105 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import rewardCentral.RewardCentral;
+import tourGuide.model.AttractionUserKey;
+import tourGuide.ranking.AttractionRanker;
+import tourGuide.ranking.RankedAttraction;
+import tourGuide.ranking.RankingConfig;
+import tourGuide.service.CachingRewardPointsGateway;
+import tourGuide.service.RewardPointsCache;
+import tourGuide.service.RewardPointsGateway;
+import tourGuide.service.RewardsService;
+
+public class TestAttractionRanker {
+
+	private RewardsService rewardsService;
+	private RewardPointsCache rewardPointsCache;
+	private List<Attraction> attractions;
+	private RankingConfig rankingConfig;
+	private UUID userId;
+
+	@Before
+	public void setUp() {
+		rewardPointsCache = new RewardPointsCache();
+		rewardsService = new RewardsService(new GpsUtil(),
+				new CachingRewardPointsGateway(new RewardPointsGateway(new RewardCentral()), rewardPointsCache));
+		attractions = rewardsService.getAttractionIndex().getAttractions();
+		rankingConfig = new RankingConfig();
+		userId = UUID.randomUUID();
+	}
+
+	@Test
+	public void closestFirstWithinTheAttractionProximity() {
+		//given
+		rankingConfig.setLimit(3);
+		AttractionRanker ranker = new AttractionRanker(rewardsService, rankingConfig);
+		Attraction attraction = attractions.get(0);
+
+		//when
+		List<RankedAttraction> unlimited = ranker.rank(userId, attraction, Double.POSITIVE_INFINITY);
+		List<RankedAttraction> close = ranker.rank(userId, attraction, 0.5);
+
+		//then
+		List<String> expected = attractions.stream()
+				.sorted(Comparator.comparingDouble(other -> rewardsService.getDistance(other, attraction)))
+				.limit(3)
+				.map(other -> other.attractionName)
+				.collect(Collectors.toList());
+		assertEquals(expected, unlimited.stream().map(ranked -> ranked.getAttraction().attractionName).collect(Collectors.toList()));
+		assertEquals(1, close.size());
+		assertEquals(attraction.attractionName, close.get(0).getAttraction().attractionName);
+	}
+
+	@Test
+	public void cachedRewardPointsOutweighDistance() {
+		//given
+		rankingConfig.setLimit(1);
+		rankingConfig.setRewardWeight(10);
+		rankingConfig.setDefaultRewardPoints(0);
+		AttractionRanker ranker = new AttractionRanker(rewardsService, rankingConfig);
+		Attraction attraction = attractions.get(0);
+		Attraction neighbour = attractions.stream()
+				.filter(other -> other != attraction)
+				.min(Comparator.comparingDouble(other -> rewardsService.getDistance(other, attraction)))
+				.get();
+		rewardPointsCache.put(new AttractionUserKey(attraction.attractionId, userId), 1);
+		rewardPointsCache.put(new AttractionUserKey(neighbour.attractionId, userId), 1000);
+
+		//when
+		List<RankedAttraction> ranked = ranker.rank(userId, attraction, Double.POSITIVE_INFINITY);
+
+		//then
+		assertEquals(1, ranked.size());
+		assertEquals(neighbour.attractionName, ranked.get(0).getAttraction().attractionName);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void aZeroDistanceScaleIsRejected() {
+		//given
+		rankingConfig.setDistanceScaleMiles(0);
+
+		//when
+		new AttractionRanker(rewardsService, rankingConfig);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void aNegativeRewardWeightIsRejected() {
+		//given
+		rankingConfig.setRewardWeight(-1);
+
+		//when
+		new AttractionRanker(rewardsService, rankingConfig);
+	}
+}
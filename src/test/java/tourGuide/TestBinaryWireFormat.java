@@ -0,0 +1,129 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.controller.BinaryWireFormat;
+import tourGuide.model.UserReward;
+import tourGuide.service.LatestLocationIndex;
+
+public class TestBinaryWireFormat {
+
+	@Test
+	public void locationsRoundTrip() throws Exception {
+		//given
+		LatestLocationIndex latestLocations = new LatestLocationIndex();
+		VisitedLocation first = new VisitedLocation(UUID.randomUUID(), new Location(33.817595, -117.922008), new Date(1000));
+		VisitedLocation second = new VisitedLocation(UUID.randomUUID(), new Location(-43.582767, 170.141027), new Date(2000));
+		latestLocations.update(first);
+		latestLocations.update(second);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		//when
+		BinaryWireFormat.writeLocations(latestLocations.after(null).entrySet(), out);
+		List<VisitedLocation> read = BinaryWireFormat.readLocations(new ByteArrayInputStream(out.toByteArray()));
+
+		//then
+		assertEquals(4 + 2 * BinaryWireFormat.LOCATION_RECORD_BYTES, out.size());
+		assertEquals(2, read.size());
+		for (VisitedLocation visitedLocation : read) {
+			VisitedLocation expected = visitedLocation.userId.equals(first.userId) ? first : second;
+			assertEquals(expected.location.latitude, visitedLocation.location.latitude, 0);
+			assertEquals(expected.location.longitude, visitedLocation.location.longitude, 0);
+			assertEquals(expected.timeVisited, visitedLocation.timeVisited);
+		}
+	}
+
+	@Test
+	public void rewardsOfKnownAndUnknownUsers() throws Exception {
+		//given
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+		VisitedLocation visitedLocation = new VisitedLocation(UUID.randomUUID(), attraction, new Date(1000));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		//when
+		DataOutputStream data = BinaryWireFormat.startRewards(out);
+		BinaryWireFormat.writeRewards(data, "jon", Collections.singletonList(new UserReward(visitedLocation, attraction, 250)));
+		BinaryWireFormat.writeRewards(data, "nobody", null);
+		data.flush();
+
+		//then
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(BinaryWireFormat.REWARDS_MAGIC, in.readInt());
+		assertEquals("jon", in.readUTF());
+		assertEquals(1, in.readInt());
+		assertEquals(attraction.attractionId, new UUID(in.readLong(), in.readLong()));
+		assertEquals("Disneyland", in.readUTF());
+		assertEquals(33.817595, in.readDouble(), 0);
+		assertEquals(-117.922008, in.readDouble(), 0);
+		assertEquals(1000, in.readLong());
+		assertEquals(250, in.readInt());
+		assertEquals("nobody", in.readUTF());
+		assertEquals(BinaryWireFormat.UNKNOWN_USER, in.readInt());
+		assertEquals(-1, in.read());
+	}
+
+	@Test
+	public void locationsAndRewardsWithoutTime() throws Exception {
+		//given
+		LatestLocationIndex latestLocations = new LatestLocationIndex();
+		VisitedLocation untimed = new VisitedLocation(UUID.randomUUID(), new Location(33.817595, -117.922008), null);
+		latestLocations.update(untimed);
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+		UserReward reward = new UserReward(new VisitedLocation(UUID.randomUUID(), null, null), attraction, 250);
+		ByteArrayOutputStream locationsOut = new ByteArrayOutputStream();
+		ByteArrayOutputStream rewardsOut = new ByteArrayOutputStream();
+
+		//when
+		BinaryWireFormat.writeLocations(latestLocations.after(null).entrySet(), locationsOut);
+		List<VisitedLocation> read = BinaryWireFormat.readLocations(new ByteArrayInputStream(locationsOut.toByteArray()));
+		DataOutputStream data = BinaryWireFormat.startRewards(rewardsOut);
+		BinaryWireFormat.writeRewards(data, "jon", Collections.singletonList(reward));
+		data.flush();
+
+		//then
+		assertEquals(1, read.size());
+		assertEquals(untimed.userId, read.get(0).userId);
+		assertNull(read.get(0).timeVisited);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(rewardsOut.toByteArray()));
+		assertEquals(BinaryWireFormat.REWARDS_MAGIC, in.readInt());
+		assertEquals("jon", in.readUTF());
+		assertEquals(1, in.readInt());
+		assertEquals(attraction.attractionId, new UUID(in.readLong(), in.readLong()));
+		assertEquals("Disneyland", in.readUTF());
+		assertTrue(Double.isNaN(in.readDouble()));
+		assertTrue(Double.isNaN(in.readDouble()));
+		assertEquals(BinaryWireFormat.NO_TIME, in.readLong());
+		assertEquals(250, in.readInt());
+		assertEquals(-1, in.read());
+	}
+
+	@Test
+	public void binaryOnlyWhenAccepted() {
+		//given
+		List<String> accepting = Arrays.asList("application/x-tourguide-binary",
+				"application/json, application/x-tourguide-binary;q=0.9");
+		List<String> notAccepting = Arrays.asList(null, "*/*", "application/json", "application/x-tourguide-binary;q=0");
+
+		//then
+		accepting.forEach(accept -> assertTrue(BinaryWireFormat.isAccepted(accept)));
+		notAccepting.forEach(accept -> assertFalse(BinaryWireFormat.isAccepted(accept)));
+	}
+}
@@ -0,0 +1,92 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tourGuide.geo.DistanceEngine;
+import tourGuide.geo.DistanceMode;
+import tourGuide.geo.GeoDistance;
+import tourGuide.geo.GeoPoint;
+
+public class TestDistanceEngine {
+
+	private Random random;
+
+	@Before
+	public void setUp() {
+		random = new Random(42);
+	}
+
+	@Test
+	public void haversineMatchesLawOfCosines() {
+		DistanceEngine engine = new DistanceEngine(DistanceMode.HAVERSINE);
+		for (int i = 0; i < 10_000; i++) {
+			//given
+			GeoPoint from = GeoPoint.of(randomLatitude(), randomLongitude());
+			GeoPoint to = GeoPoint.of(randomLatitude(), randomLongitude());
+
+			//when
+			double distance = engine.statuteMiles(from, to);
+
+			//then
+			assertEquals(reference(from, to), distance, 1e-6);
+		}
+	}
+
+	@Test
+	public void equirectangularIsCloseAtShortRange() {
+		DistanceEngine engine = new DistanceEngine(DistanceMode.EQUIRECTANGULAR);
+		for (int i = 0; i < 10_000; i++) {
+			//given
+			GeoPoint from = GeoPoint.of(-70 + random.nextDouble() * 140, randomLongitude());
+			GeoPoint to = GeoPoint.of(from.getLatitude() + random.nextDouble() * 6 - 3,
+					from.getLongitude() + random.nextDouble() * 6 - 3);
+
+			//when
+			double distance = engine.statuteMiles(from, to);
+
+			//then
+			double expected = reference(from, to);
+			assertEquals(expected, distance, expected * 1e-3 + 1e-6);
+		}
+	}
+
+	@Test
+	public void boundingBoxNeverRejectsPairsWithinTheRadius() {
+		for (DistanceMode mode : DistanceMode.values()) {
+			DistanceEngine engine = new DistanceEngine(mode);
+			for (int i = 0; i < 10_000; i++) {
+				//given
+				GeoPoint from = GeoPoint.of(randomLatitude(), randomLongitude());
+				GeoPoint to = GeoPoint.of(from.getLatitude() + random.nextDouble() * 4 - 2,
+						from.getLongitude() + random.nextDouble() * 8 - 4);
+				double radius = random.nextInt(200);
+
+				//when
+				double distance = engine.statuteMilesWithin(from, to, radius);
+
+				//then
+				double expected = engine.statuteMiles(from, to);
+				assertEquals(expected <= radius, engine.isWithin(from, to, radius));
+				assertTrue(expected <= radius ? distance == expected : distance == Double.POSITIVE_INFINITY);
+			}
+		}
+	}
+
+	private static double reference(GeoPoint from, GeoPoint to) {
+		return GeoDistance.statuteMiles(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+	}
+
+	private double randomLatitude() {
+		return -89 + random.nextDouble() * 178;
+	}
+
+	private double randomLongitude() {
+		return -180 + random.nextDouble() * 360;
+	}
+}
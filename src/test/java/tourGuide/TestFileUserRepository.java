@@ -0,0 +1,153 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+import tourGuide.cluster.Partitioner;
+import tourGuide.concurrent.ExecutionConfig;
+import tourGuide.helper.InternalTestHelper;
+import tourGuide.model.User;
+import tourGuide.model.UserReward;
+import tourGuide.ranking.RankingConfig;
+import tourGuide.repository.FileUserRepository;
+import tourGuide.repository.MappedLocationJournal;
+import tourGuide.service.IGeofenceService;
+import tourGuide.service.RewardsService;
+import tourGuide.service.TourGuideService;
+import tourGuide.service.TripDealService;
+import tourGuide.tracker.TrackerConfig;
+import tripPricer.TripPricer;
+
+public class TestFileUserRepository {
+	private final List<Attraction> attractions = Arrays.asList(
+			new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008),
+			new Attraction("Jackson Hole", "Jackson Hole", "WY", 43.582767, -110.821999));
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("users");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Test
+	public void seededAndAddedLocationsSurviveARestartWithTheJournal() throws IOException {
+		//given
+		Path journalDirectory = directory.resolve("journal");
+		FileUserRepository repository = new FileUserRepository(directory, attractions, 60_000, false);
+		MappedLocationJournal journal = new MappedLocationJournal(journalDirectory, 16, 4);
+		InternalTestHelper.setInternalUserNumber(2);
+		GpsUtil gpsUtil = new GpsUtil();
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, new RewardsService(gpsUtil, new RewardCentral()),
+				new TripDealService(new TripPricer()), repository, journal, IGeofenceService.DISABLED,
+				Partitioner.singleNode(), new RankingConfig(), new TrackerConfig(), new ExecutionConfig());
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(33.817595, -117.922008), new Date(1000)));
+		tourGuideService.addUser(user);
+		tourGuideService.shutdown();
+		InternalTestHelper.setInternalUserNumber(0);
+		List<VisitedLocation> seededLocations = repository.findByUserName("internalUser0").getVisitedLocations();
+		repository.close();
+		journal.close();
+
+		//when
+		FileUserRepository restarted = new FileUserRepository(directory, attractions, 60_000, false);
+		new MappedLocationJournal(journalDirectory, 16, 4).replay(restarted.findAll());
+
+		//then
+		restarted.close();
+		List<VisitedLocation> restoredLocations = restarted.findByUserName("internalUser0").getVisitedLocations();
+		assertEquals(seededLocations.size(), restoredLocations.size());
+		assertEquals(seededLocations.get(0).timeVisited, restoredLocations.get(0).timeVisited);
+		assertEquals(1, restarted.findByUserName("jon").getVisitedLocations().size());
+	}
+
+	@Test
+	public void usersSurviveARestart() throws IOException {
+		//given
+		FileUserRepository repository = new FileUserRepository(directory, attractions, 60_000);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		repository.add(user);
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(33.8, -117.9), new Date()));
+		repository.flush();
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(43.5, -110.8), new Date()));
+		user.addUserReward(new UserReward(user.getLastVisitedLocation(), attractions.get(1), 120));
+		user.getUserPreferences().setNumberOfAdults(3);
+		repository.save(user);
+
+		//when
+		repository.close();
+		// attraction ids change between runs, the rewards are matched by name
+		List<Attraction> attractionsOfNextRun = Arrays.asList(
+				new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008),
+				new Attraction("Jackson Hole", "Jackson Hole", "WY", 43.582767, -110.821999));
+		FileUserRepository restarted = new FileUserRepository(directory, attractionsOfNextRun, 60_000);
+		User restored = restarted.findByUserName("jon");
+		restarted.close();
+
+		//then
+		assertNotNull(restored);
+		assertEquals(user.getUserId(), restored.getUserId());
+		assertEquals("jon@tourGuide.com", restored.getEmailAddress());
+		assertEquals(2, restored.getVisitedLocations().size());
+		assertEquals(43.5, restored.getLastVisitedLocation().location.latitude, 0);
+		assertEquals(1, restored.getUserRewards().size());
+		assertEquals(120, restored.getUserRewards().get(0).getRewardPoints());
+		assertEquals(attractionsOfNextRun.get(1).attractionId, restored.getUserRewards().get(0).attraction.attractionId);
+		assertEquals(3, restored.getUserPreferences().getNumberOfAdults());
+	}
+
+	@Test
+	public void tornRecordIsDroppedOnLoad() throws IOException {
+		//given
+		FileUserRepository repository = new FileUserRepository(directory, attractions, 60_000);
+		repository.add(new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com"));
+		repository.flush();
+		repository.add(new User(UUID.randomUUID(), "jon2", "000", "jon2@tourGuide.com"));
+		repository.close();
+		Path log = directory.resolve("users.log");
+		try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3);
+		}
+
+		//when
+		FileUserRepository restarted = new FileUserRepository(directory, attractions, 60_000);
+		restarted.add(new User(UUID.randomUUID(), "jon3", "000", "jon3@tourGuide.com"));
+		restarted.close();
+		FileUserRepository restartedAgain = new FileUserRepository(directory, attractions, 60_000);
+
+		//then
+		assertNotNull(restartedAgain.findByUserName("jon"));
+		assertNull(restartedAgain.findByUserName("jon2"));
+		assertNotNull(restartedAgain.findByUserName("jon3"));
+		restartedAgain.close();
+	}
+}
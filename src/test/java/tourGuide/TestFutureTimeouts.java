@@ -0,0 +1,28 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+import tourGuide.concurrent.FutureTimeouts;
+
+public class TestFutureTimeouts {
+
+	@Test
+	public void dependentsOfAFallbackDoNotRunOnTheTimerThread() {
+		//given
+		CompletableFuture<String> neverDone = new CompletableFuture<>();
+
+		//when
+		String thread = FutureTimeouts.withFallback(neverDone, 10, () -> "fallback")
+				.thenApply(value -> value + " on " + Thread.currentThread().getName())
+				.join();
+
+		//then
+		assertEquals("fallback", thread.substring(0, "fallback".length()));
+		assertFalse(thread.contains("future-timeouts"));
+	}
+}
@@ -0,0 +1,98 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+import tourGuide.model.GeofenceEvent;
+import tourGuide.model.GeofenceEventType;
+import tourGuide.service.GeofenceService;
+import tourGuide.service.RewardsService;
+
+public class TestGeofenceService {
+
+	private GeofenceService geofenceService;
+	private Attraction attraction;
+
+	@Before
+	public void setUp() {
+		GpsUtil gpsUtil = new GpsUtil();
+		attraction = gpsUtil.getAttractions().get(0);
+		geofenceService = new GeofenceService(new RewardsService(gpsUtil, new RewardCentral()), 10,
+				TimeUnit.MINUTES.toMillis(15), 100);
+	}
+
+	@After
+	public void tearDown() {
+		geofenceService.shutdown();
+	}
+
+	@Test
+	public void enterDwellAndExit() throws Exception {
+		//given
+		UUID userId = UUID.randomUUID();
+		List<GeofenceEvent> events = new ArrayList<>();
+		CountDownLatch exited = new CountDownLatch(1);
+		geofenceService.subscribe(event -> {
+			if (!event.getAttraction().attractionName.equals(attraction.attractionName)) return;
+			events.add(event);
+			if (event.getType() == GeofenceEventType.EXIT) exited.countDown();
+		});
+
+		//when
+		geofenceService.onLocation(visit(userId, attraction, 0));
+		geofenceService.onLocation(visit(userId, attraction, 10));
+		geofenceService.onLocation(visit(userId, attraction, 20));
+		// an older location arriving late is ignored
+		geofenceService.onLocation(visit(userId, new Location(0, 0), 5));
+		geofenceService.onLocation(visit(userId, attraction, 30));
+		geofenceService.onLocation(visit(userId, new Location(0, 0), 40));
+
+		//then
+		exited.await(5, TimeUnit.SECONDS);
+		assertEquals(Arrays.asList(GeofenceEventType.ENTER, GeofenceEventType.DWELL, GeofenceEventType.EXIT),
+				events.stream().map(GeofenceEvent::getType).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void locationsWithoutTimeAreIgnored() throws Exception {
+		//given
+		UUID userId = UUID.randomUUID();
+		List<GeofenceEventType> events = new ArrayList<>();
+		CountDownLatch entered = new CountDownLatch(1);
+		geofenceService.subscribe(event -> {
+			if (!event.getAttraction().attractionName.equals(attraction.attractionName)) return;
+			events.add(event.getType());
+			entered.countDown();
+		});
+
+		//when
+		geofenceService.onLocation(new VisitedLocation(userId, new Location(attraction.latitude, attraction.longitude), null));
+		geofenceService.onLocation(visit(userId, attraction, 0));
+
+		//then
+		entered.await(5, TimeUnit.SECONDS);
+		assertEquals(Arrays.asList(GeofenceEventType.ENTER), events);
+	}
+
+	private VisitedLocation visit(UUID userId, Location location, int minutes) {
+		return new VisitedLocation(userId, new Location(location.latitude, location.longitude),
+				new Date(TimeUnit.MINUTES.toMillis(minutes)));
+	}
+}
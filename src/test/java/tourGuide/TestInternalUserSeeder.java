@@ -0,0 +1,108 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+import tourGuide.cluster.Partitioner;
+import tourGuide.concurrent.ExecutionConfig;
+import tourGuide.helper.InternalTestHelper;
+import tourGuide.helper.InternalUserSeeder;
+import tourGuide.model.LocationHistoryConfig;
+import tourGuide.model.User;
+import tourGuide.ranking.RankingConfig;
+import tourGuide.repository.ILocationJournal;
+import tourGuide.repository.InMemoryUserRepository;
+import tourGuide.service.IGeofenceService;
+import tourGuide.service.RewardsService;
+import tourGuide.service.TourGuideService;
+import tourGuide.service.TripDealService;
+import tourGuide.tracker.TrackerConfig;
+import tripPricer.TripPricer;
+
+public class TestInternalUserSeeder {
+
+	@Test
+	public void seededUsersGetTheLocationHistoryOfTheRepository() {
+		//given
+		LocationHistoryConfig locationHistoryConfig = new LocationHistoryConfig();
+		locationHistoryConfig.setCapacity(2);
+		List<VisitedLocation> archived = new ArrayList<>();
+		locationHistoryConfig.setArchive(archived::add);
+		InMemoryUserRepository userRepository = new InMemoryUserRepository(locationHistoryConfig);
+
+		//when
+		new InternalUserSeeder(userRepository).seed(1, 42L);
+
+		//then
+		User user = userRepository.findByUserName("internalUser0");
+		assertEquals(2, user.getVisitedLocations().size());
+		assertEquals(1, archived.size());
+	}
+
+	@Test
+	public void seededRunsCreateTheSameUsers() {
+		//given
+		InMemoryUserRepository userRepository = new InMemoryUserRepository();
+		InMemoryUserRepository userRepository2 = new InMemoryUserRepository();
+
+		//when
+		int added = new InternalUserSeeder(userRepository).seed(10_000, 42L);
+		int added2 = new InternalUserSeeder(userRepository2).seed(10_000, 42L);
+
+		//then
+		assertEquals(10_000, added);
+		assertEquals(10_000, added2);
+		User user = userRepository.findByUserName("internalUser9999");
+		User user2 = userRepository2.findByUserName("internalUser9999");
+		assertEquals(user.getUserId(), user2.getUserId());
+		assertEquals(3, user.getVisitedLocations().size());
+		assertEquals(user.getLastVisitedLocation().location.latitude, user2.getLastVisitedLocation().location.latitude, 0);
+	}
+
+	@Test
+	public void usersAlreadyStoredAreKept() {
+		//given
+		InMemoryUserRepository userRepository = new InMemoryUserRepository();
+		User restored = new User(UUID.randomUUID(), "internalUser3", "000", "internalUser3@tourGuide.com");
+		userRepository.add(restored);
+
+		//when
+		int added = new InternalUserSeeder(userRepository).seed(5, null);
+
+		//then
+		assertEquals(4, added);
+		assertSame(restored, userRepository.findByUserName("internalUser3"));
+		assertNotEquals(userRepository.findByUserName("internalUser0").getUserId(),
+				userRepository.findByUserName("internalUser1").getUserId());
+	}
+
+	@Test
+	public void backgroundSeedingCompletesReadiness() throws Exception {
+		//given
+		GpsUtil gpsUtil = new GpsUtil();
+		ExecutionConfig executionConfig = new ExecutionConfig();
+		executionConfig.setBackgroundUserSeeding(true);
+		InternalTestHelper.setInternalUserNumber(1000);
+
+		//when
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, new RewardsService(gpsUtil, new RewardCentral()),
+				new TripDealService(new TripPricer()), new InMemoryUserRepository(), ILocationJournal.DISABLED,
+				IGeofenceService.DISABLED, Partitioner.singleNode(), new RankingConfig(), new TrackerConfig(), executionConfig);
+		tourGuideService.whenReady().get();
+
+		//then
+		tourGuideService.shutdown();
+		InternalTestHelper.setInternalUserNumber(0);
+		assertEquals(1000, tourGuideService.getAllUsers().size());
+	}
+}
@@ -0,0 +1,93 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.*;
+
+import org.junit.Test;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.model.LocationHistory;
+import tourGuide.model.User;
+
+public class TestLocationHistory {
+
+	private final UUID userId = UUID.randomUUID();
+
+	@Test
+	public void keepsOnlyTheLatestLocationsAndArchivesTheOthers() {
+		//given
+		List<VisitedLocation> archived = new ArrayList<>();
+		LocationHistory locationHistory = new LocationHistory(userId, 3, archived::add);
+
+		//when
+		for (int i = 0; i < 5; i++) {
+			locationHistory.add(visitedLocation(i));
+		}
+
+		//then
+		List<VisitedLocation> kept = locationHistory.snapshot();
+		assertEquals(3, kept.size());
+		assertEquals(2.0, kept.get(0).location.latitude, 0);
+		assertEquals(4.0, locationHistory.last().location.latitude, 0);
+		assertEquals(4000L, locationHistory.last().timeVisited.getTime());
+		assertEquals(2, archived.size());
+		assertEquals(0.0, archived.get(0).location.latitude, 0);
+		assertEquals(5L, locationHistory.addedCount());
+	}
+
+	@Test
+	public void sinceSkipsLocationsAlreadyReturned() {
+		//given
+		LocationHistory locationHistory = new LocationHistory(userId, 4, visitedLocation -> { });
+		for (int i = 0; i < 3; i++) {
+			locationHistory.add(visitedLocation(i));
+		}
+		long position = locationHistory.addedCount();
+		for (int i = 3; i < 6; i++) {
+			locationHistory.add(visitedLocation(i));
+		}
+
+		//when
+		List<VisitedLocation> newLocations = locationHistory.since(position);
+
+		//then
+		assertEquals(3, newLocations.size());
+		assertEquals(3.0, newLocations.get(0).location.latitude, 0);
+		assertEquals(userId, newLocations.get(0).userId);
+	}
+
+	@Test
+	public void userPollsEachLocationToRewardOnce() {
+		//given
+		User user = new User(userId, "jon", "000", "jon@tourGuide.com");
+		user.addToVisitedLocations(visitedLocation(0));
+		user.addToVisitedLocations(visitedLocation(1));
+
+		//when
+		List<VisitedLocation> firstPoll = user.pollLocationsToReward();
+		user.addToVisitedLocations(visitedLocation(2));
+		List<VisitedLocation> secondPoll = user.pollLocationsToReward();
+
+		//then
+		assertEquals(2, firstPoll.size());
+		assertEquals(1, secondPoll.size());
+		assertEquals(2.0, secondPoll.get(0).location.latitude, 0);
+	}
+
+	@Test
+	public void emptyHistoryHasNoLastLocation() {
+		//given
+		User user = new User(userId, "jon", "000", "jon@tourGuide.com");
+
+		//then
+		assertNull(user.getLastVisitedLocation());
+		assertEquals(0, user.getVisitedLocations().size());
+	}
+
+	private VisitedLocation visitedLocation(int i) {
+		return new VisitedLocation(userId, new Location(i, i), new Date(i * 1000L));
+	}
+}
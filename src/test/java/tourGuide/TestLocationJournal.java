@@ -0,0 +1,95 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.model.User;
+import tourGuide.repository.MappedLocationJournal;
+
+public class TestLocationJournal {
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("locations");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Test
+	public void replayRestoresLocationsInOrderAcrossSegments() {
+		//given
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User otherUser = new User(UUID.randomUUID(), "jon2", "000", "jon2@tourGuide.com");
+		MappedLocationJournal journal = new MappedLocationJournal(directory, 4, 10);
+		for (int i = 0; i < 10; i++) {
+			journal.append(new VisitedLocation(user.getUserId(), new Location(i, -i), new Date(i)));
+			journal.append(new VisitedLocation(otherUser.getUserId(), new Location(-i, i), new Date(i)));
+		}
+		journal.append(new VisitedLocation(user.getUserId(), null, null));
+		journal.close();
+
+		//when
+		User restored = new User(user.getUserId(), "jon", "000", "jon@tourGuide.com");
+		User otherRestored = new User(otherUser.getUserId(), "jon2", "000", "jon2@tourGuide.com");
+		long replayed = new MappedLocationJournal(directory, 4, 10).replay(Arrays.asList(restored, otherRestored));
+
+		//then
+		assertEquals(21, replayed);
+		List<VisitedLocation> locations = restored.getVisitedLocations();
+		assertEquals(11, locations.size());
+		assertEquals(Arrays.asList(0d, 1d, 2d, 3d, 4d, 5d, 6d, 7d, 8d, 9d), locations.subList(0, 10).stream()
+				.map(visitedLocation -> visitedLocation.location.latitude)
+				.collect(Collectors.toList()));
+		assertNull(locations.get(10).location);
+		assertEquals(9, otherRestored.getLastVisitedLocation().location.longitude, 0);
+	}
+
+	@Test
+	public void appendContinuesAfterReopenAndOldSegmentsAreDeleted() throws IOException {
+		//given
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		MappedLocationJournal journal = new MappedLocationJournal(directory, 4, 2);
+		journal.append(new VisitedLocation(user.getUserId(), new Location(0, 0), new Date(0)));
+		journal.close();
+
+		//when
+		MappedLocationJournal reopened = new MappedLocationJournal(directory, 4, 2);
+		for (int i = 1; i < 12; i++) {
+			reopened.append(new VisitedLocation(user.getUserId(), new Location(i, 0), new Date(i)));
+		}
+		reopened.close();
+		User restored = new User(user.getUserId(), "jon", "000", "jon@tourGuide.com");
+		new MappedLocationJournal(directory, 4, 2).replay(Arrays.asList(restored));
+
+		//then
+		try (Stream<Path> files = Files.list(directory)) {
+			assertEquals(2, files.count());
+		}
+		assertEquals(8, restored.getVisitedLocations().size());
+		assertEquals(4, restored.getVisitedLocations().get(0).location.latitude, 0);
+		assertEquals(11, restored.getLastVisitedLocation().location.latitude, 0);
+	}
+}
@@ -0,0 +1,114 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import rewardCentral.RewardCentral;
+import tourGuide.concurrent.ExecutionMode;
+import tourGuide.concurrent.ServiceExecutors;
+import tourGuide.concurrent.UpstreamLimiter;
+import tourGuide.metrics.TourGuideMetrics;
+import tourGuide.model.GeofenceEventType;
+import tourGuide.service.GeofenceService;
+import tourGuide.service.RewardsService;
+
+public class TestMetrics {
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Before
+	public void setUp() {
+		Metrics.addRegistry(registry);
+	}
+
+	@After
+	public void tearDown() {
+		Metrics.removeRegistry(registry);
+	}
+
+	@Test
+	public void upstreamCallsAreTimedByUpstream() {
+		//given
+		UpstreamLimiter limiter = new UpstreamLimiter("TestUpstream", 1);
+
+		//when
+		limiter.call(() -> 1);
+		limiter.call(() -> 2);
+
+		//then
+		assertEquals(2, registry.get(TourGuideMetrics.UPSTREAM_CALLS)
+				.tag(TourGuideMetrics.UPSTREAM_TAG, "TestUpstream").timer().count());
+		assertEquals(2, registry.get(TourGuideMetrics.UPSTREAM_WAIT)
+				.tag(TourGuideMetrics.UPSTREAM_TAG, "TestUpstream").timer().count());
+		assertEquals(0, registry.get(TourGuideMetrics.UPSTREAM_QUEUED)
+				.tag(TourGuideMetrics.UPSTREAM_TAG, "TestUpstream").gauge().value(), 0);
+	}
+
+	@Test
+	public void gaugesAreRemovedWhenTheirOwnerShutsDown() {
+		//given
+		UpstreamLimiter limiter = new UpstreamLimiter("RestartedUpstream", 1);
+		ExecutorService executor = ServiceExecutors.newExecutor(ExecutionMode.PLATFORM, 1, "restarted-pool");
+
+		//when
+		limiter.shutdown();
+		executor.shutdown();
+		TourGuideMetrics.unmonitor("restarted-pool");
+
+		//then
+		assertNull(registry.find(TourGuideMetrics.UPSTREAM_QUEUED)
+				.tag(TourGuideMetrics.UPSTREAM_TAG, "RestartedUpstream").gauge());
+		assertNull(registry.find("executor.pool.size").tag("name", "restarted-pool").gauge());
+		new UpstreamLimiter("RestartedUpstream", 1);
+		assertNotNull(registry.find(TourGuideMetrics.UPSTREAM_QUEUED)
+				.tag(TourGuideMetrics.UPSTREAM_TAG, "RestartedUpstream").gauge());
+	}
+
+	@Test
+	public void geofenceEventsAreCountedOnlyOnceQueued() throws Exception {
+		//given
+		GpsUtil gpsUtil = new GpsUtil();
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		GeofenceService geofenceService = new GeofenceService(new RewardsService(gpsUtil, new RewardCentral()), 0.1,
+				TimeUnit.MINUTES.toMillis(15), 1);
+		CountDownLatch dispatching = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		//when
+		geofenceService.onLocation(new VisitedLocation(UUID.randomUUID(), attraction, new Date()));
+		geofenceService.subscribe(event -> {
+			dispatching.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		geofenceService.onLocation(new VisitedLocation(UUID.randomUUID(), attraction, new Date()));
+		dispatching.await(5, TimeUnit.SECONDS);
+		geofenceService.onLocation(new VisitedLocation(UUID.randomUUID(), attraction, new Date()));
+		geofenceService.onLocation(new VisitedLocation(UUID.randomUUID(), attraction, new Date()));
+		release.countDown();
+
+		//then
+		geofenceService.shutdown();
+		assertEquals(2, registry.get(TourGuideMetrics.GEOFENCE_EVENTS)
+				.tag("type", GeofenceEventType.ENTER.name()).counter().count(), 0);
+		assertEquals(1, registry.get(TourGuideMetrics.GEOFENCE_DROPPED).counter().count(), 0);
+	}
+}
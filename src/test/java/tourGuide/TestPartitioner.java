@@ -0,0 +1,164 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import gpsUtil.GpsUtil;
+import rewardCentral.RewardCentral;
+import tourGuide.cluster.ClusterForwarder;
+import tourGuide.cluster.ConsistentHashRing;
+import tourGuide.cluster.InMemoryMembership;
+import tourGuide.cluster.Partitioner;
+import tourGuide.concurrent.ExecutionConfig;
+import tourGuide.concurrent.ExecutionMode;
+import tourGuide.helper.InternalTestHelper;
+import tourGuide.model.User;
+import tourGuide.ranking.RankingConfig;
+import tourGuide.repository.ILocationJournal;
+import tourGuide.repository.InMemoryUserRepository;
+import tourGuide.service.IGeofenceService;
+import tourGuide.service.RewardsService;
+import tourGuide.service.TourGuideService;
+import tourGuide.service.TripDealService;
+import tourGuide.tracker.TrackerConfig;
+import tripPricer.TripPricer;
+
+public class TestPartitioner {
+
+	@Test
+	public void aJoiningNodeOnlyTakesItsShareOfTheUsers() {
+		//given
+		ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("a", "b", "c"), 128);
+		ConsistentHashRing grownRing = new ConsistentHashRing(Arrays.asList("a", "b", "c", "d"), 128);
+		Map<String, Integer> usersByNode = new HashMap<>();
+		int moved = 0;
+
+		//when
+		for (int i = 0; i < 30_000; i++) {
+			String userName = "internalUser" + i;
+			String owner = ring.ownerOf(userName);
+			String newOwner = grownRing.ownerOf(userName);
+			usersByNode.merge(owner, 1, Integer::sum);
+			if (!owner.equals(newOwner)) {
+				moved++;
+				assertEquals("d", newOwner);
+			}
+		}
+
+		//then
+		usersByNode.values().forEach(users -> assertTrue(users > 8_000 && users < 12_000));
+		assertTrue(moved > 5_000 && moved < 10_000);
+	}
+
+	@Test
+	public void instancesSharingAMembershipSplitTheUsers() {
+		//given
+		InMemoryMembership.Group group = new InMemoryMembership.Group();
+		InMemoryMembership membershipB = group.join("http://localhost:8082");
+		Partitioner partitionerA = new Partitioner(group.join("http://localhost:8081"), 64);
+		Partitioner partitionerB = new Partitioner(membershipB, 64);
+		InternalTestHelper.setInternalUserNumber(100);
+		TourGuideService nodeA = newTourGuideService(partitionerA);
+		TourGuideService nodeB = newTourGuideService(partitionerB);
+
+		//when
+		Set<String> usersA = userNames(nodeA.getLocalUsers());
+		Set<String> usersB = userNames(nodeB.getLocalUsers());
+		membershipB.leave();
+		List<User> usersAfterLeave = nodeA.getLocalUsers();
+
+		//then
+		nodeA.shutdown();
+		nodeB.shutdown();
+		InternalTestHelper.setInternalUserNumber(0);
+		Set<String> allUsers = new HashSet<>(usersA);
+		allUsers.addAll(usersB);
+		assertEquals(100, allUsers.size());
+		assertEquals(100, usersA.size() + usersB.size());
+		assertTrue(!usersA.isEmpty() && !usersB.isEmpty());
+		assertEquals(100, usersAfterLeave.size());
+	}
+
+	@Test
+	public void forwardsToTheOwnerOnLocalhost() throws Exception {
+		//given
+		HttpServer owner = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		owner.createContext("/getRewards", exchange -> {
+			byte[] body = (exchange.getRequestHeaders().getFirst(ClusterForwarder.FORWARDED_HEADER) + " "
+					+ exchange.getRequestURI().getQuery()).getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		owner.start();
+		ClusterForwarder forwarder = new ClusterForwarder("http://localhost:8081", ExecutionMode.PLATFORM, 2, 1000);
+
+		//when
+		String body = forwarder.forward("http://localhost:" + owner.getAddress().getPort(), "/getRewards",
+				"internalUser1").get();
+
+		//then
+		forwarder.shutdown();
+		owner.stop(0);
+		assertEquals("http://localhost:8081 userName=internalUser1", body);
+	}
+
+	@Test
+	public void forwardsPreferenceUpdatesWithTheirBody() throws Exception {
+		//given
+		HttpServer owner = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		owner.createContext("/userPreferences", exchange -> {
+			ByteArrayOutputStream received = new ByteArrayOutputStream();
+			try (InputStream in = exchange.getRequestBody()) {
+				byte[] buffer = new byte[1024];
+				for (int read; (read = in.read(buffer)) != -1; ) received.write(buffer, 0, read);
+			}
+			byte[] body = (exchange.getRequestMethod() + " " + new String(received.toByteArray(), StandardCharsets.UTF_8))
+					.getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		owner.start();
+		ClusterForwarder forwarder = new ClusterForwarder("http://localhost:8081", ExecutionMode.PLATFORM, 2, 1000);
+
+		//when
+		String body = forwarder.forward("http://localhost:" + owner.getAddress().getPort(), "PUT", "/userPreferences",
+				"internalUser1", "{\"tripDuration\":3}").get();
+
+		//then
+		forwarder.shutdown();
+		owner.stop(0);
+		assertEquals("PUT {\"tripDuration\":3}", body);
+	}
+
+	private static TourGuideService newTourGuideService(Partitioner partitioner) {
+		GpsUtil gpsUtil = new GpsUtil();
+		return new TourGuideService(gpsUtil, new RewardsService(gpsUtil, new RewardCentral()),
+				new TripDealService(new TripPricer()), new InMemoryUserRepository(), ILocationJournal.DISABLED,
+				IGeofenceService.DISABLED, partitioner, new RankingConfig(), new TrackerConfig(), new ExecutionConfig());
+	}
+
+	private static Set<String> userNames(List<User> users) {
+		return users.stream().map(User::getUserName).collect(Collectors.toSet());
+	}
+}
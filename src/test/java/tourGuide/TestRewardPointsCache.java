@@ -0,0 +1,75 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tourGuide.model.AttractionUserKey;
+import tourGuide.service.RewardPointsCache;
+
+public class TestRewardPointsCache {
+
+	private AtomicLong now;
+	private RewardPointsCache cache;
+
+	@Before
+	public void setUp() {
+		now = new AtomicLong();
+		cache = new RewardPointsCache(1000, TimeUnit.MINUTES.toNanos(30), now::get);
+	}
+
+	@Test
+	public void getReturnsStoredPointsUntilExpiry() {
+		//given
+		AttractionUserKey key = new AttractionUserKey(UUID.randomUUID(), UUID.randomUUID());
+		cache.put(key, 250);
+
+		//when
+		int beforeExpiry = cache.get(key);
+		now.addAndGet(TimeUnit.MINUTES.toNanos(31));
+		int afterExpiry = cache.get(key);
+
+		//then
+		assertEquals(250, beforeExpiry);
+		assertEquals(RewardPointsCache.ABSENT, afterExpiry);
+		assertEquals(1L, (long) cache.getStats().get("hits"));
+		assertEquals(1L, (long) cache.getStats().get("misses"));
+	}
+
+	@Test
+	public void sizeStaysBounded() {
+		//when
+		for (int i = 0; i < 10000; i++) {
+			cache.put(new AttractionUserKey(UUID.randomUUID(), UUID.randomUUID()), i);
+		}
+
+		//then
+		assertTrue(cache.size() <= 1024);
+		assertTrue(cache.getStats().get("evictions") > 0);
+	}
+
+	@Test
+	public void invalidateUserOnlyDropsThatUser() {
+		//given
+		UUID userId = UUID.randomUUID();
+		UUID otherUserId = UUID.randomUUID();
+		UUID attractionId = UUID.randomUUID();
+		cache.put(new AttractionUserKey(attractionId, userId), 10);
+		cache.put(new AttractionUserKey(UUID.randomUUID(), userId), 20);
+		cache.put(new AttractionUserKey(attractionId, otherUserId), 30);
+
+		//when
+		cache.invalidateUser(userId);
+
+		//then
+		assertEquals(RewardPointsCache.ABSENT, cache.get(new AttractionUserKey(attractionId, userId)));
+		assertEquals(30, cache.get(new AttractionUserKey(attractionId, otherUserId)));
+		assertEquals(1L, cache.size());
+	}
+}
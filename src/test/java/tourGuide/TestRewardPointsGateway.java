@@ -0,0 +1,78 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import rewardCentral.RewardCentral;
+import tourGuide.model.AttractionUserKey;
+import tourGuide.service.RewardPointsGateway;
+
+public class TestRewardPointsGateway {
+
+	@Test
+	public void concurrentLookupsForSameKeyShareOneCall() throws Exception {
+		//given
+		CountDownLatch release = new CountDownLatch(1);
+		CountingRewardCentral rewardCentral = new CountingRewardCentral(release);
+		RewardPointsGateway gateway = new RewardPointsGateway(rewardCentral, 4);
+		AttractionUserKey key = new AttractionUserKey(UUID.randomUUID(), UUID.randomUUID());
+
+		//when
+		CompletableFuture<Integer> first = gateway.getRewardPointsAsync(key);
+		CompletableFuture<Integer> second = gateway.getRewardPointsAsync(key);
+		release.countDown();
+
+		//then
+		assertEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+		assertEquals(1, rewardCentral.calls.get());
+	}
+
+	@Test
+	public void batchLookupDedupesKeys() {
+		//given
+		CountDownLatch release = new CountDownLatch(0);
+		CountingRewardCentral rewardCentral = new CountingRewardCentral(release);
+		RewardPointsGateway gateway = new RewardPointsGateway(rewardCentral, 4);
+		UUID userId = UUID.randomUUID();
+		List<AttractionUserKey> keys = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			AttractionUserKey key = new AttractionUserKey(UUID.randomUUID(), userId);
+			keys.add(key);
+			keys.add(new AttractionUserKey(key.getAttractionId(), userId));
+		}
+
+		//when
+		Map<AttractionUserKey, Integer> rewardPoints = gateway.getRewardPoints(keys);
+
+		//then
+		assertEquals(10, rewardPoints.size());
+		assertEquals(10, rewardCentral.calls.get());
+	}
+
+	private static class CountingRewardCentral extends RewardCentral {
+		private final AtomicInteger calls = new AtomicInteger();
+		private final CountDownLatch release;
+
+		private CountingRewardCentral(CountDownLatch release) {
+			this.release = release;
+		}
+
+		@Override
+		public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+			calls.incrementAndGet();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return 42;
+		}
+	}
+}
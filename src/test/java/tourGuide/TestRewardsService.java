@@ -1,13 +1,19 @@
 package tourGuide;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Locale;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -17,6 +23,8 @@ import gpsUtil.location.Attraction;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
 import tourGuide.helper.InternalTestHelper;
+import tourGuide.model.AttractionUserKey;
+import tourGuide.service.RewardPointsGateway;
 import tourGuide.service.RewardsService;
 import tourGuide.service.TourGuideService;
 import tourGuide.model.User;
@@ -54,6 +62,104 @@ public class TestRewardsService {
 		assertEquals(1, userRewards.size());
 	}
 
+	@Test
+	public void calculateRewardsOnlyChecksNewLocations() {
+		//given
+		InternalTestHelper.setInternalUserNumber(0);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+
+		//when
+		rewardsService.calculateRewards(user);
+		rewardsService.awaitCalculateRewardsEnding();
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+		List<VisitedLocation> locationsToReward = user.pollLocationsToReward();
+
+		//then
+		tourGuideService.tracker.stopTracking();
+		assertEquals(1, user.getUserRewards().size());
+		assertEquals(1, locationsToReward.size());
+	}
+
+	@Test
+	public void locationsAreCheckedAgainAfterAFailedLookup() {
+		//given
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+		AtomicBoolean failed = new AtomicBoolean();
+		RewardsService failingOnce = new RewardsService(gpsUtil, new RewardPointsGateway(new RewardCentral()) {
+			@Override
+			public Map<AttractionUserKey, Integer> getRewardPoints(Collection<AttractionUserKey> keys) {
+				if (failed.compareAndSet(false, true)) throw new IllegalStateException("RewardCentral down");
+				return super.getRewardPoints(keys);
+			}
+		});
+
+		//when
+		boolean firstFailed = failingOnce.calculateRewards(user).handle((done, throwable) -> throwable != null).join();
+		int rewardsAfterFailure = user.getUserRewards().size();
+		failingOnce.calculateRewards(user).join();
+
+		//then
+		failingOnce.shutdown();
+		tourGuideService.tracker.stopTracking();
+		assertTrue(firstFailed);
+		assertEquals(0, rewardsAfterFailure);
+		assertEquals(1, user.getUserRewards().size());
+	}
+
+	@Test
+	public void shutdownStopsOnlyTheGatewayBuiltByTheService() {
+		//given
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		AtomicBoolean givenGatewayStopped = new AtomicBoolean();
+		RewardPointsGateway givenGateway = new RewardPointsGateway(new RewardCentral()) {
+			@Override
+			public void shutdown() {
+				givenGatewayStopped.set(true);
+				super.shutdown();
+			}
+		};
+		RewardsService withGivenGateway = new RewardsService(gpsUtil, givenGateway);
+
+		//when
+		rewardsService.shutdown();
+		withGivenGateway.shutdown();
+
+		//then
+		tourGuideService.tracker.stopTracking();
+		boolean ownGatewayStopped;
+		try {
+			rewardsService.getRewardPoints(attraction, user);
+			ownGatewayStopped = false;
+		} catch (RejectedExecutionException e) {
+			ownGatewayStopped = true;
+		}
+		boolean givenGatewayStoppedByService = givenGatewayStopped.get();
+		givenGateway.shutdown();
+		assertTrue(ownGatewayStopped);
+		assertFalse(givenGatewayStoppedByService);
+	}
+
+	@Test
+	public void addUserRewardConcurrentlyKeepsOneRewardPerAttraction() {
+		//given
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		List<Attraction> attractions = gpsUtil.getAttractions();
+		VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), attractions.get(0), new Date());
+
+		//when
+		IntStream.range(0, 1000).parallel().forEach(i -> user.addUserReward(
+				new UserReward(visitedLocation, attractions.get(i % attractions.size()), i)));
+
+		//then
+		tourGuideService.tracker.stopTracking();
+		assertEquals(attractions.size(), user.getUserRewards().size());
+	}
+
 	@Test
 	public void isWithinAttractionProximity() {
 		//when
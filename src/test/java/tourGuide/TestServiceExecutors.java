@@ -0,0 +1,64 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import tourGuide.concurrent.ExecutionMode;
+import tourGuide.concurrent.ServiceExecutors;
+import tourGuide.concurrent.UpstreamLimiter;
+
+public class TestServiceExecutors {
+
+	@Test
+	public void everyModeRunsTasks() throws Exception {
+		for (ExecutionMode mode : ExecutionMode.values()) {
+			//given
+			ExecutorService executor = ServiceExecutors.newExecutor(mode, 4, "test");
+
+			//when
+			int result = CompletableFuture.supplyAsync(() -> 42, executor).get(5, TimeUnit.SECONDS);
+
+			//then
+			executor.shutdown();
+			assertEquals(42, result);
+		}
+	}
+
+	@Test
+	public void upstreamLimiterCapsConcurrentCalls() {
+		//given
+		ExecutorService executor = ServiceExecutors.newExecutor(ExecutionMode.VIRTUAL, 20, "test");
+		UpstreamLimiter limiter = new UpstreamLimiter("upstream", 3);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+
+		//when
+		List<CompletableFuture<Integer>> futures = IntStream.range(0, 30)
+				.mapToObj(i -> CompletableFuture.supplyAsync(() -> limiter.call(() -> {
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					try {
+						TimeUnit.MILLISECONDS.sleep(10);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					running.decrementAndGet();
+					return i;
+				}), executor))
+				.collect(Collectors.toList());
+		futures.forEach(CompletableFuture::join);
+
+		//then
+		executor.shutdown();
+		assertTrue(maxRunning.get() <= 3);
+	}
+}
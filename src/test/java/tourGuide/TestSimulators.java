@@ -0,0 +1,118 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.simulation.LatencyProfile;
+import tourGuide.simulation.SimulatedGpsUtil;
+import tourGuide.simulation.SimulatedRewardCentral;
+import tourGuide.simulation.SimulatedTripPricer;
+import tourGuide.simulation.SimulatedUpstreamException;
+import tripPricer.Provider;
+
+public class TestSimulators {
+
+	@Test
+	public void sameSeedGivesSameLocations() {
+		//given
+		SimulatedGpsUtil first = new SimulatedGpsUtil(42, LatencyProfile.NONE);
+		SimulatedGpsUtil second = new SimulatedGpsUtil(42, LatencyProfile.NONE);
+		UUID userId = UUID.randomUUID();
+
+		//when
+		VisitedLocation firstCall = first.getUserLocation(userId);
+		VisitedLocation nextCall = first.getUserLocation(userId);
+
+		//then
+		assertEquals(firstCall.location.latitude, second.getUserLocation(userId).location.latitude, 0);
+		assertEquals(nextCall.location.longitude, second.getUserLocation(userId).location.longitude, 0);
+		assertTrue(firstCall.location.latitude != nextCall.location.latitude);
+	}
+
+	@Test
+	public void locationsAreTimedByTheSimulatedClock() {
+		//given
+		AtomicLong clock = new AtomicLong(1_000);
+		SimulatedGpsUtil gpsUtil = new SimulatedGpsUtil(42, LatencyProfile.NONE, clock::get);
+		UUID userId = UUID.randomUUID();
+
+		//when
+		VisitedLocation firstCall = gpsUtil.getUserLocation(userId);
+		clock.addAndGet(300_000);
+		VisitedLocation nextCall = gpsUtil.getUserLocation(userId);
+
+		//then
+		assertEquals(1_000, firstCall.timeVisited.getTime());
+		assertEquals(301_000, nextCall.timeVisited.getTime());
+	}
+
+	@Test
+	public void rewardPointsDependOnAttractionNameAndUser() {
+		//given
+		List<Attraction> attractions = new SimulatedGpsUtil(42, LatencyProfile.NONE).getAttractions();
+		List<Attraction> attractionsOfAnotherRun = attractions.stream()
+				.map(a -> new Attraction(a.attractionName, a.city, a.state, a.latitude, a.longitude))
+				.collect(Collectors.toList());
+		SimulatedRewardCentral rewardCentral = new SimulatedRewardCentral(42, LatencyProfile.NONE, attractions);
+		SimulatedRewardCentral rewardCentralOfAnotherRun = new SimulatedRewardCentral(42, LatencyProfile.NONE, attractionsOfAnotherRun);
+		UUID userId = UUID.randomUUID();
+
+		//when
+		int points = rewardCentral.getAttractionRewardPoints(attractions.get(0).attractionId, userId);
+		int pointsOfAnotherRun = rewardCentralOfAnotherRun.getAttractionRewardPoints(attractionsOfAnotherRun.get(0).attractionId, userId);
+
+		//then
+		assertEquals(points, pointsOfAnotherRun);
+		assertTrue(points >= 1 && points < 1000);
+	}
+
+	@Test
+	public void tripDealsHaveFiveDistinctProviders() {
+		//given
+		SimulatedTripPricer tripPricer = new SimulatedTripPricer(42, LatencyProfile.NONE);
+		UUID userId = UUID.randomUUID();
+
+		//when
+		List<Provider> providers = tripPricer.getPrice("apiKey", userId, 2, 3, 7, 100);
+
+		//then
+		assertEquals(5, providers.stream().map(provider -> provider.name).distinct().count());
+		assertEquals(providers.get(0).price, tripPricer.getPrice("apiKey", userId, 2, 3, 7, 100).get(0).price, 0);
+	}
+
+	@Test
+	public void latencyProfileDrawsTheTailAtItsRate() {
+		//given
+		LatencyProfile profile = LatencyProfile.parse("base=10,jitter=5,tail=2000,tail-rate=0.01");
+		SplittableRandom random = new SplittableRandom(42);
+
+		//when
+		long tailCalls = IntStream.range(0, 10_000)
+				.mapToLong(i -> profile.sampleDelayMillis(random))
+				.filter(delay -> delay == 2000)
+				.count();
+
+		//then
+		assertTrue(tailCalls > 50 && tailCalls < 150);
+	}
+
+	@Test(expected = SimulatedUpstreamException.class)
+	public void errorRateFailsCalls() {
+		//given
+		LatencyProfile profile = LatencyProfile.parse("error-rate=1");
+
+		//when
+		profile.simulate(new SplittableRandom(42), "upstream");
+	}
+}
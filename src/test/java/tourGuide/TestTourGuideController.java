@@ -2,6 +2,7 @@ package tourGuide;
 
 
 import gpsUtil.GpsUtil;
+import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
 
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -9,6 +10,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import rewardCentral.RewardCentral;
 import tourGuide.helper.InternalTestHelper;
 import tourGuide.model.User;
+import tourGuide.service.LatestLocationIndex;
 import tourGuide.service.RewardsService;
 import tourGuide.service.TourGuideService;
 
@@ -18,19 +20,28 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import com.jsoniter.output.JsonStream;
+
+import java.util.Date;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
 @RunWith(SpringRunner.class)
-@SpringBootTest
+@SpringBootTest(properties = "tourguide.controller.location-timeout-millis=50")
 @AutoConfigureMockMvc
 public class TestTourGuideController {
 
@@ -46,4 +57,99 @@ public class TestTourGuideController {
                 .andExpect(status().isOk())
                 .andExpect(content().string("Greetings from TourGuide!"));
     }
+
+    @Test
+    public void getAllCurrentLocationsNotModifiedForCurrentETag() throws Exception {
+        LatestLocationIndex latestLocations = new LatestLocationIndex();
+        latestLocations.update(new VisitedLocation(UUID.randomUUID(), new Location(33.8, -117.9), new Date()));
+        Mockito.when(tourGuideService.getLatestLocationIndex()).thenReturn(latestLocations);
+
+        mockMvc.perform(get("/getAllCurrentLocations").header("If-None-Match", "\"" + latestLocations.getETag() + "\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void getAllCurrentLocationsPagesHaveTheirOwnETag() throws Exception {
+        LatestLocationIndex latestLocations = new LatestLocationIndex();
+        latestLocations.update(new VisitedLocation(UUID.randomUUID(), new Location(33.8, -117.9), new Date()));
+        latestLocations.update(new VisitedLocation(UUID.randomUUID(), new Location(-43.5, 170.1), new Date()));
+        Mockito.when(tourGuideService.getLatestLocationIndex()).thenReturn(latestLocations);
+
+        mockMvc.perform(get("/getAllCurrentLocations").param("limit", "1")
+                        .header("If-None-Match", "\"" + latestLocations.getETag() + "\""))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/getAllCurrentLocations").param("limit", "1")
+                        .header("If-None-Match", "\"" + latestLocations.getETag() + "-1\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void getLocationAnswersTheLastVisitedLocationRightAway() throws Exception {
+        User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+        user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(33.8, -117.9), new Date()));
+        Mockito.when(tourGuideService.getUser("jon")).thenReturn(user);
+        Mockito.when(tourGuideService.getUserLocationAsync(user))
+                .thenReturn(CompletableFuture.completedFuture(user.getLastVisitedLocation()));
+
+        MvcResult result = mockMvc.perform(get("/getLocation").param("userName", "jon"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(JsonStream.serialize(user.getLastVisitedLocation().location)));
+    }
+
+    @Test
+    public void getLocationGivesUpOnTimeoutForAUserNeverLocated() throws Exception {
+        User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+        Mockito.when(tourGuideService.getUser("jon")).thenReturn(user);
+        // GpsUtil never answers for the first location of the user
+        Mockito.when(tourGuideService.getUserLocationAsync(user)).thenReturn(new CompletableFuture<>());
+
+        MvcResult result = mockMvc.perform(get("/getLocation").param("userName", "jon"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(JsonStream.serialize("location not available yet")));
+    }
+
+    @Test
+    public void getUsersRewardsAnswersEachUserName() throws Exception {
+        User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+        Mockito.when(tourGuideService.getUser("jon")).thenReturn(user);
+        Mockito.when(tourGuideService.getUserRewards(user)).thenReturn(user.getUserRewards());
+
+        MvcResult result = mockMvc.perform(post("/users/rewards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"jon\",\"nobody\",\"jon\"]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"jon\":[],\"nobody\":\"no user found\"}", true));
+    }
+
+    @Test
+    public void getUsersRewardsAnswersTheOthersWhenOneLookupFails() throws Exception {
+        User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+        User failing = new User(UUID.randomUUID(), "ann", "000", "ann@tourGuide.com");
+        Mockito.when(tourGuideService.getUser("jon")).thenReturn(user);
+        Mockito.when(tourGuideService.getUser("ann")).thenReturn(failing);
+        Mockito.when(tourGuideService.getUserRewards(user)).thenReturn(user.getUserRewards());
+        Mockito.when(tourGuideService.getUserRewards(failing)).thenThrow(new IllegalStateException("RewardCentral down"));
+
+        MvcResult result = mockMvc.perform(post("/users/rewards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"ann\",\"jon\"]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"ann\":\"lookup failed\",\"jon\":[]}", true));
+    }
 }
@@ -0,0 +1,106 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.dto.UserPreferencesDTO;
+import tourGuide.geo.DistanceMode;
+import tourGuide.model.AttractionUserKey;
+import tourGuide.model.User;
+import tourGuide.service.RewardPointsCache;
+import tourGuide.service.RewardsService;
+import tourGuide.service.TourGuideService;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"tourguide.rewards.incremental=false", "tourguide.geo.distance-mode=EQUIRECTANGULAR"})
+@AutoConfigureMockMvc
+public class TestTourGuideModule {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ApplicationContext applicationContext;
+
+    @Autowired
+    TourGuideService tourGuideService;
+
+    @Test
+    public void rewardsPropertiesReachTheServiceUsedForTracking() {
+        //when
+        RewardsService rewardsService = applicationContext.getBean(RewardsService.class);
+
+        //then
+        assertEquals(1, applicationContext.getBeansOfType(RewardsService.class).size());
+        assertSame(rewardsService, tourGuideService.getRewardsService());
+        assertFalse(rewardsService.isIncrementalMode());
+        assertEquals(DistanceMode.EQUIRECTANGULAR, rewardsService.getAttractionIndex().getDistanceEngine().getMode());
+    }
+
+    @Test
+    public void preferencesUpdateDropsTheCachedRewardPoints() {
+        //given
+        User user = new User(UUID.randomUUID(), "cachedPointsUser", "000", "cachedPointsUser@tourGuide.com");
+        tourGuideService.addUser(user);
+        RewardsService rewardsService = tourGuideService.getRewardsService();
+        AttractionUserKey key = new AttractionUserKey(
+                rewardsService.getAttractionIndex().getAttractions().get(0).attractionId, user.getUserId());
+        rewardsService.getRewardPointsAsync(Collections.singletonList(key)).join();
+        UserPreferencesDTO userPreferencesDTO = new UserPreferencesDTO();
+        userPreferencesDTO.setCurrency("USD");
+        userPreferencesDTO.setTripDuration(3);
+
+        //when
+        tourGuideService.updateUserPreferences(user, userPreferencesDTO);
+
+        //then
+        assertEquals(RewardPointsCache.ABSENT, rewardsService.getCachedRewardPoints(key));
+    }
+
+    @Test
+    public void preferencesUpdatedWithoutAttractionProximityKeepTheNearbyAttractions() throws Exception {
+        //given
+        User user = new User(UUID.randomUUID(), "proximityUser", "000", "proximityUser@tourGuide.com");
+        user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(33.817595, -117.922008), new Date()));
+        tourGuideService.addUser(user);
+
+        //when
+        mockMvc.perform(put("/userPreferences").param("userName", "proximityUser")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"currency\":\"USD\",\"tripDuration\":3,\"ticketQuantity\":2,\"numberOfAdults\":2}"))
+                .andExpect(status().isOk());
+        MvcResult result = mockMvc.perform(get("/getNearbyAttractions").param("userName", "proximityUser"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5));
+    }
+}
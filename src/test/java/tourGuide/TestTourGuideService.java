@@ -95,6 +95,39 @@ public class TestTourGuideService {
 		assertEquals(user.getUserId(), visitedLocation.userId);
 	}
 
+	@Test
+	public void trackUsersInSeveralBatches() throws Exception {
+		//given
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User user2 = new User(UUID.randomUUID(), "jon2", "000", "jon2@tourGuide.com");
+		tourGuideService.trackUsers(Arrays.asList(user, user2)).get();
+		tourGuideService.awaitTrackUserEnding();
+
+		//when
+		tourGuideService.trackUsers(Arrays.asList(user, user2)).get();
+		tourGuideService.awaitTrackUserEnding();
+
+		//then
+		tourGuideService.shutdown();
+		assertEquals(2, user.getVisitedLocations().size());
+		assertEquals(2, user2.getVisitedLocations().size());
+	}
+
+	@Test
+	public void trackUserUpdatesLatestLocationIndex() throws Exception {
+		//given
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		String eTag = tourGuideService.getLatestLocationIndex().getETag();
+
+		//when
+		VisitedLocation visitedLocation = tourGuideService.trackUserLocation(user).get();
+
+		//then
+		tourGuideService.tracker.stopTracking();
+		assertEquals(visitedLocation, tourGuideService.getLatestLocationIndex().get(user.getUserId()));
+		assertTrue(!eTag.equals(tourGuideService.getLatestLocationIndex().getETag()));
+	}
+
 	@Test
 	public void getNearbyAttractions() throws Exception {
 		//given
@@ -109,6 +142,42 @@ public class TestTourGuideService {
 		assertEquals(5, attractions.size());
 	}
 
+	@Test
+	public void getNearbyAttractionsWithoutAttractionProximity() throws Exception {
+		//given
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		user.getUserPreferences().setAttractionProximity(0);
+		VisitedLocation visitedLocation = tourGuideService.trackUserLocation(user).get();
+
+		//when
+		List<NearbyAttraction> attractions = tourGuideService.getNearByAttractions(user, visitedLocation);
+
+		//then
+		tourGuideService.tracker.stopTracking();
+		assertEquals(5, attractions.size());
+	}
+
+	@Test
+	public void getNearbyAttractionsOfSeveralUsers() throws Exception {
+		//given
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User user2 = new User(UUID.randomUUID(), "jon2", "000", "jon2@tourGuide.com");
+		VisitedLocation visitedLocation = tourGuideService.trackUserLocation(user).get();
+		VisitedLocation visitedLocation2 = tourGuideService.trackUserLocation(user2).get();
+		VisitedLocation emptyVisitedLocation = new VisitedLocation(UUID.randomUUID(), null, null);
+
+		//when
+		Map<UUID, List<NearbyAttraction>> attractions = tourGuideService
+				.getNearByAttractionsAsync(Arrays.asList(visitedLocation, visitedLocation2, emptyVisitedLocation)).get();
+
+		//then
+		tourGuideService.tracker.stopTracking();
+		assertEquals(2, attractions.size());
+		assertEquals(5, attractions.get(user.getUserId()).size());
+		assertEquals(tourGuideService.getNearByAttractions(user2, visitedLocation2).get(0).getAttractionName(),
+				attractions.get(user2.getUserId()).get(0).getAttractionName());
+	}
+
 	@Test
 	public void getNearbyAttractionsWithNoRegisteredLocation() throws Exception {
 		//given
@@ -0,0 +1,120 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.model.User;
+import tourGuide.model.UserReward;
+import tourGuide.service.TripDealService;
+import tripPricer.Provider;
+import tripPricer.TripPricer;
+
+public class TestTripDealService {
+
+	@Test
+	public void concurrentIdenticalQueriesShareOneCall() throws Exception {
+		//given
+		CountDownLatch release = new CountDownLatch(1);
+		CountingTripPricer tripPricer = new CountingTripPricer(release);
+		TripDealService tripDealService = new TripDealService(tripPricer);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User user2 = new User(UUID.randomUUID(), "jon2", "000", "jon2@tourGuide.com");
+
+		//when
+		CompletableFuture<List<Provider>> deals = CompletableFuture.supplyAsync(() -> tripDealService.getTripDeals(user));
+		CompletableFuture<List<Provider>> deals2 = CompletableFuture.supplyAsync(() -> tripDealService.getTripDeals(user2));
+		Thread.sleep(100);
+		release.countDown();
+
+		List<Provider> providers = deals.get(5, TimeUnit.SECONDS);
+		List<Provider> providers2 = deals2.get(5, TimeUnit.SECONDS);
+
+		//then
+		assertEquals(1, tripPricer.calls.get());
+		assertEquals(providers.get(0).price, providers2.get(0).price, 0);
+		assertEquals(user2.getUserId(), providers2.get(0).tripId);
+	}
+
+	@Test
+	public void quotesExpireAndDependOnRewardPoints() {
+		//given
+		CountingTripPricer tripPricer = new CountingTripPricer(new CountDownLatch(0));
+		AtomicLong now = new AtomicLong();
+		TripDealService tripDealService = new TripDealService(tripPricer, 100, TimeUnit.SECONDS.toNanos(60), now::get);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		//when
+		tripDealService.getTripDeals(user);
+		now.addAndGet(TimeUnit.SECONDS.toNanos(59));
+		tripDealService.getTripDeals(user);
+		now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		tripDealService.getTripDeals(user);
+		user.addUserReward(new UserReward(new VisitedLocation(user.getUserId(), new Location(33.8, -117.9), new Date()),
+				new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008), 120));
+		tripDealService.getTripDeals(user);
+
+		//then
+		assertEquals(120, user.getCumulativeRewardPoints());
+		assertEquals(3, tripPricer.calls.get());
+		assertEquals(1, (long) tripDealService.getStats().get("hits"));
+	}
+
+	@Test
+	public void aFullCacheOnlyDropsTheQuotesExpiringFirst() {
+		//given
+		CountingTripPricer tripPricer = new CountingTripPricer(new CountDownLatch(0));
+		AtomicLong now = new AtomicLong();
+		TripDealService tripDealService = new TripDealService(tripPricer, 2, TimeUnit.SECONDS.toNanos(60), now::get);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		//when
+		for (int tripDuration = 1; tripDuration <= 3; tripDuration++) {
+			user.getUserPreferences().setTripDuration(tripDuration);
+			tripDealService.getTripDeals(user);
+			now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		}
+		user.getUserPreferences().setTripDuration(2);
+		tripDealService.getTripDeals(user);
+		int callsAfterKeptQuote = tripPricer.calls.get();
+		user.getUserPreferences().setTripDuration(1);
+		tripDealService.getTripDeals(user);
+
+		//then
+		assertEquals(3, callsAfterKeptQuote);
+		assertEquals(4, tripPricer.calls.get());
+		assertEquals(2, (long) tripDealService.getStats().get("size"));
+	}
+
+	private static class CountingTripPricer extends TripPricer {
+		private final AtomicInteger calls = new AtomicInteger();
+		private final CountDownLatch release;
+
+		CountingTripPricer(CountDownLatch release) {
+			this.release = release;
+		}
+
+		@Override
+		public List<Provider> getPrice(String apiKey, UUID attractionId, int adults, int children, int nightsStay, int rewardsPoints) {
+			calls.incrementAndGet();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return super.getPrice(apiKey, attractionId, adults, children, nightsStay, rewardsPoints);
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import tourGuide.concurrent.ExecutionMode;
+import tourGuide.concurrent.RejectionPolicy;
+import tourGuide.concurrent.UserTaskExecutor;
+
+public class TestUserTaskExecutor {
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@Test
+	public void coalesceSharesTheQueuedTaskOfAUser() throws Exception {
+		//given
+		UserTaskExecutor<Integer> executor = blockedExecutor(RejectionPolicy.COALESCE);
+		UUID userId = UUID.randomUUID();
+		AtomicInteger runs = new AtomicInteger();
+
+		//when
+		CompletableFuture<Integer> first = executor.submit(userId, runs::incrementAndGet);
+		CompletableFuture<Integer> second = executor.submit(userId, runs::incrementAndGet);
+		release.countDown();
+
+		//then
+		assertSame(first, second);
+		assertEquals(1, (int) second.get(5, TimeUnit.SECONDS));
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	public void dropOldestSupersedesAndEvicts() throws Exception {
+		//given
+		UserTaskExecutor<Integer> executor = blockedExecutor(RejectionPolicy.DROP_OLDEST);
+		UUID userId = UUID.randomUUID();
+
+		//when
+		CompletableFuture<Integer> superseded = executor.submit(userId, () -> 1);
+		CompletableFuture<Integer> oldest = executor.submit(UUID.randomUUID(), () -> 3);
+		CompletableFuture<Integer> latest = executor.submit(userId, () -> 2);
+		// the superseded task still takes a slot of the queue, it is skipped by the first eviction
+		CompletableFuture<Integer> newest = executor.submit(UUID.randomUUID(), () -> 4);
+		CompletableFuture<Integer> newest2 = executor.submit(UUID.randomUUID(), () -> 5);
+		release.countDown();
+
+		//then
+		assertEquals(2, (int) superseded.get(5, TimeUnit.SECONDS));
+		assertEquals(2, (int) latest.get(5, TimeUnit.SECONDS));
+		assertEquals(4, (int) newest.get(5, TimeUnit.SECONDS));
+		assertEquals(5, (int) newest2.get(5, TimeUnit.SECONDS));
+		try {
+			oldest.join();
+		} catch (CompletionException e) {
+			assertTrue(e.getCause() instanceof RejectedExecutionException);
+			return;
+		}
+		throw new AssertionError("The oldest task should have been dropped");
+	}
+
+	@Test
+	public void callerRunsWhenTheQueueIsFull() throws Exception {
+		//given
+		UserTaskExecutor<Integer> executor = blockedExecutor(RejectionPolicy.CALLER_RUNS);
+		UUID userId = UUID.randomUUID();
+		Thread caller = Thread.currentThread();
+
+		//when
+		executor.submit(userId, () -> 1);
+		executor.submit(userId, () -> 2);
+		executor.submit(userId, () -> 3);
+		CompletableFuture<Integer> full = executor.submit(userId, () -> Thread.currentThread() == caller ? 4 : 0);
+		release.countDown();
+
+		//then
+		assertTrue(full.isDone());
+		assertEquals(4, (int) full.get());
+	}
+
+	// one thread busy until release, and room for three queued tasks
+	private UserTaskExecutor<Integer> blockedExecutor(RejectionPolicy policy) {
+		UserTaskExecutor<Integer> executor = new UserTaskExecutor<>(ExecutionMode.PLATFORM, 1, 3, policy, "test");
+		CountDownLatch started = new CountDownLatch(1);
+		executor.submit(UUID.randomUUID(), () -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return 0;
+		});
+		try {
+			started.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return executor;
+	}
+}